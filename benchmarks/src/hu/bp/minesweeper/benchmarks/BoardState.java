@@ -0,0 +1,50 @@
+package hu.bp.minesweeper.benchmarks;
+
+import hu.bp.minesweeper.core.Minesweeper;
+import hu.bp.minesweeper.core.MinesweeperData;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+
+/**
+ * Board size and mine density parameters shared by the benchmarks.
+ *
+ * size is "rows x cols": beginner, intermediate, expert, then large boards.
+ * density is the ratio of bombs to cells (beginner 0.12, expert ~0.2).
+ */
+@State(Scope.Benchmark)
+public class BoardState {
+	@Param({"9x9", "16x16", "16x30", "100x100", "1000x1000", "4000x4000"})
+	public String size;
+
+	@Param({"0.12", "0.2", "0.35"})
+	public double density;
+
+	public int rows;
+	public int cols;
+	public int numberOfBombs;
+
+	/**
+	 * bombs of a fixed board, for the benchmarks which do not generate them
+	 */
+	public List<Integer> bombs;
+
+	/**
+	 * a fixed board, for the benchmarks which only render it
+	 */
+	public MinesweeperData data;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		String[] rowsCols = size.split("x");
+		rows = Integer.parseInt(rowsCols[0]);
+		cols = Integer.parseInt(rowsCols[1]);
+		numberOfBombs = (int) Math.round(rows * cols * density);
+		data = Minesweeper.createMinesweeperData(rows, cols, numberOfBombs);
+		bombs = data.bombs;
+	}
+}
@@ -0,0 +1,46 @@
+package hu.bp.minesweeper.benchmarks;
+
+import hu.bp.minesweeper.core.Minesweeper;
+import hu.bp.minesweeper.core.MinesweeperData;
+import hu.bp.minesweeper.core.SplitRandom;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Generating a board: bomb placement, neighbourhood counting and both together
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class GenerationBenchmark {
+
+	@Benchmark
+	public MinesweeperData createMinesweeperData(BoardState board) {
+		return Minesweeper.createMinesweeperData(board.rows, board.cols, board.numberOfBombs);
+	}
+
+	@Benchmark
+	public List<Integer> getUniqueRandoms(BoardState board) {
+		return Minesweeper.getUniqueRandoms(board.rows * board.cols, board.numberOfBombs);
+	}
+
+	@Benchmark
+	public List<Integer> getUniqueRandomsOptimized(BoardState board) {
+		return Minesweeper.getUniqueRandomsOptimized(board.rows * board.cols, board.numberOfBombs);
+	}
+
+	@Benchmark
+	public int[] getUniqueRandomsSeeded(BoardState board) {
+		return Minesweeper.getUniqueRandoms(board.rows * board.cols, board.numberOfBombs, new SplitRandom(board.rows));
+	}
+
+	@Benchmark
+	public Map<Integer, Long> getBombsNeighboursWithCounts(BoardState board) {
+		return Minesweeper.getBombsNeighboursWithCounts(board.rows, board.cols, board.bombs);
+	}
+}
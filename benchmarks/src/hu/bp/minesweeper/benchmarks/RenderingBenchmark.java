@@ -0,0 +1,57 @@
+package hu.bp.minesweeper.benchmarks;
+
+import hu.bp.minesweeper.core.GridRenderer;
+import hu.bp.minesweeper.core.Minesweeper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Converting a generated board to the grid and text outputs
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+public class RenderingBenchmark {
+	private final GridRenderer renderer = new GridRenderer();
+
+	/**
+	 * Discards the output, so only the rendering is measured
+	 */
+	private final Writer nullWriter = new Writer() {
+		@Override
+		public void write(char[] cbuf, int off, int len) {
+		}
+
+		@Override
+		public void flush() {
+		}
+
+		@Override
+		public void close() {
+		}
+	};
+
+	@Benchmark
+	public Integer[][] getIntegerGrid(BoardState board) {
+		return Minesweeper.getIntegerGrid(board.data);
+	}
+
+	@Benchmark
+	public String getStringGrid(BoardState board) {
+		return Minesweeper.getStringGrid(board.data);
+	}
+
+	@Benchmark
+	public Writer renderToWriter(BoardState board) throws IOException {
+		renderer.render(board.data.board, nullWriter);
+		return nullWriter;
+	}
+}
@@ -0,0 +1,53 @@
+package hu.bp.minesweeper.benchmarks;
+
+import hu.bp.minesweeper.core.Minesweeper;
+import hu.bp.minesweeper.core.Minesweeper.NeighbourCounting;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The STREAM and BITSET neighbourhood counting side by side. STREAM is O(bombs * bombs),
+ * so this one stops at 100x100, GenerationBenchmark covers BITSET on the large boards.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class StreamCountingBenchmark {
+	@Param({"9x9", "16x16", "16x30", "100x100"})
+	public String size;
+
+	@Param({"0.12", "0.2", "0.35"})
+	public double density;
+
+	@Param({"STREAM", "BITSET"})
+	public NeighbourCounting counting;
+
+	private int rows;
+	private int cols;
+	private List<Integer> bombs;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		String[] rowsCols = size.split("x");
+		rows = Integer.parseInt(rowsCols[0]);
+		cols = Integer.parseInt(rowsCols[1]);
+		bombs = new ArrayList<>(Minesweeper.getUniqueRandoms(rows * cols, (int) Math.round(rows * cols * density)));
+	}
+
+	@Benchmark
+	public Map<Integer, Long> getBombsNeighboursWithCounts() {
+		return Minesweeper.getBombsNeighboursWithCounts(rows, cols, bombs, counting);
+	}
+}
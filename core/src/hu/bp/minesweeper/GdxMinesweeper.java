@@ -2,50 +2,194 @@ package hu.bp.minesweeper;
 
 import com.badlogic.gdx.ApplicationAdapter;
 import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.InputMultiplexer;
 import com.badlogic.gdx.graphics.GL20;
+import com.badlogic.gdx.graphics.g2d.SpriteBatch;
 import com.badlogic.gdx.scenes.scene2d.Stage;
 import com.badlogic.gdx.scenes.scene2d.ui.Table;
 import com.badlogic.gdx.utils.viewport.FitViewport;
 import com.badlogic.gdx.utils.viewport.ScreenViewport;
+import hu.bp.minesweeper.core.Metrics;
 import hu.bp.minesweeper.core.Minesweeper;
 import hu.bp.minesweeper.core.MinesweeperData;
+import hu.bp.minesweeper.core.MinesweeperGame;
+import hu.bp.minesweeper.core.Tracing;
+import hu.bp.minesweeper.graph.BoardActor;
+import hu.bp.minesweeper.graph.BoardCameraController;
 import hu.bp.minesweeper.graph.ButtonDrawer;
+import hu.bp.minesweeper.graph.MetricsDump;
+import hu.bp.minesweeper.graph.MetricsOverlay;
 
 public class GdxMinesweeper extends ApplicationAdapter {
+	private static final Metrics.Counter FRAMES = Metrics.counter("frames");
+	private static final Metrics.Histogram FRAME_ACT = Metrics.timer("frame.act");
+	private static final Metrics.Histogram FRAME_DRAW = Metrics.timer("frame.draw");
+	private static final Metrics.Gauge RENDER_CALLS = Metrics.gauge("frame.renderCalls");
+	private static final Metrics.Histogram FRAME_ALLOCATIONS = Metrics.histogram("frame.allocatedBytes");
+
 	private Stage stage;
 	private Table table;
+	private BoardActor board;
+	private BoardCameraController cameraController;
+	private MetricsOverlay overlay;
+	private MetricsDump dump;
+
+	/**
+	 * Called when the game is created, e.g. to record its moves
+	 */
+	public interface GameObserver {
+		void gameCreated(MinesweeperData data, MinesweeperGame game);
+	}
+
+	/**
+	 * Creates the boards, e.g. boards which can be solved without guessing
+	 */
+	public interface BoardSource {
+		MinesweeperData create(int rows, int cols, int bombs);
+
+		/**
+		 * @param data a board of this source
+		 * @return the cell which is revealed when the game starts, or -1
+		 */
+		default int getStart(MinesweeperData data) {
+			return -1;
+		}
+	}
+
+	private final GameObserver observer;
+	private final BoardSource boardSource;
+
+	/**
+	 * Draw the board with a MinesweeperButton per cell instead of one BoardActor
+	 */
+	private final boolean useButtons;
+
+	public GdxMinesweeper() {
+		this(null);
+	}
+
+	/**
+	 * @param observer null when nothing observes the games
+	 */
+	public GdxMinesweeper(GameObserver observer) {
+		this(observer, Minesweeper::createMinesweeperData);
+	}
+
+	/**
+	 * @param observer null when nothing observes the games
+	 * @param boardSource
+	 */
+	public GdxMinesweeper(GameObserver observer, BoardSource boardSource) {
+		this(observer, boardSource, false);
+	}
+
+	/**
+	 * @param observer null when nothing observes the games
+	 * @param boardSource
+	 * @param useButtons draw the board with a MinesweeperButton per cell (the old way, for small
+	 *                   boards) instead of one BoardActor
+	 */
+	public GdxMinesweeper(GameObserver observer, BoardSource boardSource, boolean useButtons) {
+		this.observer = observer;
+		this.boardSource = boardSource;
+		this.useButtons = useButtons;
+	}
 
 	@Override
 	public void create () {
-		stage = new Stage(new FitViewport(1, 1));
-		Gdx.input.setInputProcessor(stage);
+		overlay = new MetricsOverlay();
+		dump = new MetricsDump();
+
+		MinesweeperData mData = boardSource.create(16, 16, 40);
+
+		MinesweeperGame game = new MinesweeperGame(mData.board);
+		ButtonDrawer bd = new ButtonDrawer(game);
+
+		if (observer != null) {
+			observer.gameCreated(mData, game);
+		}
 
-		table = new Table();
-		table.setFillParent(true);
+		if (useButtons) {
+			stage = new Stage(new FitViewport(1, 1));
+			Gdx.input.setInputProcessor(new InputMultiplexer(overlay.createInputProcessor(), stage));
 
-		MinesweeperData mData = Minesweeper.createMinesweeperData(16, 16, 40);
+			table = new Table();
+			table.setFillParent(true);
 
-		ButtonDrawer bd = new ButtonDrawer(mData.bombs.size(), mData.BOUND);
+			bd.addButtons(table);
 
-		bd.addButtons(Minesweeper.getIntegerGrid(mData), table);
+			stage.addActor(table);
+		}
+		else {
+			// one world unit is one pixel, the camera pans and zooms over the board
+			stage = new Stage(new ScreenViewport());
 
-		stage.addActor(table);
+			board = bd.addBoard(stage.getRoot());
+			cameraController = new BoardCameraController(stage, board);
+
+			Gdx.input.setInputProcessor(new InputMultiplexer(overlay.createInputProcessor(),
+					cameraController.createInputProcessor(), stage));
+		}
+
+		// after the drawer and the observer, so the start is shown and recorded like the other moves
+		int start = boardSource.getStart(mData);
+		if (start >= 0) {
+			game.reveal(start);
+		}
 	}
 
 	@Override
 	public void resize (int width, int height) {
-		stage.getViewport().setWorldSize((int)table.getMinWidth(), (int)table.getMinHeight());
-		stage.getViewport().update(width, height, true);
+		if (useButtons) {
+			stage.getViewport().setWorldSize((int)table.getMinWidth(), (int)table.getMinHeight());
+			stage.getViewport().update(width, height, true);
+		}
+		else {
+			stage.getViewport().update(width, height, false);
+			cameraController.fit();
+		}
+
+		overlay.resize(width, height);
 	}
 
 	@Override
 	public void render () {
+		long allocated = Metrics.allocatedBytes();
+		long start = Metrics.start();
+		long frameStart = start;
+		Object frame = Tracing.beginFrame();
+
 		Gdx.gl.glClear(GL20.GL_COLOR_BUFFER_BIT);
 		stage.act();
+		start = FRAME_ACT.stop(start);
+
+		if (cameraController != null) {
+			cameraController.update();
+		}
+
 		stage.draw();
+		FRAME_DRAW.stop(start);
+		FRAMES.increment();
+
+		int renderCalls = stage.getBatch() instanceof SpriteBatch ? ((SpriteBatch) stage.getBatch()).renderCalls : 0;
+		Tracing.endFrame(frame, renderCalls);
+
+		// not when the metrics were enabled during the frame, allocated would be 0
+		if (frameStart != Metrics.NOT_STARTED && Metrics.isEnabled()) {
+			RENDER_CALLS.set(renderCalls);
+			FRAME_ALLOCATIONS.record(Metrics.allocatedBytes() - allocated);
+		}
+
+		overlay.draw(Gdx.graphics.getDeltaTime());
+		dump.update(Gdx.graphics.getDeltaTime());
 	}
 
 	public void dispose() {
 		stage.dispose();
+		overlay.dispose();
+
+		if (board != null) {
+			board.dispose();
+		}
 	}
 }
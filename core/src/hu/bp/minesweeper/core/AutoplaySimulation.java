@@ -0,0 +1,197 @@
+package hu.bp.minesweeper.core;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Plays a lot of games with a bot on the core model, without any UI, on a fixed pool of worker threads.
+ *
+ * Every worker has its own bot and its own statistics, it takes chunks of consecutive game indexes
+ * until all the games are played; the statistics are merged at the end. The index-th game gets
+ * new SplitRandom(seed).split(index) for generating the board and for the bot, like in BatchGenerator,
+ * so the results do not depend on the number of threads.
+ *
+ * Three phases are timed with System.nanoTime() into LatencyHistograms: generation (per game),
+ * solve (the bot's nextMove, per move) and reveal (MinesweeperGame.reveal, per move). The timer
+ * itself costs some tens of nanoseconds per phase, it is included in the latencies but not
+ * in the games/s, which is measured on the wall clock.
+ *
+ * JVM only, it is excluded from the GWT module.
+ */
+public class AutoplaySimulation {
+	public static final int DEFAULT_CHUNK_SIZE = 256;
+
+	/**
+	 * Statistics of one worker, or of all of them after merge()
+	 */
+	public static class Stats {
+		public long games;
+		public long wins;
+		public long moves;
+
+		public final LatencyHistogram generation = new LatencyHistogram();
+		public final LatencyHistogram solve = new LatencyHistogram();
+		public final LatencyHistogram reveal = new LatencyHistogram();
+
+		void merge(Stats other) {
+			games += other.games;
+			wins += other.wins;
+			moves += other.moves;
+			generation.merge(other.generation);
+			solve.merge(other.solve);
+			reveal.merge(other.reveal);
+		}
+	}
+
+	/**
+	 * Statistics of a run() call
+	 */
+	public static class Result {
+		public final Stats stats;
+		public final long nanos;
+		public final int threads;
+
+		public Result(Stats stats, long nanos, int threads) {
+			this.stats = stats;
+			this.nanos = nanos;
+			this.threads = threads;
+		}
+
+		public double getWinRate() {
+			return stats.games == 0 ? 0 : (double) stats.wins / stats.games;
+		}
+
+		public double getGamesPerSecond() {
+			return nanos == 0 ? 0 : stats.games * 1e9 / nanos;
+		}
+
+		@Override
+		public String toString() {
+			return String.format("%d games in %.3f s on %d threads, %.0f games/s, win rate %.2f%%, %.1f moves/game%n",
+					stats.games, nanos / 1e9, threads, getGamesPerSecond(), getWinRate() * 100,
+					stats.games == 0 ? 0.0 : (double) stats.moves / stats.games)
+					+ "generation: " + stats.generation + "\n"
+					+ "solve:      " + stats.solve + "\n"
+					+ "reveal:     " + stats.reveal;
+		}
+	}
+
+	private final int threads;
+	private final int chunkSize;
+
+	public AutoplaySimulation(int threads, int chunkSize) {
+		if (threads < 1 || chunkSize < 1) {
+			throw new IllegalArgumentException("threads and chunkSize should be positive: " + threads + ", " + chunkSize);
+		}
+
+		this.threads = threads;
+		this.chunkSize = chunkSize;
+	}
+
+	/**
+	 * One thread per available processor
+	 */
+	public AutoplaySimulation() {
+		this(Runtime.getRuntime().availableProcessors(), DEFAULT_CHUNK_SIZE);
+	}
+
+	/**
+	 * Plays count games
+	 * @param seed
+	 * @param count
+	 * @param factory creates the board of the index-th game
+	 * @param bots called once per worker thread
+	 * @return
+	 */
+	public Result run(long seed, long count, BatchGenerator.BoardFactory factory, Supplier<? extends Bot> bots) {
+		long start = System.nanoTime();
+		SplitRandom root = new SplitRandom(seed);
+		AtomicLong next = new AtomicLong();
+		ExecutorService pool = Executors.newFixedThreadPool(threads, runnable -> {
+			Thread thread = new Thread(runnable, "AutoplaySimulation");
+			thread.setDaemon(true);
+			return thread;
+		});
+
+		Stats total = new Stats();
+
+		try {
+			List<Future<Stats>> workers = new ArrayList<>();
+
+			for (int i = 0; i < threads; i++) {
+				workers.add(pool.submit(() -> play(root, next, count, factory, bots.get())));
+			}
+
+			for (Future<Stats> worker : workers) {
+				total.merge(worker.get());
+			}
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("simulation interrupted", e);
+		}
+		catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw new IllegalStateException(e.getCause());
+		}
+		finally {
+			pool.shutdownNow();
+		}
+
+		return new Result(total, System.nanoTime() - start, threads);
+	}
+
+	private Stats play(SplitRandom root, AtomicLong next, long count, BatchGenerator.BoardFactory factory, Bot bot) {
+		Stats stats = new Stats();
+		long from;
+
+		while ((from = next.getAndAdd(chunkSize)) < count && !Thread.currentThread().isInterrupted()) {
+			long to = Math.min(count, from + chunkSize);
+
+			for (long index = from; index < to; index++) {
+				play(index, root.split(index), factory, bot, stats);
+			}
+		}
+
+		return stats;
+	}
+
+	static void play(long index, SplitRandom random, BatchGenerator.BoardFactory factory, Bot bot, Stats stats) {
+		long time = System.nanoTime();
+		MinesweeperGame game = new MinesweeperGame(factory.create(index, random).board);
+		long now = System.nanoTime();
+		stats.generation.record(now - time);
+
+		while (!game.isOver()) {
+			time = now;
+			int cell = bot.nextMove(game, random);
+			now = System.nanoTime();
+			stats.solve.record(now - time);
+
+			if (game.getState(cell) != FloodReveal.HIDDEN) {
+				throw new IllegalStateException("game " + index + ": the bot chose a cell which is not hidden: " + cell);
+			}
+
+			time = now;
+			game.reveal(cell);
+			now = System.nanoTime();
+			stats.reveal.record(now - time);
+
+			stats.moves++;
+		}
+
+		stats.games++;
+
+		if (game.getStatus() == MinesweeperGame.Status.WON) {
+			stats.wins++;
+		}
+	}
+}
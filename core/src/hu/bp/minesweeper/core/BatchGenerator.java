@@ -0,0 +1,173 @@
+package hu.bp.minesweeper.core;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Generates a lot of boards on a fixed pool of worker threads and writes them in order.
+ *
+ * The boards are generated in chunks of consecutive indexes. Every worker encodes its chunk into
+ * its own (thread local, reused) buffer, the calling thread writes the finished chunks to the output
+ * in index order. At most 2 * threads chunks are in flight, so the memory used does not depend on
+ * the number of boards.
+ *
+ * The index-th board gets new SplitRandom(seed).split(index) as random generator, so the output
+ * does not depend on the number of threads and any board can be reproduced alone.
+ *
+ * JVM only, it is excluded from the GWT module.
+ */
+public class BatchGenerator {
+	/**
+	 * Creates the index-th board of the batch
+	 */
+	public interface BoardFactory {
+		MinesweeperData create(long index, SplitRandom random);
+	}
+
+	/**
+	 * Writes one board to the output
+	 */
+	public interface BoardEncoder {
+		void encode(long index, MinesweeperData data, OutputStream out) throws IOException;
+	}
+
+	/**
+	 * The format of GenerateTestData and neighbours.txt: the string grid followed by an empty line
+	 */
+	public static final BoardEncoder TEXT = (index, data, out) -> {
+		new GridRenderer().render(data.board, out);
+		out.write('\n');
+		out.write('\n');
+	};
+
+	/**
+	 * BinaryBoardFormat, the stream header should be written with BinaryBoardFormat.writeHeader(out)
+	 * before generate()
+	 * @param includeCounts
+	 * @return
+	 */
+	public static BoardEncoder binary(boolean includeCounts) {
+		return (index, data, out) -> BinaryBoardFormat.encode(data, includeCounts, out);
+	}
+
+	public static final int DEFAULT_CHUNK_SIZE = 1024;
+
+	/**
+	 * Statistics of a generate() call
+	 */
+	public static class Result {
+		public final long boards;
+		public final long nanos;
+		public final int threads;
+
+		public Result(long boards, long nanos, int threads) {
+			this.boards = boards;
+			this.nanos = nanos;
+			this.threads = threads;
+		}
+
+		public double getBoardsPerSecond() {
+			return nanos == 0 ? 0 : boards * 1e9 / nanos;
+		}
+
+		@Override
+		public String toString() {
+			return String.format("%d boards in %.3f s on %d threads, %.0f boards/s",
+					boards, nanos / 1e9, threads, getBoardsPerSecond());
+		}
+	}
+
+	private final int threads;
+	private final int chunkSize;
+
+	public BatchGenerator(int threads, int chunkSize) {
+		if (threads < 1 || chunkSize < 1) {
+			throw new IllegalArgumentException("threads and chunkSize should be positive: " + threads + ", " + chunkSize);
+		}
+
+		this.threads = threads;
+		this.chunkSize = chunkSize;
+	}
+
+	/**
+	 * One thread per available processor
+	 */
+	public BatchGenerator() {
+		this(Runtime.getRuntime().availableProcessors(), DEFAULT_CHUNK_SIZE);
+	}
+
+	/**
+	 * Generates count boards and writes them to out in index order. out is not closed.
+	 * @param seed
+	 * @param count
+	 * @param factory
+	 * @param encoder
+	 * @param out
+	 * @return
+	 * @throws IOException
+	 */
+	public Result generate(long seed, long count, BoardFactory factory, BoardEncoder encoder, OutputStream out) throws IOException {
+		long start = System.nanoTime();
+		SplitRandom root = new SplitRandom(seed);
+		ThreadLocal<ByteArrayOutputStream> buffers = ThreadLocal.withInitial(() -> new ByteArrayOutputStream(1 << 16));
+		ExecutorService pool = Executors.newFixedThreadPool(threads, runnable -> {
+			Thread thread = new Thread(runnable, "BatchGenerator");
+			thread.setDaemon(true);
+			return thread;
+		});
+
+		try {
+			Deque<Future<byte[]>> pending = new ArrayDeque<>();
+			long next = 0;
+
+			while (next < count || !pending.isEmpty()) {
+				while (next < count && pending.size() < 2 * threads) {
+					long from = next;
+					long to = Math.min(count, next + chunkSize);
+
+					pending.add(pool.submit(() -> encodeChunk(root, from, to, factory, encoder, buffers.get())));
+					next = to;
+				}
+
+				out.write(pending.poll().get());
+			}
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("batch generation interrupted");
+		}
+		catch (ExecutionException e) {
+			if (e.getCause() instanceof IOException) {
+				throw (IOException) e.getCause();
+			}
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw new IOException(e.getCause());
+		}
+		finally {
+			pool.shutdownNow();
+		}
+
+		return new Result(count, System.nanoTime() - start, threads);
+	}
+
+	private static byte[] encodeChunk(SplitRandom root, long from, long to, BoardFactory factory,
+			BoardEncoder encoder, ByteArrayOutputStream buffer) throws IOException {
+		buffer.reset();
+
+		for (long index = from; index < to; index++) {
+			encoder.encode(index, factory.create(index, root.split(index)), buffer);
+		}
+
+		return buffer.toByteArray();
+	}
+}
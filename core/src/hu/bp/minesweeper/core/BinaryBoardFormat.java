@@ -0,0 +1,336 @@
+package hu.bp.minesweeper.core;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Compact binary format of minesweeper grids, see BinaryBoardWriter and BinaryBoardReader.
+ *
+ * Stream header: the MAGIC bytes "MSWB", then the VERSION as varint.
+ *
+ * Then the grids, one after the other:
+ * - flags byte: FLAG_SEED, FLAG_COUNTS, FLAG_SAFE_CELL
+ * - rows, cols: unsigned varints (7 bits per byte, lowest group first, high bit = more bytes)
+ * - seed: 8 bytes big endian, when FLAG_SEED is set
+ * - safe cell: unsigned varint, when FLAG_SAFE_CELL is set. With the seed it regenerates the grid,
+ *   see MinesweeperData.safeCell
+ * - bombs: (rows * cols + 7) / 8 bytes, bit (i & 7) of byte (i >> 3) is set when the cell with
+ *   linear coordinate i is a bomb
+ * - counts: (rows * cols + 1) / 2 bytes, when FLAG_COUNTS is set. One nibble per cell, the lower
+ *   nibble is the even linear coordinate, bombs are 0xF
+ *
+ * Version 1 streams have no FLAG_SAFE_CELL, they are still read.
+ *
+ * Without counts a grid is about rows * cols / 8 bytes, the text format is rows * (cols + 1) bytes.
+ * The counts are recomputed with BitsetNeighbourCounter when they are not in the stream.
+ *
+ * JVM only, it is excluded from the GWT module.
+ */
+public class BinaryBoardFormat {
+	public static final byte[] MAGIC = {'M', 'S', 'W', 'B'};
+
+	public static final int VERSION = 2;
+
+	/**
+	 * The first version that can be read
+	 */
+	static final int MIN_VERSION = 1;
+
+	public static final int FLAG_SEED = 1;
+
+	public static final int FLAG_COUNTS = 2;
+
+	/**
+	 * Since version 2
+	 */
+	public static final int FLAG_SAFE_CELL = 4;
+
+	static final int KNOWN_FLAGS = FLAG_SEED | FLAG_COUNTS | FLAG_SAFE_CELL;
+
+	static final int BOMB_NIBBLE = 0xF;
+
+	/**
+	 * A source of bytes for readVarint, like InputStream.read()
+	 */
+	interface ByteInput {
+		/**
+		 * @return the next byte (0..255), -1 at the end
+		 */
+		int read() throws IOException;
+	}
+
+	private BinaryBoardFormat() {}
+
+	/**
+	 * Writes the stream header. BinaryBoardWriter does it, call this only when the grids are
+	 * written with encode(), like in BatchGenerator.
+	 * @param out
+	 * @throws IOException
+	 */
+	public static void writeHeader(OutputStream out) throws IOException {
+		out.write(MAGIC);
+		writeVarint(out, VERSION);
+	}
+
+	/**
+	 * Writes one grid (without the stream header)
+	 * @param data
+	 * @param includeCounts
+	 * @param out
+	 * @throws IOException
+	 */
+	public static void encode(MinesweeperData data, boolean includeCounts, OutputStream out) throws IOException {
+		Board board = data.board;
+		int flags = (data.seed != null ? FLAG_SEED : 0) | (includeCounts ? FLAG_COUNTS : 0)
+				| (data.safeCell >= 0 ? FLAG_SAFE_CELL : 0);
+
+		out.write(flags);
+		writeVarint(out, board.rows);
+		writeVarint(out, board.cols);
+
+		if (data.seed != null) {
+			long seed = data.seed;
+			for (int shift = 56; shift >= 0; shift -= 8) {
+				out.write((int) (seed >>> shift));
+			}
+		}
+
+		if (data.safeCell >= 0) {
+			writeVarint(out, data.safeCell);
+		}
+
+		byte[] bombs = new byte[(board.bound + 7) >>> 3];
+		for (int i = 0; i < board.getNumberOfBombs(); i++) {
+			int bomb = board.getBomb(i);
+			bombs[bomb >>> 3] |= 1 << (bomb & 7);
+		}
+		out.write(bombs);
+
+		if (includeCounts) {
+			byte[] counts = new byte[(board.bound + 1) >>> 1];
+			for (int i = 0; i < board.bound; i++) {
+				int nibble = board.isBomb(i) ? BOMB_NIBBLE : board.get(i);
+				counts[i >>> 1] |= nibble << ((i & 1) << 2);
+			}
+			out.write(counts);
+		}
+	}
+
+	/**
+	 * Reads one grid (without the stream header) from the current position of the buffer,
+	 * the position is moved after the grid. The buffer is not copied.
+	 * @param buffer
+	 * @return
+	 * @throws IOException when the data is malformed, EOFException when it is cut
+	 */
+	public static MinesweeperData decode(ByteBuffer buffer) throws IOException {
+		Cursor cursor = new Cursor(buffer, buffer.position());
+		MinesweeperData data = decode(cursor);
+		buffer.position(cursor.position);
+
+		return data;
+	}
+
+	/**
+	 * Reads one grid (without the stream header) at the offset, with absolute gets only, so the
+	 * buffer can be shared by threads. The buffer is not copied.
+	 * @param buffer
+	 * @param offset
+	 * @return
+	 * @throws IOException when the data is malformed, EOFException when it is cut
+	 */
+	public static MinesweeperData decode(ByteBuffer buffer, int offset) throws IOException {
+		return decode(new Cursor(buffer, offset));
+	}
+
+	private static MinesweeperData decode(Cursor cursor) throws IOException {
+		int flags = cursor.read();
+
+		if (flags < 0) {
+			throw new EOFException("the grid is cut");
+		}
+
+		if ((flags & ~KNOWN_FLAGS) != 0) {
+			throw new IOException("unknown flags: " + flags);
+		}
+
+		int rows = readVarint(cursor);
+		int cols = readVarint(cursor);
+		Long seed = null;
+
+		if ((flags & FLAG_SEED) != 0) {
+			if (cursor.remaining() < Long.BYTES) {
+				throw new EOFException("the grid is cut");
+			}
+
+			seed = cursor.buffer.getLong(cursor.position);
+			cursor.position += Long.BYTES;
+		}
+
+		int safeCell = (flags & FLAG_SAFE_CELL) != 0 ? readVarint(cursor) : -1;
+		int length = payloadLength(checkSize(rows, cols), flags);
+
+		if (cursor.remaining() < length) {
+			throw new EOFException("the grid is cut");
+		}
+
+		Board board = decodeBoard(rows, cols, flags, cursor.buffer, cursor.position);
+		cursor.position += length;
+
+		return new MinesweeperData(board, seed, checkSafeCell(board, safeCell), "");
+	}
+
+	/**
+	 * Reads a buffer from a position with absolute gets
+	 */
+	private static class Cursor implements ByteInput {
+		final ByteBuffer buffer;
+		int position;
+
+		Cursor(ByteBuffer buffer, int position) {
+			this.buffer = buffer;
+			this.position = position;
+		}
+
+		int remaining() {
+			return buffer.limit() - position;
+		}
+
+		@Override
+		public int read() {
+			return position < buffer.limit() ? buffer.get(position++) & 0xFF : -1;
+		}
+	}
+
+	/**
+	 * Checks the size read from a stream
+	 * @return rows * cols
+	 * @throws IOException when the size is not positive or rows * cols is not an int
+	 */
+	static int checkSize(int rows, int cols) throws IOException {
+		if (rows <= 0 || cols <= 0 || (long) rows * cols > Integer.MAX_VALUE) {
+			throw new IOException("invalid grid size: " + rows + "x" + cols);
+		}
+
+		return rows * cols;
+	}
+
+	/**
+	 * Checks the safe cell read from a stream
+	 * @param board
+	 * @param safeCell -1 when there is none
+	 * @return safeCell
+	 * @throws IOException when it is out of the board or it is a bomb
+	 */
+	static int checkSafeCell(Board board, int safeCell) throws IOException {
+		if (safeCell >= board.bound || (safeCell >= 0 && board.isBomb(safeCell))) {
+			throw new IOException("invalid safe cell: " + safeCell);
+		}
+
+		return safeCell;
+	}
+
+	/**
+	 * Length of the bombs and the counts
+	 * @param bound rows * cols, checked by checkSize
+	 */
+	static int payloadLength(int bound, int flags) {
+		return (int) ((bound + 7L) >>> 3) + ((flags & FLAG_COUNTS) != 0 ? (int) ((bound + 1L) >>> 1) : 0);
+	}
+
+	/**
+	 * Reads the bombs and the counts with absolute gets, the buffer should have payloadLength()
+	 * bytes from the offset
+	 */
+	static Board decodeBoard(int rows, int cols, int flags, ByteBuffer buffer, int offset) throws IOException {
+		int bound = rows * cols;
+		int bombs = offset;
+		int bombBytes = (int) ((bound + 7L) >>> 3);
+
+		if ((flags & FLAG_COUNTS) == 0) {
+			long[] bits = toBitRows(rows, cols, buffer, bombs, bombBytes);
+
+			return new Board(rows, cols, BitsetNeighbourCounter.countCells(rows, cols, bits));
+		}
+
+		int counts = bombs + bombBytes;
+		byte[] cells = new byte[bound];
+
+		for (int i = 0; i < bound; i++) {
+			boolean bomb = (buffer.get(bombs + (i >>> 3)) & (1 << (i & 7))) != 0;
+			int nibble = (buffer.get(counts + (i >>> 1)) >>> ((i & 1) << 2)) & 0xF;
+
+			if (bomb != (nibble == BOMB_NIBBLE) || (!bomb && nibble > 8)) {
+				throw new IOException("bombs and counts do not match at " + i);
+			}
+
+			cells[i] = bomb ? Minesweeper.INT_BOMB : (byte) nibble;
+		}
+
+		return new Board(rows, cols, cells);
+	}
+
+	/**
+	 * Converts the linear bomb bitmap to the row aligned bit rows of BitsetNeighbourCounter
+	 */
+	private static long[] toBitRows(int rows, int cols, ByteBuffer buffer, int from, int length) {
+		int wordsPerRow = BitsetNeighbourCounter.wordsPerRow(cols);
+		long[] bits = new long[rows * wordsPerRow];
+
+		for (int b = 0; b < length; b++) {
+			int octet = buffer.get(from + b) & 0xFF;
+
+			while (octet != 0) {
+				int bomb = (b << 3) + Integer.numberOfTrailingZeros(octet);
+				int row = bomb / cols;
+				int col = bomb - row * cols;
+				bits[row * wordsPerRow + (col >>> 6)] |= 1L << col;
+				octet &= octet - 1;
+			}
+		}
+
+		return bits;
+	}
+
+	/**
+	 * Reads a non-negative int varint
+	 * @param in
+	 * @return
+	 * @throws IOException when it is longer than an int, EOFException at the end of the input
+	 */
+	static int readVarint(ByteInput in) throws IOException {
+		int value = 0;
+
+		for (int shift = 0; shift < 35; shift += 7) {
+			int b = in.read();
+
+			if (b < 0) {
+				throw new EOFException();
+			}
+
+			// the fifth byte has the bits 28..30, more would not fit into a non-negative int
+			if (shift == 28 && (b & 0x7F) > 7) {
+				throw new IOException("too large varint");
+			}
+
+			value |= (b & 0x7F) << shift;
+
+			if ((b & 0x80) == 0) {
+				return value;
+			}
+		}
+
+		throw new IOException("malformed varint");
+	}
+
+	static void writeVarint(OutputStream out, int value) throws IOException {
+		while ((value & ~0x7F) != 0) {
+			out.write((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+
+		out.write(value);
+	}
+}
@@ -0,0 +1,85 @@
+package hu.bp.minesweeper.core;
+
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Reads grids written in the BinaryBoardFormat one by one. The stream header is read and checked
+ * by the constructor.
+ *
+ * The input is not buffered, wrap it into a BufferedInputStream when it is a file.
+ *
+ * JVM only, it is excluded from the GWT module.
+ */
+public class BinaryBoardReader implements Closeable {
+	private final DataInputStream in;
+
+	private byte[] payload = new byte[256];
+
+	public BinaryBoardReader(InputStream in) throws IOException {
+		this.in = new DataInputStream(in);
+
+		byte[] magic = new byte[BinaryBoardFormat.MAGIC.length];
+		this.in.readFully(magic);
+		for (int i = 0; i < magic.length; i++) {
+			if (magic[i] != BinaryBoardFormat.MAGIC[i]) {
+				throw new IOException("not a binary board stream");
+			}
+		}
+
+		int version = BinaryBoardFormat.readVarint(this.in::read);
+		if (version < BinaryBoardFormat.MIN_VERSION || version > BinaryBoardFormat.VERSION) {
+			throw new IOException("unsupported binary board format version: " + version);
+		}
+	}
+
+	/**
+	 * Reads the next grid
+	 * @return null at the end of the stream
+	 * @throws IOException
+	 */
+	public MinesweeperData read() throws IOException {
+		int flags = in.read();
+
+		if (flags < 0) {
+			return null;
+		}
+
+		if ((flags & ~BinaryBoardFormat.KNOWN_FLAGS) != 0) {
+			throw new IOException("unknown flags: " + flags);
+		}
+
+		int rows = BinaryBoardFormat.readVarint(in::read);
+		int cols = BinaryBoardFormat.readVarint(in::read);
+		Long seed = (flags & BinaryBoardFormat.FLAG_SEED) != 0 ? in.readLong() : null;
+		int safeCell = (flags & BinaryBoardFormat.FLAG_SAFE_CELL) != 0 ? BinaryBoardFormat.readVarint(in::read) : -1;
+
+		int length = BinaryBoardFormat.payloadLength(BinaryBoardFormat.checkSize(rows, cols), flags);
+		payload = read(payload, length);
+
+		Board board = BinaryBoardFormat.decodeBoard(rows, cols, flags, ByteBuffer.wrap(payload, 0, length), 0);
+
+		return new MinesweeperData(board, seed, BinaryBoardFormat.checkSafeCell(board, safeCell), "");
+	}
+
+	@Override
+	public void close() throws IOException {
+		in.close();
+	}
+
+	/**
+	 * Reads length bytes into the buffer, or into a bigger new one when it is too small
+	 */
+	private byte[] read(byte[] buffer, int length) throws IOException {
+		if (buffer.length < length) {
+			buffer = new byte[Math.max(length, buffer.length * 2)];
+		}
+
+		in.readFully(buffer, 0, length);
+
+		return buffer;
+	}
+}
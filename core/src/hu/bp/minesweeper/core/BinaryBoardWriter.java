@@ -0,0 +1,45 @@
+package hu.bp.minesweeper.core;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Writes grids in the BinaryBoardFormat. The stream header is written by the constructor.
+ *
+ * The output is not buffered, wrap it into a BufferedOutputStream when it is a file.
+ *
+ * JVM only, it is excluded from the GWT module.
+ */
+public class BinaryBoardWriter implements Closeable, Flushable {
+	private final OutputStream out;
+	private final boolean includeCounts;
+
+	/**
+	 * @param out
+	 * @param includeCounts true: the neighbourhood counts are written, so reading needs no computation
+	 *                      false: about 1/5 of the size, bound / 8 bytes per grid instead of 5 * bound / 8
+	 * @throws IOException
+	 */
+	public BinaryBoardWriter(OutputStream out, boolean includeCounts) throws IOException {
+		this.out = out;
+		this.includeCounts = includeCounts;
+
+		BinaryBoardFormat.writeHeader(out);
+	}
+
+	public void write(MinesweeperData data) throws IOException {
+		BinaryBoardFormat.encode(data, includeCounts, out);
+	}
+
+	@Override
+	public void flush() throws IOException {
+		out.flush();
+	}
+
+	@Override
+	public void close() throws IOException {
+		out.close();
+	}
+}
@@ -0,0 +1,197 @@
+package hu.bp.minesweeper.core;
+
+import java.util.Collection;
+
+/**
+ * Word-parallel neighbourhood counting.
+ *
+ * The bombs are stored as bit rows: every grid row is (cols + 63) / 64 longs, the bit i of the
+ * word w is the column w * 64 + i. For one row the eight neighbourhood bit vectors are
+ * - the row above: shifted west, not shifted, shifted east
+ * - the row itself: shifted west, shifted east
+ * - the row below: shifted west, not shifted, shifted east
+ *
+ * These are summed with a tree of bit-sliced full adders, so one pass computes the counts of
+ * 64 cells into four "bit plane" words (count = b0 + 2*b1 + 4*b2 + 8*b3).
+ *
+ * Cost is O(rows * cols / 64) word operations plus one byte store per cell, it does not depend
+ * on the number of bombs.
+ */
+public class BitsetNeighbourCounter {
+	private BitsetNeighbourCounter() {}
+
+	/**
+	 * Number of longs in one bit row
+	 * @param cols
+	 * @return
+	 */
+	public static int wordsPerRow(int cols) {
+		return (cols + 63) >>> 6;
+	}
+
+	/**
+	 * Creates the bit rows of the bombs
+	 * @param rows
+	 * @param cols
+	 * @param bombs linear coordinates of the bombs
+	 * @return
+	 */
+	public static long[] toBitRows(int rows, int cols, Collection<Integer> bombs) {
+		long[] bits = new long[rows * wordsPerRow(cols)];
+
+		for (int bomb : bombs) {
+			setBit(bits, cols, bomb);
+		}
+
+		return bits;
+	}
+
+	/**
+	 * Creates the bit rows of the bombs
+	 * @param rows
+	 * @param cols
+	 * @param bombs linear coordinates of the bombs
+	 * @return
+	 */
+	public static long[] toBitRows(int rows, int cols, int[] bombs) {
+		long[] bits = new long[rows * wordsPerRow(cols)];
+
+		for (int bomb : bombs) {
+			setBit(bits, cols, bomb);
+		}
+
+		return bits;
+	}
+
+	private static void setBit(long[] bits, int cols, int linearCoord) {
+		int row = linearCoord / cols;
+		int col = linearCoord - row * cols;
+		bits[row * wordsPerRow(cols) + (col >>> 6)] |= 1L << col;
+	}
+
+	/**
+	 * Computes the cell values (see Board) from the bit rows of the bombs
+	 * @param rows
+	 * @param cols
+	 * @param bits bit rows, see toBitRows
+	 * @return
+	 */
+	public static byte[] countCells(int rows, int cols, long[] bits) {
+		byte[] cells = new byte[rows * cols];
+		int wordsPerRow = wordsPerRow(cols);
+
+		for (int r = 0; r < rows; r++) {
+			int above = (r - 1) * wordsPerRow;
+			int current = r * wordsPerRow;
+			int below = (r + 1) * wordsPerRow;
+			boolean hasAbove = r > 0;
+			boolean hasBelow = r < rows - 1;
+
+			for (int w = 0; w < wordsPerRow; w++) {
+				long a = hasAbove ? bits[above + w] : 0L;
+				long m = bits[current + w];
+				long b = hasBelow ? bits[below + w] : 0L;
+
+				long aWest = west(bits, hasAbove, above, w, a);
+				long aEast = east(bits, hasAbove, above, w, wordsPerRow, a);
+				long mWest = west(bits, true, current, w, m);
+				long mEast = east(bits, true, current, w, wordsPerRow, m);
+				long bWest = west(bits, hasBelow, below, w, b);
+				long bEast = east(bits, hasBelow, below, w, wordsPerRow, b);
+
+				// weight 1 inputs: aWest, a, aEast, mWest, mEast, bWest, b, bEast
+				long s1 = aWest ^ a ^ aEast;
+				long c1 = (aWest & a) | (aEast & (aWest ^ a));
+				long s2 = mWest ^ mEast ^ bWest;
+				long c2 = (mWest & mEast) | (bWest & (mWest ^ mEast));
+				long s3 = b ^ bEast ^ s1;
+				long c3 = (b & bEast) | (s1 & (b ^ bEast));
+
+				long bit0 = s2 ^ s3;
+				long c4 = s2 & s3;
+
+				// weight 2 inputs: c1, c2, c3, c4
+				long s5 = c1 ^ c2 ^ c3;
+				long c5 = (c1 & c2) | (c3 & (c1 ^ c2));
+				long bit1 = s5 ^ c4;
+				long c6 = s5 & c4;
+
+				// weight 4 inputs: c5, c6
+				long bit2 = c5 ^ c6;
+				long bit3 = c5 & c6;
+
+				int firstCol = w << 6;
+				int lastCol = Math.min(cols, firstCol + 64);
+				int cell = r * cols + firstCol;
+
+				for (int col = firstCol; col < lastCol; col++, cell++) {
+					int i = col & 63;
+
+					if (((m >>> i) & 1L) != 0) {
+						cells[cell] = Minesweeper.INT_BOMB;
+					}
+					else {
+						cells[cell] = (byte) (((bit0 >>> i) & 1L)
+								| (((bit1 >>> i) & 1L) << 1)
+								| (((bit2 >>> i) & 1L) << 2)
+								| (((bit3 >>> i) & 1L) << 3));
+					}
+				}
+			}
+		}
+
+		return cells;
+	}
+
+	/**
+	 * Creates a board with the bombs and the computed counts
+	 * @param rows
+	 * @param cols
+	 * @param bombs linear coordinates of the bombs
+	 * @return
+	 */
+	public static Board createBoard(int rows, int cols, Collection<Integer> bombs) {
+		Object span = Tracing.beginNeighbourCounting();
+		Board board = new Board(rows, cols, countCells(rows, cols, toBitRows(rows, cols, bombs)));
+		Tracing.endNeighbourCounting(span, rows, cols, bombs.size());
+
+		return board;
+	}
+
+	/**
+	 * Creates a board with the bombs and the computed counts
+	 * @param rows
+	 * @param cols
+	 * @param bombs linear coordinates of the bombs
+	 * @return
+	 */
+	public static Board createBoard(int rows, int cols, int[] bombs) {
+		Object span = Tracing.beginNeighbourCounting();
+		Board board = new Board(rows, cols, countCells(rows, cols, toBitRows(rows, cols, bombs)));
+		Tracing.endNeighbourCounting(span, rows, cols, bombs.length);
+
+		return board;
+	}
+
+	/**
+	 * Bit i of the result is the bit of the west (col - 1) neighbour of column i
+	 */
+	private static long west(long[] bits, boolean rowExists, int rowStart, int w, long word) {
+		if (!rowExists) return 0L;
+
+		long carry = w > 0 ? bits[rowStart + w - 1] >>> 63 : 0L;
+
+		return (word << 1) | carry;
+	}
+
+	/**
+	 * Bit i of the result is the bit of the east (col + 1) neighbour of column i
+	 */
+	private static long east(long[] bits, boolean rowExists, int rowStart, int w, int wordsPerRow, long word) {
+		if (!rowExists) return 0L;
+
+		long carry = w < wordsPerRow - 1 ? bits[rowStart + w + 1] << 63 : 0L;
+
+		return (word >>> 1) | carry;
+	}
+}
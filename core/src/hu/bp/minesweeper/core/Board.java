@@ -0,0 +1,275 @@
+package hu.bp.minesweeper.core;
+
+import java.util.AbstractList;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Packed, immutable cell storage of a minesweeper grid.
+ *
+ * Every cell is one byte in a linear (rows after rows) array:
+ * - Minesweeper.INT_BOMB when the cell contains a bomb
+ * - otherwise the number of bombs in the neighbourhood (0..8)
+ *
+ * The linear coordinates of the bombs are kept in an ascending int array, so a board costs
+ * one byte per cell plus four bytes per bomb instead of a boxed List<Integer> and a
+ * Map<Integer, Long> entry for every interesting cell.
+ */
+public class Board {
+	/**
+	 * number of grid rows
+	 */
+	public final int rows;
+
+	/**
+	 * number of grid columns
+	 */
+	public final int cols;
+
+	/**
+	 * upper bound of linear coordinates , it is rows * cols
+	 */
+	public final int bound;
+
+	private final byte[] cells;
+
+	private final int[] bombs;
+
+	private final int numberOfNeighbourCells;
+
+	/**
+	 * The array is not copied, the caller must not modify it after this call.
+	 * @param rows
+	 * @param cols
+	 * @param cells
+	 */
+	Board(int rows, int cols, byte[] cells) {
+		this.rows = rows;
+		this.cols = cols;
+		this.bound = rows * cols;
+		this.cells = cells;
+
+		int numberOfBombs = 0;
+		int neighbourCells = 0;
+		for (int i = 0; i < bound; i++) {
+			if (cells[i] == Minesweeper.INT_BOMB) {
+				numberOfBombs++;
+			}
+			else if (cells[i] > 0) {
+				neighbourCells++;
+			}
+		}
+
+		this.bombs = new int[numberOfBombs];
+		for (int i = 0, b = 0; b < numberOfBombs; i++) {
+			if (cells[i] == Minesweeper.INT_BOMB) {
+				bombs[b++] = i;
+			}
+		}
+
+		this.numberOfNeighbourCells = neighbourCells;
+	}
+
+	/**
+	 * Creates a board from the bombs and the already computed neighbourhood counts
+	 * @param rows
+	 * @param cols
+	 * @param bombs linear coordinates of the bombs
+	 * @param bombsNeighboursWithCounts Map<LinearCoordinate, number of neighbourhood bombs>
+	 * @return
+	 */
+	public static Board fromCounts(int rows, int cols, Collection<Integer> bombs, Map<Integer, Long> bombsNeighboursWithCounts) {
+		byte[] cells = new byte[rows * cols];
+
+		bombsNeighboursWithCounts.forEach((linearCoord, count) -> cells[linearCoord] = count.byteValue());
+		bombs.forEach(linearCoord -> cells[linearCoord] = Minesweeper.INT_BOMB);
+
+		return new Board(rows, cols, cells);
+	}
+
+	/**
+	 * Creates a board from the cell values (see the class comment). The array is copied.
+	 * @param rows
+	 * @param cols
+	 * @param cells
+	 * @return
+	 */
+	public static Board fromCells(int rows, int cols, byte[] cells) {
+		if (cells.length != rows * cols) {
+			throw new IllegalArgumentException("cells.length should be " + rows * cols + " but it is " + cells.length);
+		}
+
+		return new Board(rows, cols, Arrays.copyOf(cells, cells.length));
+	}
+
+	/**
+	 * Value of the cell, Minesweeper.INT_BOMB or the number of neighbourhood bombs
+	 * @param linearCoord
+	 * @return
+	 */
+	public int get(int linearCoord) {
+		return cells[linearCoord];
+	}
+
+	public int get(int row, int col) {
+		return cells[row * cols + col];
+	}
+
+	public boolean isBomb(int linearCoord) {
+		return cells[linearCoord] == Minesweeper.INT_BOMB;
+	}
+
+	public int getNumberOfBombs() {
+		return bombs.length;
+	}
+
+	/**
+	 * Linear coordinate of the index-th bomb, bombs are in ascending order
+	 * @param index
+	 * @return
+	 */
+	public int getBomb(int index) {
+		return bombs[index];
+	}
+
+	/**
+	 * Number of cells which are not bombs but have at least one bomb in the neighbourhood
+	 * @return
+	 */
+	public int getNumberOfNeighbourCells() {
+		return numberOfNeighbourCells;
+	}
+
+	/**
+	 * Copies one row of cell values into dest
+	 * @param row
+	 * @param dest
+	 * @param offset
+	 */
+	public void copyRow(int row, byte[] dest, int offset) {
+		System.arraycopy(cells, row * cols, dest, offset, cols);
+	}
+
+	/**
+	 * Read-only List view of the bombs linear coordinates in ascending order.
+	 * contains() is O(1).
+	 * @return
+	 */
+	public List<Integer> bombsView() {
+		return new BombsView();
+	}
+
+	/**
+	 * Read-only Map<LinearCoordinate, number of neighbourhood bombs> view of the cells which
+	 * have non-zero value and not bombs. get() and containsKey() are O(1).
+	 * @return
+	 */
+	public Map<Integer, Long> neighbourCountsView() {
+		return new NeighbourCountsView();
+	}
+
+	private boolean isLinearCoord(Object o) {
+		if (!(o instanceof Integer)) return false;
+
+		int linearCoord = (Integer) o;
+
+		return linearCoord >= 0 && linearCoord < bound;
+	}
+
+	private class BombsView extends AbstractList<Integer> {
+		@Override
+		public Integer get(int index) {
+			return bombs[index];
+		}
+
+		@Override
+		public int size() {
+			return bombs.length;
+		}
+
+		@Override
+		public boolean contains(Object o) {
+			return isLinearCoord(o) && isBomb((Integer) o);
+		}
+
+		@Override
+		public int indexOf(Object o) {
+			return contains(o) ? Arrays.binarySearch(bombs, (Integer) o) : -1;
+		}
+
+		@Override
+		public int lastIndexOf(Object o) {
+			return indexOf(o);
+		}
+	}
+
+	private class NeighbourCountsView extends AbstractMap<Integer, Long> {
+		@Override
+		public boolean containsKey(Object key) {
+			return isLinearCoord(key) && cells[(Integer) key] > 0;
+		}
+
+		@Override
+		public Long get(Object key) {
+			return containsKey(key) ? Long.valueOf(cells[(Integer) key]) : null;
+		}
+
+		@Override
+		public int size() {
+			return numberOfNeighbourCells;
+		}
+
+		@Override
+		public Set<Entry<Integer, Long>> entrySet() {
+			return new AbstractSet<Entry<Integer, Long>>() {
+				@Override
+				public Iterator<Entry<Integer, Long>> iterator() {
+					return new NeighbourCountsIterator();
+				}
+
+				@Override
+				public int size() {
+					return numberOfNeighbourCells;
+				}
+			};
+		}
+	}
+
+	private class NeighbourCountsIterator implements Iterator<Map.Entry<Integer, Long>> {
+		private int next = advance(0);
+
+		private int advance(int from) {
+			while (from < bound && cells[from] <= 0) {
+				from++;
+			}
+
+			return from;
+		}
+
+		@Override
+		public boolean hasNext() {
+			return next < bound;
+		}
+
+		@Override
+		public Map.Entry<Integer, Long> next() {
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+
+			Map.Entry<Integer, Long> entry =
+					new AbstractMap.SimpleImmutableEntry<>(next, Long.valueOf(cells[next]));
+
+			next = advance(next + 1);
+
+			return entry;
+		}
+	}
+}
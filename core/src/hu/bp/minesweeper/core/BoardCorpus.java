@@ -0,0 +1,290 @@
+package hu.bp.minesweeper.core;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+/**
+ * A file of many grids with an offset index, read through memory mapping.
+ *
+ * File layout:
+ * - header (HEADER_SIZE bytes): MAGIC "MSWC", VERSION (int), number of grids (long),
+ *   offset of the index (long), segment size (long), all big endian
+ * - the grids in BinaryBoardFormat (without the stream header). Version 1 corpora have no
+ *   BinaryBoardFormat.FLAG_SAFE_CELL, they are still read.
+ * - the index: the file offset of every grid (long)
+ *
+ * The file is mapped in pieces of the segment size (SEGMENT_SIZE by default), the writer pads so
+ * that no grid crosses a segment border. The index is mapped in pieces of the segment size too, so
+ * the number of grids is not limited by the size of a mapping. get(index) is O(1): one index lookup
+ * and the grid is decoded directly from the mapped memory with absolute gets on shared read-only
+ * views, nothing is read into intermediate buffers.
+ *
+ * The writer keeps the offsets in a temporary file next to the corpus, and appends them at close().
+ *
+ * get() and stream() can be used from many threads, stream().parallel() or stream(from, to) on
+ * separate threads scan the corpus in shards.
+ *
+ * The mapping is released by the garbage collector after close(). JVM only, it is excluded from
+ * the GWT module.
+ */
+public class BoardCorpus implements Closeable {
+	public static final byte[] MAGIC = {'M', 'S', 'W', 'C'};
+
+	public static final int VERSION = 2;
+
+	static final int HEADER_SIZE = 32;
+
+	public static final long SEGMENT_SIZE = 1L << 30;
+
+	private final FileChannel channel;
+	private final long count;
+	private final long segmentSize;
+	private final ByteBuffer[] segments;
+	private final LongBuffer[] index;
+	private final int indexSegmentEntries;
+
+	private BoardCorpus(FileChannel channel) throws IOException {
+		this.channel = channel;
+
+		ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+		byte[] magic = new byte[MAGIC.length];
+		header.get(magic);
+
+		if (!Arrays.equals(MAGIC, magic)) {
+			throw new IOException("not a board corpus");
+		}
+
+		int version = header.getInt();
+		if (version < 1 || version > VERSION) {
+			throw new IOException("unsupported board corpus version: " + version);
+		}
+
+		this.count = header.getLong();
+		long indexOffset = header.getLong();
+		this.segmentSize = header.getLong();
+
+		if (segmentSize < Long.BYTES || segmentSize > Integer.MAX_VALUE) {
+			throw new IOException("invalid segment size: " + segmentSize);
+		}
+
+		if (count < 0 || indexOffset < HEADER_SIZE || indexOffset > channel.size()
+				|| count > (channel.size() - indexOffset) / Long.BYTES) {
+			throw new IOException("corrupt header: " + count + " grids, index at " + indexOffset);
+		}
+
+		this.indexSegmentEntries = (int) (segmentSize / Long.BYTES);
+		this.index = new LongBuffer[(int) ((count + indexSegmentEntries - 1) / indexSegmentEntries)];
+
+		for (int s = 0; s < index.length; s++) {
+			long entries = Math.min(indexSegmentEntries, count - (long) s * indexSegmentEntries);
+			index[s] = channel.map(FileChannel.MapMode.READ_ONLY, indexOffset + (long) s * indexSegmentEntries * Long.BYTES,
+					entries * Long.BYTES).asLongBuffer();
+		}
+
+		int numberOfSegments = (int) ((indexOffset + segmentSize - 1) / segmentSize);
+		this.segments = new ByteBuffer[numberOfSegments];
+
+		for (int s = 0; s < numberOfSegments; s++) {
+			long from = s * segmentSize;
+			segments[s] = channel.map(FileChannel.MapMode.READ_ONLY, from, Math.min(segmentSize, indexOffset - from))
+					.asReadOnlyBuffer();
+		}
+	}
+
+	public static BoardCorpus open(Path path) throws IOException {
+		FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+
+		try {
+			return new BoardCorpus(channel);
+		}
+		catch (IOException | RuntimeException e) {
+			channel.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Creates (or overwrites) a corpus file
+	 * @param path
+	 * @param includeCounts see BinaryBoardWriter
+	 * @return
+	 * @throws IOException
+	 */
+	public static Writer create(Path path, boolean includeCounts) throws IOException {
+		return new Writer(path, includeCounts, SEGMENT_SIZE);
+	}
+
+	static Writer create(Path path, boolean includeCounts, long segmentSize) throws IOException {
+		return new Writer(path, includeCounts, segmentSize);
+	}
+
+	/**
+	 * Number of grids
+	 * @return
+	 */
+	public long size() {
+		return count;
+	}
+
+	/**
+	 * File offset of the index-th grid
+	 * @param index
+	 * @return
+	 */
+	public long offset(long index) {
+		if (index < 0 || index >= count) {
+			throw new IndexOutOfBoundsException("index: " + index + ", size: " + count);
+		}
+
+		return this.index[(int) (index / indexSegmentEntries)].get((int) (index % indexSegmentEntries));
+	}
+
+	/**
+	 * Decodes the index-th grid
+	 * @param index
+	 * @return
+	 */
+	public MinesweeperData get(long index) {
+		long offset = offset(index);
+		int segment = (int) (offset / segmentSize);
+
+		try {
+			if (offset < HEADER_SIZE || segment >= segments.length) {
+				throw new IOException("offset out of the grids: " + offset);
+			}
+
+			return BinaryBoardFormat.decode(segments[segment], (int) (offset % segmentSize));
+		}
+		catch (IOException e) {
+			throw new IllegalStateException("corrupt grid " + index, e);
+		}
+	}
+
+	/**
+	 * All the grids in index order, it can be parallel
+	 * @return
+	 */
+	public Stream<MinesweeperData> stream() {
+		return stream(0, count);
+	}
+
+	/**
+	 * The grids from (inclusive) to (exclusive), for scanning one shard
+	 * @param from
+	 * @param to
+	 * @return
+	 */
+	public Stream<MinesweeperData> stream(long from, long to) {
+		return LongStream.range(from, to).mapToObj(this::get);
+	}
+
+	@Override
+	public void close() throws IOException {
+		channel.close();
+	}
+
+	/**
+	 * Appends grids to a new corpus file, the index is written by close()
+	 */
+	public static class Writer implements Closeable {
+		private final FileChannel channel;
+		private final OutputStream out;
+		private final boolean includeCounts;
+		private final long segmentSize;
+		private final ByteArrayOutputStream record = new ByteArrayOutputStream(256);
+
+		/**
+		 * the offsets of the grids, in a temporary file
+		 */
+		private final Path indexPath;
+		private final FileChannel indexChannel;
+		private final DataOutputStream offsets;
+
+		private long count;
+		private long position = HEADER_SIZE;
+
+		private Writer(Path path, boolean includeCounts, long segmentSize) throws IOException {
+			this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+					StandardOpenOption.TRUNCATE_EXISTING);
+			this.out = new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16);
+			this.includeCounts = includeCounts;
+			this.segmentSize = segmentSize;
+
+			Path absolute = path.toAbsolutePath();
+			this.indexPath = Files.createTempFile(absolute.getParent(), absolute.getFileName().toString(), ".index");
+			this.indexChannel = FileChannel.open(indexPath, StandardOpenOption.READ, StandardOpenOption.WRITE,
+					StandardOpenOption.DELETE_ON_CLOSE);
+			this.offsets = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(indexChannel), 1 << 16));
+
+			out.write(new byte[HEADER_SIZE]);
+		}
+
+		public void add(MinesweeperData data) throws IOException {
+			record.reset();
+			BinaryBoardFormat.encode(data, includeCounts, record);
+
+			int length = record.size();
+			if (length > segmentSize) {
+				throw new IOException("grid is too big: " + length + " bytes");
+			}
+
+			long segmentEnd = (position / segmentSize + 1) * segmentSize;
+			if (position + length > segmentEnd) {
+				pad(segmentEnd - position);
+			}
+
+			offsets.writeLong(position);
+			count++;
+			record.writeTo(out);
+			position += length;
+		}
+
+		@Override
+		public void close() throws IOException {
+			try {
+				out.flush();
+				offsets.flush();
+
+				long length = indexChannel.size();
+				for (long copied = 0; copied < length; ) {
+					copied += indexChannel.transferTo(copied, length - copied, channel);
+				}
+
+				ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+				header.put(MAGIC).putInt(VERSION).putLong(count).putLong(position).putLong(segmentSize);
+				header.flip();
+				channel.write(header, 0);
+			}
+			finally {
+				try {
+					indexChannel.close();
+				}
+				finally {
+					channel.close();
+				}
+			}
+		}
+
+		private void pad(long length) throws IOException {
+			for (long i = 0; i < length; i++) {
+				out.write(0);
+			}
+
+			position += length;
+		}
+	}
+}
@@ -0,0 +1,18 @@
+package hu.bp.minesweeper.core;
+
+/**
+ * A player of MinesweeperGame, for AutoplaySimulation.
+ *
+ * A bot may keep scratch buffers, every simulation thread gets its own bot, and it is asked for
+ * the moves of many games one after the other.
+ */
+public interface Bot {
+	/**
+	 * Chooses the next cell to reveal. The bot may flag cells with game.toggleFlag() before.
+	 * It should look only at the states of the cells and at the values of the revealed ones.
+	 * @param game the game is not over
+	 * @param random the random generator of the game
+	 * @return a hidden (not flagged) cell
+	 */
+	int nextMove(MinesweeperGame game, SplitRandom random);
+}
@@ -0,0 +1,109 @@
+package hu.bp.minesweeper.core;
+
+/**
+ * Simple bots for AutoplaySimulation
+ */
+public class Bots {
+	private Bots() {}
+
+	/**
+	 * Reveals a random hidden cell
+	 * @return
+	 */
+	public static Bot random() {
+		return Bots::randomHidden;
+	}
+
+	/**
+	 * Deduction from one revealed number at a time: when a number has as many flags around it as its
+	 * value, its other hidden neighbours are safe; when it has as many hidden and flagged neighbours
+	 * as its value, they are all bombs and they are flagged. When nothing can be deduced, it guesses
+	 * a random hidden cell.
+	 * @return a new bot, it has a scratch buffer, so it should not be shared between threads
+	 */
+	public static Bot singleCell() {
+		return new SingleCellBot();
+	}
+
+	/**
+	 * The index-th hidden cell in linear order, with a uniform random index
+	 */
+	static int randomHidden(MinesweeperGame game, SplitRandom random) {
+		int hidden = 0;
+
+		for (int i = 0; i < game.board.bound; i++) {
+			if (game.getState(i) == FloodReveal.HIDDEN) {
+				hidden++;
+			}
+		}
+
+		int index = random.nextInt(hidden);
+
+		for (int i = 0; ; i++) {
+			if (game.getState(i) == FloodReveal.HIDDEN && index-- == 0) {
+				return i;
+			}
+		}
+	}
+
+	private static class SingleCellBot implements Bot {
+		private final int[] neighbours = new int[8];
+
+		@Override
+		public int nextMove(MinesweeperGame game, SplitRandom random) {
+			Geometry geometry = Geometry.of(game.board.rows, game.board.cols);
+			boolean flagged = true;
+
+			while (flagged) {
+				flagged = false;
+
+				for (int cell = 0; cell < game.board.bound; cell++) {
+					int value = game.getState(cell) == FloodReveal.REVEALED ? game.board.get(cell) : 0;
+
+					if (value <= 0) {
+						continue;
+					}
+
+					int count = geometry.neighbours(cell, neighbours);
+					int hidden = 0;
+					int flags = 0;
+					int firstHidden = -1;
+
+					for (int k = 0; k < count; k++) {
+						byte state = game.getState(neighbours[k]);
+
+						if (state == FloodReveal.HIDDEN) {
+							hidden++;
+							if (firstHidden < 0) {
+								firstHidden = neighbours[k];
+							}
+						}
+						else if (state == FloodReveal.FLAGGED) {
+							flags++;
+						}
+					}
+
+					if (hidden == 0) {
+						continue;
+					}
+
+					if (flags == value) {
+						return firstHidden;
+					}
+
+					if (hidden + flags == value) {
+						for (int k = 0; k < count; k++) {
+							if (game.getState(neighbours[k]) == FloodReveal.HIDDEN) {
+								game.toggleFlag(neighbours[k]);
+							}
+						}
+
+						flagged = true;
+					}
+				}
+			}
+
+			return randomHidden(game, random);
+		}
+	}
+}
@@ -0,0 +1,318 @@
+package hu.bp.minesweeper.core;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * MinesweeperGame for many players (or bots) revealing on the same board at the same time, without locks.
+ *
+ * The state of a cell (FloodReveal.HIDDEN, REVEALED, FLAGGED) is 2 bits, 16 cells are packed in an
+ * int of an AtomicIntegerArray. Every state change is a compare-and-set of the cell's word, so a cell
+ * is revealed (and counted) by exactly one thread, even when flood fills of several threads overlap.
+ * Every thread runs its own scanline flood fill (the one of FloodReveal), the thread which reveals a
+ * zero scans its neighbourhood. A run of zeros grows from its seed only through zeros revealed by
+ * the thread itself, so a zero flagged by another thread meanwhile stops the flood like in the
+ * sequential game.
+ *
+ * The status, the exploded bomb and the number of hidden safe cells are in one AtomicLong, every
+ * reveal() changes it with one compare-and-set, which is its linearization point: the game is won by
+ * the reveal which takes the counter to zero while the status is PLAYING, and lost by the first
+ * bomb revealed while the status is PLAYING, whichever comes first in the order of that word.
+ * Reveals started before the end of the game can still open cells after it, they do not change the result.
+ *
+ * The flood fill stack is thread local. JVM only, it is excluded from the GWT module.
+ */
+public class ConcurrentMinesweeperGame {
+	private static final int CELL_BITS = 2;
+	private static final int CELLS_PER_WORD_BITS = 4;
+	private static final int CELL_MASK = 3;
+
+	private static final int COUNT_BITS = 31;
+	private static final long COUNT_MASK = (1L << COUNT_BITS) - 1;
+	private static final int EXPLODED_SHIFT = COUNT_BITS;
+	private static final int STATUS_SHIFT = 62;
+
+	private static final MinesweeperGame.Status[] STATUSES = MinesweeperGame.Status.values();
+
+	public final Board board;
+
+	private final AtomicIntegerArray cells;
+
+	/**
+	 * status (2 bits) | exploded cell + 1 (31 bits) | hidden safe cells (31 bits)
+	 */
+	private final AtomicLong game;
+
+	private final AtomicInteger flags = new AtomicInteger();
+
+	private final ThreadLocal<Fill> fills = ThreadLocal.withInitial(Fill::new);
+
+	public ConcurrentMinesweeperGame(Board board) {
+		this.board = board;
+		this.cells = new AtomicIntegerArray((board.bound + (1 << CELLS_PER_WORD_BITS) - 1) >>> CELLS_PER_WORD_BITS);
+
+		int hiddenSafeCells = board.bound - board.getNumberOfBombs();
+		MinesweeperGame.Status status = hiddenSafeCells == 0 ? MinesweeperGame.Status.WON : MinesweeperGame.Status.PLAYING;
+		this.game = new AtomicLong(((long) status.ordinal() << STATUS_SHIFT) | hiddenSafeCells);
+	}
+
+	public byte getState(int linearCoord) {
+		return (byte) ((cells.get(linearCoord >>> CELLS_PER_WORD_BITS) >>> shift(linearCoord)) & CELL_MASK);
+	}
+
+	public MinesweeperGame.Status getStatus() {
+		return status(game.get());
+	}
+
+	public boolean isOver() {
+		return getStatus() != MinesweeperGame.Status.PLAYING;
+	}
+
+	/**
+	 * The bomb which ended the game, -1 when the game is not lost
+	 * @return
+	 */
+	public int getExplodedCell() {
+		return (int) ((game.get() >>> EXPLODED_SHIFT) & COUNT_MASK) - 1;
+	}
+
+	public int getHiddenSafeCells() {
+		return (int) (game.get() & COUNT_MASK);
+	}
+
+	public int getFlags() {
+		return flags.get();
+	}
+
+	/**
+	 * Reveals a hidden cell, a zero reveals its region like in the original game
+	 * @param linearCoord
+	 * @return number of cells revealed by this call, 0 when the game is over or the cell is not hidden
+	 */
+	public int reveal(int linearCoord) {
+		if (isOver() || getState(linearCoord) != FloodReveal.HIDDEN) {
+			return 0;
+		}
+
+		if (board.isBomb(linearCoord)) {
+			if (!compareAndSetState(linearCoord, FloodReveal.HIDDEN, FloodReveal.REVEALED)) {
+				return 0;
+			}
+
+			explode(linearCoord);
+
+			return 1;
+		}
+
+		int revealed = board.get(linearCoord) != 0
+				? (compareAndSetState(linearCoord, FloodReveal.HIDDEN, FloodReveal.REVEALED) ? 1 : 0)
+				: fills.get().fill(linearCoord);
+
+		if (revealed > 0) {
+			countRevealed(revealed);
+		}
+
+		return revealed;
+	}
+
+	/**
+	 * Flags a hidden cell or removes the flag
+	 * @param linearCoord
+	 * @return true when this call changed the state of the cell
+	 */
+	public boolean toggleFlag(int linearCoord) {
+		while (!isOver()) {
+			byte state = getState(linearCoord);
+
+			if (state == FloodReveal.HIDDEN) {
+				if (compareAndSetState(linearCoord, FloodReveal.HIDDEN, FloodReveal.FLAGGED)) {
+					flags.incrementAndGet();
+					return true;
+				}
+			}
+			else if (state == FloodReveal.FLAGGED) {
+				if (compareAndSetState(linearCoord, FloodReveal.FLAGGED, FloodReveal.HIDDEN)) {
+					flags.decrementAndGet();
+					return true;
+				}
+			}
+			else {
+				return false;
+			}
+		}
+
+		return false;
+	}
+
+	private static int shift(int linearCoord) {
+		return (linearCoord & ((1 << CELLS_PER_WORD_BITS) - 1)) * CELL_BITS;
+	}
+
+	private static MinesweeperGame.Status status(long game) {
+		return STATUSES[(int) (game >>> STATUS_SHIFT)];
+	}
+
+	/**
+	 * @return true when this thread changed the state of the cell from expected
+	 */
+	private boolean compareAndSetState(int linearCoord, byte expected, byte state) {
+		int word = linearCoord >>> CELLS_PER_WORD_BITS;
+		int shift = shift(linearCoord);
+
+		while (true) {
+			int current = cells.get(word);
+
+			if (((current >>> shift) & CELL_MASK) != expected) {
+				return false;
+			}
+
+			int next = (current & ~(CELL_MASK << shift)) | (state << shift);
+
+			if (cells.compareAndSet(word, current, next)) {
+				return true;
+			}
+		}
+	}
+
+	private void countRevealed(int revealed) {
+		while (true) {
+			long current = game.get();
+			long hiddenSafeCells = (current & COUNT_MASK) - revealed;
+			long next = (current & ~COUNT_MASK) | hiddenSafeCells;
+
+			if (hiddenSafeCells == 0 && status(current) == MinesweeperGame.Status.PLAYING) {
+				next = (next & ~(3L << STATUS_SHIFT)) | ((long) MinesweeperGame.Status.WON.ordinal() << STATUS_SHIFT);
+			}
+
+			if (game.compareAndSet(current, next)) {
+				return;
+			}
+		}
+	}
+
+	private void explode(int linearCoord) {
+		while (true) {
+			long current = game.get();
+
+			if (status(current) != MinesweeperGame.Status.PLAYING) {
+				return;
+			}
+
+			long next = ((long) MinesweeperGame.Status.LOST.ordinal() << STATUS_SHIFT)
+					| ((linearCoord + 1L) << EXPLODED_SHIFT)
+					| (current & COUNT_MASK);
+
+			if (game.compareAndSet(current, next)) {
+				return;
+			}
+		}
+	}
+
+	/**
+	 * The scanline flood fill of FloodReveal, cells are claimed with compare-and-set. Every hidden
+	 * zero next to a run is a seed (not only the first of a run of them), because the zeros between
+	 * them may be flagged before the seed is taken.
+	 */
+	private class Fill {
+		private int[] stack = new int[64];
+		private int stackSize;
+		private int revealed;
+
+		int fill(int linearCoord) {
+			int rows = board.rows;
+			int cols = board.cols;
+
+			revealed = 0;
+			stackSize = 0;
+			push(linearCoord);
+
+			while (stackSize > 0) {
+				int seed = stack[--stackSize];
+
+				// revealed by an other thread, or flagged
+				if (!claim(seed)) continue;
+
+				int row = seed / cols;
+				int rowStart = row * cols;
+				int rowEnd = rowStart + cols - 1;
+
+				int left = seed;
+				while (left > rowStart && board.get(left - 1) == 0 && claim(left - 1)) left--;
+
+				int right = seed;
+				while (right < rowEnd && board.get(right + 1) == 0 && claim(right + 1)) right++;
+
+				int from = left > rowStart ? left - 1 : left;
+				int to = right < rowEnd ? right + 1 : right;
+
+				if (from < left) {
+					border(from);
+				}
+
+				if (to > right) {
+					border(to);
+				}
+
+				if (row > 0) {
+					scanRow(from - cols, to - cols);
+				}
+
+				if (row < rows - 1) {
+					scanRow(from + cols, to + cols);
+				}
+			}
+
+			return revealed;
+		}
+
+		/**
+		 * The cell next to the end of a run
+		 */
+		private void border(int linearCoord) {
+			if (board.get(linearCoord) == 0) {
+				// a zero which was not hidden, when it is hidden again (unflagged) it is a seed
+				push(linearCoord);
+			}
+			else {
+				claim(linearCoord);
+			}
+		}
+
+		private void scanRow(int from, int to) {
+			for (int i = from; i <= to; i++) {
+				if (getState(i) != FloodReveal.HIDDEN) {
+					continue;
+				}
+
+				if (board.get(i) == 0) {
+					push(i);
+				}
+				else {
+					claim(i);
+				}
+			}
+		}
+
+		/**
+		 * @return true when this thread revealed the cell
+		 */
+		private boolean claim(int linearCoord) {
+			if (compareAndSetState(linearCoord, FloodReveal.HIDDEN, FloodReveal.REVEALED)) {
+				revealed++;
+				return true;
+			}
+
+			return false;
+		}
+
+		private void push(int linearCoord) {
+			if (stackSize == stack.length) {
+				stack = Arrays.copyOf(stack, stack.length * 2);
+			}
+
+			stack[stackSize++] = linearCoord;
+		}
+	}
+}
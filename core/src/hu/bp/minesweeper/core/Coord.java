@@ -1,9 +1,7 @@
 package hu.bp.minesweeper.core;
 
-import java.util.Arrays;
 import java.util.List;
 import java.util.Objects;
-import java.util.stream.Collectors;
 
 public class Coord {
 	/**
@@ -36,16 +34,6 @@ public class Coord {
 	 */
 	public final List<Integer> neighbours;
 
-	/**
-	 * Coordinates of a 3x3 matrix without the center cell relative to the center cell
-	 */
-	private final static List<Pair> relativeCoordinatesOfNeighbourhood = Arrays.asList(
-			new Pair[]{
-				new Pair(-1, -1), new Pair(-1, 0), new Pair(-1, 1),
-				new Pair(0, -1),                   new Pair(0, 1),
-				new Pair(1, -1),  new Pair(1, 0),  new Pair(1, 1),
-			});
-
 	private Coord(int rows, int cols, int row, int col, int linearCoord, List<Integer> neighbours) {
 		this.rows = rows;
 		this.cols = cols;
@@ -58,17 +46,28 @@ public class Coord {
 
 	/**
 	 * Create a coordinate based on the number of rows, number of columns and
-	 * the linear coordinate
+	 * the linear coordinate. The neighbours are a view of the shared Geometry of the grid.
+	 * It looks up the geometry, in a loop over the cells use createCoord(Geometry, int).
 	 * @param rows
 	 * @param cols
 	 * @param linearCoord
 	 * @return
 	 */
 	public static Coord createCoord(int rows, int cols, int linearCoord) {
-		int row = linearCoord / cols;
-		int col = linearCoord - row * cols;
+		return createCoord(Geometry.of(rows, cols), linearCoord);
+	}
+
+	/**
+	 * Same as createCoord(rows, cols, linearCoord) without the geometry cache lookup
+	 * @param geometry
+	 * @param linearCoord
+	 * @return
+	 */
+	public static Coord createCoord(Geometry geometry, int linearCoord) {
+		int row = linearCoord / geometry.cols;
+		int col = linearCoord - row * geometry.cols;
 
-		return new Coord(rows, cols, row, col, linearCoord, getNeighbours(rows, cols, row, col));
+		return new Coord(geometry.rows, geometry.cols, row, col, linearCoord, geometry.neighbourList(linearCoord));
 	}
 
 	/**
@@ -92,11 +91,7 @@ public class Coord {
 	 * @return
 	 */
 	public static List<Integer> getNeighbours(int rows, int cols, int row, int col) {
-		return relativeCoordinatesOfNeighbourhood.stream().
-				map(pair -> new Pair(row + pair.key, col + pair.value)).
-				filter(pair -> Coord.valid(rows, cols, pair)).
-				map(pair -> convertRowColToSerial(cols, pair.key, pair.value)).
-				collect(Collectors.toList());
+		return Geometry.of(rows, cols).neighbourList(convertRowColToSerial(cols, row, col));
 	}
 
 	/**
@@ -104,7 +99,7 @@ public class Coord {
 	 * @return
 	 */
 	public static boolean valid(int rows, int cols, Pair coord) {
-		return coord.key >= 0 && coord.value < rows && coord.value >= 0 && coord.value < cols;
+		return coord.key >= 0 && coord.key < rows && coord.value >= 0 && coord.value < cols;
 	}
 
 
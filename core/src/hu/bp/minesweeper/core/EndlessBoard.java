@@ -0,0 +1,200 @@
+package hu.bp.minesweeper.core;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Endless minesweeper grid, generated lazily in TILE_SIZE x TILE_SIZE tiles.
+ *
+ * The bombs of a tile depend only on the seed and the tile coordinates, so any tile can be
+ * (re)generated any time, in any order. When the numbers of a tile are computed, the bombs of
+ * the eight neighbouring tiles are generated too (only their bombs, not their numbers), so the
+ * numbers are consistent across the tile borders.
+ *
+ * The generated tiles are kept in an LRU cache of maxResidentTiles tiles, so the memory used does
+ * not depend on how far the player goes. Evicted tiles are simply generated again.
+ * The bombs are kept in a second LRU cache of 4 * maxResidentTiles + 9 tiles (a bit row tile is 512
+ * bytes, an eighth of a tile of numbers), so a new tile next to the resident ones samples only the
+ * bombs of its new neighbours, e.g. three tiles when scrolling.
+ *
+ * Coordinates can be negative. Not thread-safe.
+ */
+public class EndlessBoard {
+	public static final int TILE_BITS = 6;
+
+	/**
+	 * Number of rows and columns of a tile. It is 64, so a row of a tile is one long.
+	 */
+	public static final int TILE_SIZE = 1 << TILE_BITS;
+
+	private static final int TILE_MASK = TILE_SIZE - 1;
+
+	/**
+	 * The tile is computed with a one cell wide border of the neighbouring tiles
+	 */
+	private static final int HALO_SIZE = TILE_SIZE + 2;
+
+	public final long seed;
+
+	public final int minesPerTile;
+
+	public final int maxResidentTiles;
+
+	private final Map<Long, Board> tiles;
+	private final Map<Long, long[]> bombTiles;
+
+	private long lastKey;
+	private Board lastTile;
+
+	/**
+	 * @param seed
+	 * @param minesPerTile number of bombs in every tile (TILE_SIZE * TILE_SIZE * density)
+	 * @param maxResidentTiles how many tiles are kept in memory
+	 */
+	public EndlessBoard(long seed, int minesPerTile, int maxResidentTiles) {
+		if (minesPerTile < 0 || minesPerTile > TILE_SIZE * TILE_SIZE) {
+			throw new IllegalArgumentException("minesPerTile should be between 0 and " + TILE_SIZE * TILE_SIZE + ": " + minesPerTile);
+		}
+		if (maxResidentTiles < 1) {
+			throw new IllegalArgumentException("maxResidentTiles should be positive: " + maxResidentTiles);
+		}
+
+		this.seed = seed;
+		this.minesPerTile = minesPerTile;
+		this.maxResidentTiles = maxResidentTiles;
+		this.tiles = new LinkedHashMap<Long, Board>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Long, Board> eldest) {
+				return size() > EndlessBoard.this.maxResidentTiles;
+			}
+		};
+
+		int maxBombTiles = 4 * maxResidentTiles + 9;
+		this.bombTiles = new LinkedHashMap<Long, long[]>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Long, long[]> eldest) {
+				return size() > maxBombTiles;
+			}
+		};
+	}
+
+	/**
+	 * Value of the cell, Minesweeper.INT_BOMB or the number of neighbourhood bombs
+	 * @param row
+	 * @param col
+	 * @return
+	 */
+	public int get(int row, int col) {
+		return getTile(row >> TILE_BITS, col >> TILE_BITS).get(row & TILE_MASK, col & TILE_MASK);
+	}
+
+	public boolean isBomb(int row, int col) {
+		return get(row, col) == Minesweeper.INT_BOMB;
+	}
+
+	/**
+	 * The tile with its numbers. The cell (row, col) is in the tile (row >> TILE_BITS, col >> TILE_BITS).
+	 * @param tileRow
+	 * @param tileCol
+	 * @return
+	 */
+	public Board getTile(int tileRow, int tileCol) {
+		long key = tileKey(tileRow, tileCol);
+
+		if (lastTile != null && lastKey == key) {
+			return lastTile;
+		}
+
+		Board tile = tiles.get(key);
+
+		if (tile == null) {
+			tile = createTile(tileRow, tileCol);
+			tiles.put(key, tile);
+		}
+
+		lastKey = key;
+		lastTile = tile;
+
+		return tile;
+	}
+
+	/**
+	 * Number of tiles in memory
+	 * @return
+	 */
+	public int getResidentTiles() {
+		return tiles.size();
+	}
+
+	/**
+	 * Number of tiles whose bombs are in memory
+	 * @return
+	 */
+	public int getResidentBombTiles() {
+		return bombTiles.size();
+	}
+
+	/**
+	 * Bombs of the tile as bit rows, bit i of the r-th long is the cell (r, i) of the tile.
+	 * They are sampled again at every call, the result can be modified.
+	 * @param tileRow
+	 * @param tileCol
+	 * @return
+	 */
+	public long[] getTileBombs(int tileRow, int tileCol) {
+		SplitRandom random = new SplitRandom(SplitRandom.splitSeed(seed, tileKey(tileRow, tileCol)));
+
+		return BitsetNeighbourCounter.toBitRows(TILE_SIZE, TILE_SIZE,
+				MineSampler.sample(TILE_SIZE * TILE_SIZE, minesPerTile, random));
+	}
+
+	private long[] getCachedTileBombs(int tileRow, int tileCol) {
+		long key = tileKey(tileRow, tileCol);
+		long[] bombs = bombTiles.get(key);
+
+		if (bombs == null) {
+			bombs = getTileBombs(tileRow, tileCol);
+			bombTiles.put(key, bombs);
+		}
+
+		return bombs;
+	}
+
+	private static long tileKey(int tileRow, int tileCol) {
+		return ((long) tileRow << 32) | (tileCol & 0xffffffffL);
+	}
+
+	private Board createTile(int tileRow, int tileCol) {
+		long[][] bombs = new long[9][];
+
+		for (int dr = -1; dr <= 1; dr++) {
+			for (int dc = -1; dc <= 1; dc++) {
+				bombs[(dr + 1) * 3 + dc + 1] = getCachedTileBombs(tileRow + dr, tileCol + dc);
+			}
+		}
+
+		// HALO_SIZE = 66 columns are two words per row: the west border cell, the 64 cells, the east border cell
+		long[] halo = new long[HALO_SIZE * 2];
+
+		for (int r = 0; r < HALO_SIZE; r++) {
+			int tileRowOffset = r == 0 ? 0 : r == HALO_SIZE - 1 ? 2 : 1;
+			int localRow = (r - 1) & TILE_MASK;
+
+			long west = bombs[tileRowOffset * 3][localRow];
+			long center = bombs[tileRowOffset * 3 + 1][localRow];
+			long east = bombs[tileRowOffset * 3 + 2][localRow];
+
+			halo[r * 2] = (west >>> 63) | (center << 1);
+			halo[r * 2 + 1] = (center >>> 63) | ((east & 1L) << 1);
+		}
+
+		byte[] haloCells = BitsetNeighbourCounter.countCells(HALO_SIZE, HALO_SIZE, halo);
+		byte[] cells = new byte[TILE_SIZE * TILE_SIZE];
+
+		for (int r = 0; r < TILE_SIZE; r++) {
+			System.arraycopy(haloCells, (r + 1) * HALO_SIZE + 1, cells, r * TILE_SIZE, TILE_SIZE);
+		}
+
+		return new Board(TILE_SIZE, TILE_SIZE, cells);
+	}
+}
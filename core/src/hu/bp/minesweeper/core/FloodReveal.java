@@ -0,0 +1,206 @@
+package hu.bp.minesweeper.core;
+
+import java.util.Arrays;
+
+/**
+ * Reveals cells on a Board. When a cell without bombs in its neighbourhood (a zero) is revealed,
+ * all of its neighbours are revealed too, and so on, like in the original game.
+ *
+ * The cascade is an iterative scanline flood fill: a zero cell is extended to the whole run of
+ * hidden zeros in its row, the run and its two ends are revealed, then the row above and the row
+ * below are scanned: numbers are revealed, the first cell of every run of hidden zeros is pushed
+ * to an int stack. There is no recursion, so it works on million-cell boards, and the stack and
+ * the result buffer are reused, so it does not allocate after they have grown.
+ *
+ * The cell states are in a byte array (HIDDEN, REVEALED, FLAGGED), flagged cells are never revealed.
+ *
+ * The newly revealed cells of the last reveal() are given as runs: (start, length) pairs of
+ * consecutive linear coordinates, always inside one row. The runs are not ordered.
+ */
+public class FloodReveal {
+	public static final byte HIDDEN = 0;
+	public static final byte REVEALED = 1;
+	public static final byte FLAGGED = 2;
+
+	private final Board board;
+	private final byte[] state;
+	private final int rows;
+	private final int cols;
+
+	private int[] stack = new int[64];
+	private int stackSize;
+
+	private int[] runs = new int[64];
+	private int runCount;
+	private int revealedCount;
+
+	/**
+	 * @param board
+	 * @param state cell states, Board.bound elements, it is modified by reveal()
+	 */
+	public FloodReveal(Board board, byte[] state) {
+		if (state.length != board.bound) {
+			throw new IllegalArgumentException("state.length should be " + board.bound + " but it is " + state.length);
+		}
+
+		this.board = board;
+		this.state = state;
+		this.rows = board.rows;
+		this.cols = board.cols;
+	}
+
+	/**
+	 * All the cells are hidden
+	 * @param board
+	 */
+	public FloodReveal(Board board) {
+		this(board, new byte[board.bound]);
+	}
+
+	public byte getState(int linearCoord) {
+		return state[linearCoord];
+	}
+
+	/**
+	 * Reveals the cell, and when it is a zero, the connected zeros and their neighbourhood
+	 * @param linearCoord
+	 * @return number of newly revealed cells, 0 when the cell is not hidden
+	 */
+	public int reveal(int linearCoord) {
+		runCount = 0;
+		revealedCount = 0;
+
+		if (state[linearCoord] != HIDDEN) {
+			return 0;
+		}
+
+		if (board.get(linearCoord) != 0) {
+			revealCell(linearCoord);
+
+			return revealedCount;
+		}
+
+		stackSize = 0;
+		push(linearCoord);
+
+		while (stackSize > 0) {
+			int seed = stack[--stackSize];
+
+			if (state[seed] != HIDDEN) continue;
+
+			int row = seed / cols;
+			int rowStart = row * cols;
+			int rowEnd = rowStart + cols - 1;
+
+			int left = seed;
+			while (left > rowStart && isHiddenZero(left - 1)) left--;
+
+			int right = seed;
+			while (right < rowEnd && isHiddenZero(right + 1)) right++;
+
+			int from = left > rowStart ? left - 1 : left;
+			int to = right < rowEnd ? right + 1 : right;
+
+			for (int i = from; i <= to; i++) {
+				if (state[i] == HIDDEN) {
+					revealCell(i);
+				}
+			}
+
+			if (row > 0) {
+				scanRow(from - cols, to - cols);
+			}
+
+			if (row < rows - 1) {
+				scanRow(from + cols, to + cols);
+			}
+		}
+
+		return revealedCount;
+	}
+
+	/**
+	 * Number of cells revealed by the last reveal()
+	 * @return
+	 */
+	public int getRevealedCount() {
+		return revealedCount;
+	}
+
+	/**
+	 * Number of runs of newly revealed cells of the last reveal()
+	 * @return
+	 */
+	public int getRunCount() {
+		return runCount;
+	}
+
+	/**
+	 * Linear coordinate of the first cell of the index-th run
+	 * @param index
+	 * @return
+	 */
+	public int getRunStart(int index) {
+		return runs[index * 2];
+	}
+
+	public int getRunLength(int index) {
+		return runs[index * 2 + 1];
+	}
+
+	private boolean isHiddenZero(int linearCoord) {
+		return state[linearCoord] == HIDDEN && board.get(linearCoord) == 0;
+	}
+
+	/**
+	 * Every cell between from and to (inclusive, same row) is a neighbour of a revealed zero
+	 */
+	private void scanRow(int from, int to) {
+		boolean inZeroRun = false;
+
+		for (int i = from; i <= to; i++) {
+			if (state[i] != HIDDEN) {
+				inZeroRun = false;
+			}
+			else if (board.get(i) == 0) {
+				if (!inZeroRun) {
+					push(i);
+				}
+				inZeroRun = true;
+			}
+			else {
+				revealCell(i);
+				inZeroRun = false;
+			}
+		}
+	}
+
+	private void revealCell(int linearCoord) {
+		state[linearCoord] = REVEALED;
+		revealedCount++;
+
+		int last = (runCount - 1) * 2;
+
+		if (runCount > 0 && runs[last] + runs[last + 1] == linearCoord && linearCoord % cols != 0) {
+			runs[last + 1]++;
+
+			return;
+		}
+
+		if (runCount * 2 == runs.length) {
+			runs = Arrays.copyOf(runs, runs.length * 2);
+		}
+
+		runs[runCount * 2] = linearCoord;
+		runs[runCount * 2 + 1] = 1;
+		runCount++;
+	}
+
+	private void push(int linearCoord) {
+		if (stackSize == stack.length) {
+			stack = Arrays.copyOf(stack, stack.length * 2);
+		}
+
+		stack[stackSize++] = linearCoord;
+	}
+}
@@ -0,0 +1,270 @@
+package hu.bp.minesweeper.core;
+
+import java.util.AbstractList;
+import java.util.List;
+
+/**
+ * Neighbourhood tables of a rows x cols grid. It is a flyweight: use Geometry.of(rows, cols) and
+ * boards of the same size share one instance while it is cached.
+ *
+ * Interior cells (not in the first/last row or column) always have the same eight neighbours, so
+ * they are resolved with fixed linear offsets:
+ *   -cols-1 -cols -cols+1
+ *   -1              +1
+ *   +cols-1 +cols +cols+1
+ *
+ * Only the border cells have precomputed neighbour lists, in CSR style: the neighbours of the
+ * border cell with index b are adjacency[start[b]] .. adjacency[start[b + 1] - 1].
+ * So the tables are O(rows + cols) and nothing is allocated when neighbours are queried.
+ *
+ * Neighbours are always given in ascending linear coordinate order.
+ *
+ * of() caches a fixed LRU of CACHE_SIZE sizes, not weak references: GWT has no
+ * java.lang.ref. A geometry evicted while a board still uses it stays valid, the next of() of that
+ * size only builds another instance. So keep the geometry of a grid (or use
+ * Coord.createCoord(Geometry, int)) instead of calling of() per cell.
+ */
+public final class Geometry {
+	/**
+	 * Number of geometries kept in the cache, the least recently used one is evicted
+	 */
+	static final int CACHE_SIZE = 8;
+
+	/**
+	 * The cached geometries, the most recently used first. It is copied on write, so a lookup of the
+	 * most recently used size is a read of the array without a lock or a boxed key.
+	 */
+	private static volatile Geometry[] cache = new Geometry[0];
+
+	/**
+	 * number of grid rows
+	 */
+	public final int rows;
+
+	/**
+	 * number of grid columns
+	 */
+	public final int cols;
+
+	/**
+	 * upper bound of linear coordinates , it is rows * cols
+	 */
+	public final int bound;
+
+	private final int[] interiorOffsets;
+
+	private final int[] start;
+
+	private final int[] adjacency;
+
+	private Geometry(int rows, int cols) {
+		this.rows = rows;
+		this.cols = cols;
+		this.bound = rows * cols;
+		this.interiorOffsets = new int[]{-cols - 1, -cols, -cols + 1, -1, 1, cols - 1, cols, cols + 1};
+
+		int slots = rows <= 2 ? bound : 2 * cols + 2 * (rows - 2);
+		this.start = new int[slots + 1];
+
+		for (int r = 0; r < rows; r++) {
+			for (int c = 0; c < cols; c++) {
+				if (!isInterior(r, c)) {
+					start[borderIndex(r, c) + 1] = countValidNeighbours(r, c);
+				}
+			}
+		}
+
+		for (int i = 0; i < slots; i++) {
+			start[i + 1] += start[i];
+		}
+
+		this.adjacency = new int[start[slots]];
+
+		for (int r = 0; r < rows; r++) {
+			for (int c = 0; c < cols; c++) {
+				if (!isInterior(r, c)) {
+					fillValidNeighbours(r, c, start[borderIndex(r, c)]);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Gives the shared geometry of a rows x cols grid
+	 * @param rows
+	 * @param cols
+	 * @return
+	 */
+	public static Geometry of(int rows, int cols) {
+		Geometry[] geometries = cache;
+
+		if (geometries.length > 0 && geometries[0].rows == rows && geometries[0].cols == cols) {
+			return geometries[0];
+		}
+
+		synchronized (Geometry.class) {
+			geometries = cache;
+			int found = 0;
+
+			while (found < geometries.length && (geometries[found].rows != rows || geometries[found].cols != cols)) {
+				found++;
+			}
+
+			Geometry geometry = found < geometries.length ? geometries[found] : new Geometry(rows, cols);
+			Geometry[] used = new Geometry[Math.min(CACHE_SIZE, geometries.length + (found < geometries.length ? 0 : 1))];
+
+			used[0] = geometry;
+			for (int i = 0, j = 1; j < used.length; i++) {
+				if (i != found) {
+					used[j++] = geometries[i];
+				}
+			}
+
+			cache = used;
+
+			return geometry;
+		}
+	}
+
+	public int row(int linearCoord) {
+		return linearCoord / cols;
+	}
+
+	public int col(int linearCoord) {
+		return linearCoord % cols;
+	}
+
+	public boolean isInterior(int linearCoord) {
+		int row = linearCoord / cols;
+
+		return isInterior(row, linearCoord - row * cols);
+	}
+
+	/**
+	 * Number of valid neighbours of the cell (3, 5 or 8 on a grid at least 2x2)
+	 * @param linearCoord
+	 * @return
+	 */
+	public int neighbourCount(int linearCoord) {
+		int row = linearCoord / cols;
+		int col = linearCoord - row * cols;
+
+		if (isInterior(row, col)) {
+			return 8;
+		}
+
+		int b = borderIndex(row, col);
+
+		return start[b + 1] - start[b];
+	}
+
+	/**
+	 * The k-th neighbour (0 <= k < neighbourCount(linearCoord)) of the cell
+	 * @param linearCoord
+	 * @param k
+	 * @return
+	 */
+	public int neighbour(int linearCoord, int k) {
+		int row = linearCoord / cols;
+		int col = linearCoord - row * cols;
+
+		if (isInterior(row, col)) {
+			return linearCoord + interiorOffsets[k];
+		}
+
+		return adjacency[start[borderIndex(row, col)] + k];
+	}
+
+	/**
+	 * Copies the neighbours of the cell into dest, which should have at least 8 elements
+	 * @param linearCoord
+	 * @param dest
+	 * @return number of neighbours
+	 */
+	public int neighbours(int linearCoord, int[] dest) {
+		int row = linearCoord / cols;
+		int col = linearCoord - row * cols;
+
+		if (isInterior(row, col)) {
+			for (int k = 0; k < 8; k++) {
+				dest[k] = linearCoord + interiorOffsets[k];
+			}
+
+			return 8;
+		}
+
+		int b = borderIndex(row, col);
+		int length = start[b + 1] - start[b];
+		System.arraycopy(adjacency, start[b], dest, 0, length);
+
+		return length;
+	}
+
+	/**
+	 * Read-only List view of the neighbours of the cell
+	 * @param linearCoord
+	 * @return
+	 */
+	public List<Integer> neighbourList(int linearCoord) {
+		int length = neighbourCount(linearCoord);
+
+		return new AbstractList<Integer>() {
+			@Override
+			public Integer get(int index) {
+				if (index < 0 || index >= length) {
+					throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + length);
+				}
+
+				return neighbour(linearCoord, index);
+			}
+
+			@Override
+			public int size() {
+				return length;
+			}
+		};
+	}
+
+	private boolean isInterior(int row, int col) {
+		return row > 0 && row < rows - 1 && col > 0 && col < cols - 1;
+	}
+
+	/**
+	 * Index of a border cell: first row, last row, then the first and last column of the middle rows
+	 */
+	private int borderIndex(int row, int col) {
+		if (row == 0) {
+			return col;
+		}
+
+		if (row == rows - 1) {
+			return cols + col;
+		}
+
+		return 2 * cols + 2 * (row - 1) + (col == 0 ? 0 : 1);
+	}
+
+	private int countValidNeighbours(int row, int col) {
+		int count = 0;
+
+		for (int r = row - 1; r <= row + 1; r++) {
+			for (int c = col - 1; c <= col + 1; c++) {
+				if ((r != row || c != col) && r >= 0 && r < rows && c >= 0 && c < cols) {
+					count++;
+				}
+			}
+		}
+
+		return count;
+	}
+
+	private void fillValidNeighbours(int row, int col, int from) {
+		for (int r = row - 1; r <= row + 1; r++) {
+			for (int c = col - 1; c <= col + 1; c++) {
+				if ((r != row || c != col) && r >= 0 && r < rows && c >= 0 && c < cols) {
+					adjacency[from++] = r * cols + c;
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,144 @@
+package hu.bp.minesweeper.core;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.CharBuffer;
+
+/**
+ * Writes the text form of a Board (the format of Minesweeper.getStringGrid) into an Appendable,
+ * a Writer, a CharBuffer or an OutputStream.
+ *
+ * The characters come from a glyph table indexed by the cell value, a row is rendered into a reused
+ * buffer and it is written out with one call. The rows are separated by "\n", there is no newline
+ * after the last row. Only the row buffer is allocated (once, it grows to the widest board), so the
+ * garbage does not depend on the size of the board.
+ *
+ * Not thread-safe, use one renderer per thread.
+ */
+public class GridRenderer {
+	/**
+	 * GLYPHS[cellValue + 1] is the character of the cell: Minesweeper.STR_BOMB, Minesweeper.STR_ZEO, '1'..'8'
+	 */
+	static final char[] GLYPHS = {
+			Minesweeper.STR_BOMB.charAt(0), Minesweeper.STR_ZEO.charAt(0),
+			'1', '2', '3', '4', '5', '6', '7', '8'};
+
+	private char[] chars = new char[0];
+	private byte[] bytes = new byte[0];
+
+	public static char glyph(int cellValue) {
+		return GLYPHS[cellValue + 1];
+	}
+
+	/**
+	 * Renders the row into dest, without newline
+	 * @param board
+	 * @param row
+	 * @param dest at least board.cols chars from offset
+	 * @param offset
+	 * @return number of chars written (board.cols)
+	 */
+	public static int renderRow(Board board, int row, char[] dest, int offset) {
+		int cols = board.cols;
+		int cell = row * cols;
+
+		for (int c = 0; c < cols; c++) {
+			dest[offset + c] = GLYPHS[board.get(cell + c) + 1];
+		}
+
+		return cols;
+	}
+
+	public void render(Board board, Appendable out) throws IOException {
+		if (out instanceof Writer) {
+			render(board, (Writer) out);
+			return;
+		}
+		if (out instanceof CharBuffer) {
+			render(board, (CharBuffer) out);
+			return;
+		}
+
+		StringBuilder sb = out instanceof StringBuilder ? (StringBuilder) out : null;
+		if (sb != null) {
+			sb.ensureCapacity(sb.length() + board.bound + board.rows);
+		}
+
+		for (int r = 0; r < board.rows; r++) {
+			int length = row(board, r);
+
+			if (sb != null) {
+				sb.append(chars, 0, length);
+			}
+			else {
+				for (int i = 0; i < length; i++) {
+					out.append(chars[i]);
+				}
+			}
+		}
+	}
+
+	public void render(Board board, Writer out) throws IOException {
+		for (int r = 0; r < board.rows; r++) {
+			int length = row(board, r);
+			out.write(chars, 0, length);
+		}
+	}
+
+	/**
+	 * @param board
+	 * @param out it should have board.bound + board.rows - 1 chars remaining
+	 */
+	public void render(Board board, CharBuffer out) {
+		for (int r = 0; r < board.rows; r++) {
+			int length = row(board, r);
+			out.put(chars, 0, length);
+		}
+	}
+
+	/**
+	 * The glyphs are ASCII characters, one byte per cell
+	 * @param board
+	 * @param out
+	 * @throws IOException
+	 */
+	public void render(Board board, OutputStream out) throws IOException {
+		ensureCapacity(board.cols + 1);
+
+		if (bytes.length < chars.length) {
+			bytes = new byte[chars.length];
+		}
+
+		for (int r = 0; r < board.rows; r++) {
+			int length = row(board, r);
+
+			for (int i = 0; i < length; i++) {
+				bytes[i] = (byte) chars[i];
+			}
+
+			out.write(bytes, 0, length);
+		}
+	}
+
+	/**
+	 * Renders the r-th row into chars, with a leading newline except for the first row
+	 */
+	private int row(Board board, int r) {
+		ensureCapacity(board.cols + 1);
+
+		if (r == 0) {
+			return renderRow(board, 0, chars, 0);
+		}
+
+		chars[0] = '\n';
+
+		return renderRow(board, r, chars, 1) + 1;
+	}
+
+	private void ensureCapacity(int length) {
+		if (chars.length < length) {
+			chars = new char[length];
+		}
+	}
+}
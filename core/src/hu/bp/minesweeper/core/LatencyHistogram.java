@@ -0,0 +1,159 @@
+package hu.bp.minesweeper.core;
+
+import java.util.Arrays;
+
+/**
+ * Histogram of non-negative long values (nanoseconds), with log-linear buckets like HdrHistogram:
+ * values below 2^SUB_BUCKET_BITS are exact, above that every power of two is split into
+ * 2^(SUB_BUCKET_BITS - 1) buckets, so the relative error is below 1 / 2^(SUB_BUCKET_BITS - 1) (~3%).
+ *
+ * The buckets are a fixed long[], record() does not allocate. Not thread-safe: record into one
+ * histogram per thread and merge() them.
+ */
+public class LatencyHistogram {
+	public static final int SUB_BUCKET_BITS = 6;
+
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+	private static final int HALF_SUB_BUCKETS = SUB_BUCKETS >> 1;
+	private static final int NUMBER_OF_BUCKETS = SUB_BUCKETS + (63 - SUB_BUCKET_BITS) * HALF_SUB_BUCKETS;
+
+	private final long[] counts = new long[NUMBER_OF_BUCKETS];
+
+	private long count;
+	private long sum;
+	private long min = Long.MAX_VALUE;
+	private long max;
+
+	/**
+	 * @param value negative values are recorded as 0
+	 */
+	public void record(long value) {
+		if (value < 0) {
+			value = 0;
+		}
+
+		counts[bucket(value)]++;
+		count++;
+		sum += value;
+
+		if (value < min) {
+			min = value;
+		}
+		if (value > max) {
+			max = value;
+		}
+	}
+
+	static int bucket(long value) {
+		if (value < SUB_BUCKETS) {
+			return (int) value;
+		}
+
+		int shift = 64 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+		int mantissa = (int) (value >>> shift);
+
+		return SUB_BUCKETS + (shift - 1) * HALF_SUB_BUCKETS + mantissa - HALF_SUB_BUCKETS;
+	}
+
+	/**
+	 * Highest value of the bucket
+	 */
+	static long highestValue(int bucket) {
+		if (bucket < SUB_BUCKETS) {
+			return bucket;
+		}
+
+		int shift = (bucket - SUB_BUCKETS) / HALF_SUB_BUCKETS + 1;
+		long mantissa = (bucket - SUB_BUCKETS) % HALF_SUB_BUCKETS + HALF_SUB_BUCKETS;
+
+		return ((mantissa + 1) << shift) - 1;
+	}
+
+	public void merge(LatencyHistogram other) {
+		for (int i = 0; i < NUMBER_OF_BUCKETS; i++) {
+			counts[i] += other.counts[i];
+		}
+
+		count += other.count;
+		sum += other.sum;
+		min = Math.min(min, other.min);
+		max = Math.max(max, other.max);
+	}
+
+	public void reset() {
+		Arrays.fill(counts, 0);
+		count = 0;
+		sum = 0;
+		min = Long.MAX_VALUE;
+		max = 0;
+	}
+
+	public long getCount() {
+		return count;
+	}
+
+	public long getSum() {
+		return sum;
+	}
+
+	/**
+	 * @return 0 when the histogram is empty
+	 */
+	public long getMin() {
+		return count == 0 ? 0 : min;
+	}
+
+	public long getMax() {
+		return max;
+	}
+
+	public double getMean() {
+		return count == 0 ? 0 : (double) sum / count;
+	}
+
+	/**
+	 * The value which is not smaller than percentile % of the values (within the bucket precision)
+	 * @param percentile 0..100
+	 * @return
+	 */
+	public long getValueAtPercentile(double percentile) {
+		if (count == 0) {
+			return 0;
+		}
+
+		long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+		long seen = 0;
+
+		for (int i = 0; i < NUMBER_OF_BUCKETS; i++) {
+			seen += counts[i];
+
+			if (seen >= rank) {
+				return Math.min(max, highestValue(i));
+			}
+		}
+
+		return max;
+	}
+
+	/**
+	 * count, mean, p50, p90, p99, p99.9 and max in microseconds
+	 * @return
+	 */
+	@Override
+	public String toString() {
+		return "count=" + count
+				+ " mean=" + micros((long) getMean())
+				+ "us p50=" + micros(getValueAtPercentile(50))
+				+ "us p90=" + micros(getValueAtPercentile(90))
+				+ "us p99=" + micros(getValueAtPercentile(99))
+				+ "us p99.9=" + micros(getValueAtPercentile(99.9))
+				+ "us max=" + micros(getMax()) + "us";
+	}
+
+	private static String micros(long nanos) {
+		// one decimal, String.format is not available in GWT
+		long tenths = (nanos + 50) / 100;
+
+		return tenths / 10 + "." + tenths % 10;
+	}
+}
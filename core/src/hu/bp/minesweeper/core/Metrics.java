@@ -0,0 +1,385 @@
+package hu.bp.minesweeper.core;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Registry of named counters, gauges and histograms (LatencyHistogram), for the performance overlay
+ * and the metrics dump of the game.
+ *
+ * The metrics are created once, usually into static final fields, and updated on the hot paths:
+ *
+ *   private static final Metrics.Histogram REVEAL = Metrics.timer("game.reveal");
+ *
+ *   long start = Metrics.start();
+ *   ...
+ *   REVEAL.stop(start);
+ *
+ * Instrumentation is disabled by default. When it is disabled, start() returns NOT_STARTED without
+ * reading the clock and the updates return after checking one static boolean, so the cost is a
+ * branch per call.
+ *
+ * The metrics are updated from the render thread, they are not thread-safe: do not enable them while
+ * AutoplaySimulation or BatchGenerator runs games on several threads, the results would not be exact.
+ */
+public class Metrics {
+	/**
+	 * Returned by start() when the instrumentation is disabled
+	 */
+	public static final long NOT_STARTED = 0;
+
+	/**
+	 * Bytes allocated by the current thread, the platform (e.g. the desktop launcher) can provide it
+	 */
+	public interface AllocationCounter {
+		long allocatedBytes();
+	}
+
+	public enum Type {
+		COUNTER,
+		GAUGE,
+		TIMER,
+		HISTOGRAM
+	}
+
+	public abstract static class Metric {
+		public final String name;
+		public final Type type;
+
+		Metric(String name, Type type) {
+			this.name = name;
+			this.type = type;
+		}
+
+		abstract void reset();
+	}
+
+	/**
+	 * A number which only grows, e.g. number of frames
+	 */
+	public static class Counter extends Metric {
+		private long value;
+
+		Counter(String name) {
+			super(name, Type.COUNTER);
+		}
+
+		public void increment() {
+			if (enabled) {
+				value++;
+			}
+		}
+
+		public void add(long delta) {
+			if (enabled) {
+				value += delta;
+			}
+		}
+
+		public long get() {
+			return value;
+		}
+
+		@Override
+		void reset() {
+			value = 0;
+		}
+	}
+
+	/**
+	 * The last value of something, e.g. render calls of the last frame
+	 */
+	public static class Gauge extends Metric {
+		private long value;
+
+		Gauge(String name) {
+			super(name, Type.GAUGE);
+		}
+
+		public void set(long value) {
+			if (enabled) {
+				this.value = value;
+			}
+		}
+
+		public long get() {
+			return value;
+		}
+
+		@Override
+		void reset() {
+			value = 0;
+		}
+	}
+
+	/**
+	 * Distribution of values. A TIMER records nanoseconds, they are shown in microseconds.
+	 */
+	public static class Histogram extends Metric {
+		private final LatencyHistogram histogram = new LatencyHistogram();
+
+		Histogram(String name, Type type) {
+			super(name, type);
+		}
+
+		public void record(long value) {
+			if (enabled) {
+				histogram.record(value);
+			}
+		}
+
+		/**
+		 * Records the time since start
+		 * @param start returned by Metrics.start() or by the previous stop()
+		 * @return the current time, the start of the next phase, or NOT_STARTED
+		 */
+		public long stop(long start) {
+			if (start == NOT_STARTED || !enabled) {
+				return NOT_STARTED;
+			}
+
+			long now = System.nanoTime();
+			histogram.record(now - start);
+
+			return now;
+		}
+
+		public LatencyHistogram getHistogram() {
+			return histogram;
+		}
+
+		@Override
+		void reset() {
+			histogram.reset();
+		}
+	}
+
+	private static boolean enabled;
+
+	private static AllocationCounter allocationCounter;
+
+	private static final Map<String, Metric> metrics = new LinkedHashMap<>();
+
+	private Metrics() {}
+
+	public static boolean isEnabled() {
+		return enabled;
+	}
+
+	public static void setEnabled(boolean enabled) {
+		Metrics.enabled = enabled;
+	}
+
+	public static void setAllocationCounter(AllocationCounter allocationCounter) {
+		Metrics.allocationCounter = allocationCounter;
+	}
+
+	/**
+	 * @return the current time for Histogram.stop(), or NOT_STARTED when the instrumentation is disabled
+	 */
+	public static long start() {
+		return enabled ? System.nanoTime() : NOT_STARTED;
+	}
+
+	/**
+	 * @return bytes allocated by the current thread, 0 when disabled or not supported on the platform
+	 */
+	public static long allocatedBytes() {
+		return enabled && allocationCounter != null ? allocationCounter.allocatedBytes() : 0;
+	}
+
+	public static Counter counter(String name) {
+		Metric metric = metrics.get(name);
+
+		if (metric == null) {
+			metric = register(new Counter(name));
+		}
+
+		return (Counter) checkType(metric, Type.COUNTER);
+	}
+
+	public static Gauge gauge(String name) {
+		Metric metric = metrics.get(name);
+
+		if (metric == null) {
+			metric = register(new Gauge(name));
+		}
+
+		return (Gauge) checkType(metric, Type.GAUGE);
+	}
+
+	/**
+	 * Histogram of nanoseconds
+	 * @param name
+	 * @return
+	 */
+	public static Histogram timer(String name) {
+		return histogram(name, Type.TIMER);
+	}
+
+	/**
+	 * Histogram of other values, e.g. allocated bytes per frame
+	 * @param name
+	 * @return
+	 */
+	public static Histogram histogram(String name) {
+		return histogram(name, Type.HISTOGRAM);
+	}
+
+	private static Histogram histogram(String name, Type type) {
+		Metric metric = metrics.get(name);
+
+		if (metric == null) {
+			metric = register(new Histogram(name, type));
+		}
+
+		return (Histogram) checkType(metric, type);
+	}
+
+	private static synchronized Metric register(Metric metric) {
+		Metric registered = metrics.get(metric.name);
+
+		if (registered != null) {
+			return registered;
+		}
+
+		metrics.put(metric.name, metric);
+
+		return metric;
+	}
+
+	private static Metric checkType(Metric metric, Type type) {
+		if (metric.type != type) {
+			throw new IllegalArgumentException(metric.name + " is a " + metric.type + ", not a " + type);
+		}
+
+		return metric;
+	}
+
+	/**
+	 * The registered metrics in registration order
+	 * @return
+	 */
+	public static List<Metric> getMetrics() {
+		return new ArrayList<>(metrics.values());
+	}
+
+	/**
+	 * Sets every value to 0, the metrics stay registered
+	 */
+	public static void reset() {
+		for (Metric metric : metrics.values()) {
+			metric.reset();
+		}
+	}
+
+	/**
+	 * One line per metric for the overlay, e.g. "frame.draw 812 us p99 1640 us max 4010 us"
+	 * @param out
+	 */
+	public static void writeSummary(StringBuilder out) {
+		for (Metric metric : metrics.values()) {
+			out.append(metric.name).append(' ');
+
+			if (metric instanceof Histogram) {
+				LatencyHistogram histogram = ((Histogram) metric).histogram;
+				String unit = metric.type == Type.TIMER ? " us" : "";
+
+				out.append(scaled(metric, (long) histogram.getMean())).append(unit)
+						.append(" p99 ").append(scaled(metric, histogram.getValueAtPercentile(99))).append(unit)
+						.append(" max ").append(scaled(metric, histogram.getMax())).append(unit);
+			}
+			else {
+				out.append(value(metric));
+			}
+
+			out.append('\n');
+		}
+	}
+
+	public static final String CSV_HEADER = "time,name,type,count,value,mean,p50,p90,p99,max";
+
+	/**
+	 * One CSV line (see CSV_HEADER) per metric. The value of counters and gauges is in the value column,
+	 * the statistics of histograms in the other columns. Timers are in nanoseconds.
+	 * @param out
+	 * @param timeMillis the first column of every line
+	 * @throws IOException
+	 */
+	public static void writeCsv(Appendable out, long timeMillis) throws IOException {
+		for (Metric metric : metrics.values()) {
+			out.append(String.valueOf(timeMillis)).append(',')
+					.append(metric.name).append(',')
+					.append(metric.type.name().toLowerCase()).append(',');
+
+			if (metric instanceof Histogram) {
+				LatencyHistogram histogram = ((Histogram) metric).histogram;
+
+				out.append(String.valueOf(histogram.getCount())).append(",,")
+						.append(String.valueOf((long) histogram.getMean())).append(',')
+						.append(String.valueOf(histogram.getValueAtPercentile(50))).append(',')
+						.append(String.valueOf(histogram.getValueAtPercentile(90))).append(',')
+						.append(String.valueOf(histogram.getValueAtPercentile(99))).append(',')
+						.append(String.valueOf(histogram.getMax()));
+			}
+			else {
+				out.append(',').append(String.valueOf(value(metric))).append(",,,,,");
+			}
+
+			out.append('\n');
+		}
+	}
+
+	/**
+	 * The metrics as one JSON object in one line:
+	 * {"time":..,"metrics":{"frames":{"type":"counter","value":..},"frame.draw":{"type":"timer","count":..,"mean":..,..}}}
+	 * @param out
+	 * @param timeMillis
+	 * @throws IOException
+	 */
+	public static void writeJson(Appendable out, long timeMillis) throws IOException {
+		out.append("{\"time\":").append(String.valueOf(timeMillis)).append(",\"metrics\":{");
+
+		boolean first = true;
+
+		for (Metric metric : metrics.values()) {
+			if (!first) {
+				out.append(',');
+			}
+			first = false;
+
+			// metric names are identifiers like "frame.draw", they are not escaped
+			out.append('"').append(metric.name).append("\":{\"type\":\"")
+					.append(metric.type.name().toLowerCase()).append('"');
+
+			if (metric instanceof Histogram) {
+				LatencyHistogram histogram = ((Histogram) metric).histogram;
+
+				out.append(",\"count\":").append(String.valueOf(histogram.getCount()))
+						.append(",\"mean\":").append(String.valueOf((long) histogram.getMean()))
+						.append(",\"p50\":").append(String.valueOf(histogram.getValueAtPercentile(50)))
+						.append(",\"p90\":").append(String.valueOf(histogram.getValueAtPercentile(90)))
+						.append(",\"p99\":").append(String.valueOf(histogram.getValueAtPercentile(99)))
+						.append(",\"max\":").append(String.valueOf(histogram.getMax()));
+			}
+			else {
+				out.append(",\"value\":").append(String.valueOf(value(metric)));
+			}
+
+			out.append('}');
+		}
+
+		out.append("}}\n");
+	}
+
+	private static long value(Metric metric) {
+		return metric instanceof Counter ? ((Counter) metric).value : ((Gauge) metric).value;
+	}
+
+	private static long scaled(Metric metric, long value) {
+		return metric.type == Type.TIMER ? value / 1000 : value;
+	}
+}
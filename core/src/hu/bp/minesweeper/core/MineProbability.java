@@ -0,0 +1,1223 @@
+package hu.bp.minesweeper.core;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Probability of a mine under every hidden cell, from what the player sees: the revealed numbers and
+ * the number of bombs. Flags are not trusted, flagged cells are unknown like the hidden ones.
+ *
+ * Every revealed number is a constraint: the sum of its unknown neighbours is its value. The cells
+ * which are forced by a single constraint are found first, they are certain. The other unknown cells
+ * next to a number (the frontier) are split into components which do not share a constraint,
+ * the components are independent, so they are solved separately, on a ForkJoinPool. The solutions
+ * of a component are counted per number of mines of the component (see Counting: cells with the same
+ * constraints are counted together, and the constraints which are still open are packed into a long).
+ *
+ * The other unknown cells (not next to a number) are all alike. A combination of component solutions
+ * with f mines is completed by C(interior, bombs - f) placements in them, so the components are
+ * convolved by their number of mines and weighted by these binomials. With these weights, the mines
+ * of every cell are summed over the solutions of its component. The counts are exact, the
+ * weighting is done in doubles (logarithms of the binomials), so the probabilities are exact up to
+ * rounding.
+ *
+ * When the counting of a component needs more than maxWork steps, it is estimated by sampling: the
+ * cells are assigned in order, a cell which can be both is a mine with the probability
+ * bombs / unknown cells, and every sample is weighted by 1 / the probability of its random choices,
+ * so the weighted counts estimate the numbers of solutions. The Result is marked as not exact.
+ *
+ * JVM only (ForkJoinPool), it is excluded from the GWT module.
+ */
+public class MineProbability {
+	public static final long DEFAULT_MAX_WORK = 1 << 22;
+
+	public static final int DEFAULT_SAMPLES = 4096;
+
+	/**
+	 * Components smaller than this are solved on the calling thread
+	 */
+	static final int FORK_THRESHOLD = 16;
+
+	private static final byte SAFE = 1;
+	private static final byte MINE = 2;
+
+	/**
+	 * Probabilities of a position
+	 */
+	public static class Result {
+		private final double[] probabilities;
+		private final MinesweeperGame game;
+
+		public final boolean exact;
+		public final int components;
+		public final int frontierCells;
+
+		Result(MinesweeperGame game, double[] probabilities, boolean exact, int components, int frontierCells) {
+			this.game = game;
+			this.probabilities = probabilities;
+			this.exact = exact;
+			this.components = components;
+			this.frontierCells = frontierCells;
+		}
+
+		/**
+		 * @param linearCoord
+		 * @return probability of a mine under the cell, 0 for revealed cells
+		 */
+		public double getProbability(int linearCoord) {
+			return probabilities[linearCoord];
+		}
+
+		/**
+		 * The hidden (not flagged) cell with the lowest probability, the first one on ties
+		 * @return -1 when there is no hidden cell
+		 */
+		public int getSafestCell() {
+			int safest = -1;
+
+			for (int i = 0; i < probabilities.length; i++) {
+				if (game.getState(i) == FloodReveal.HIDDEN && (safest < 0 || probabilities[i] < probabilities[safest])) {
+					safest = i;
+				}
+			}
+
+			return safest;
+		}
+	}
+
+	private final ForkJoinPool pool;
+	private final long maxWork;
+	private final int samples;
+
+	/**
+	 * @param pool the components are solved on it
+	 * @param maxWork steps of the exact counting of a component, then it is sampled
+	 * @param samples number of samples of a component which is not counted
+	 */
+	public MineProbability(ForkJoinPool pool, long maxWork, int samples) {
+		if (maxWork < 1 || samples < 1) {
+			throw new IllegalArgumentException("maxWork and samples should be positive: " + maxWork + ", " + samples);
+		}
+
+		this.pool = pool;
+		this.maxWork = maxWork;
+		this.samples = samples;
+	}
+
+	/**
+	 * On the common pool
+	 */
+	public MineProbability() {
+		this(ForkJoinPool.commonPool(), DEFAULT_MAX_WORK, DEFAULT_SAMPLES);
+	}
+
+	/**
+	 * A bot which reveals the safest cell
+	 * @return
+	 */
+	public Bot bot() {
+		return (game, random) -> compute(game, random).getSafestCell();
+	}
+
+	/**
+	 * @param game
+	 * @param random for sampling, the result does not depend on it when it is exact
+	 * @return
+	 */
+	public Result compute(MinesweeperGame game, SplitRandom random) {
+		Board board = game.board;
+		Geometry geometry = Geometry.of(board.rows, board.cols);
+		int[] neighbours = new int[8];
+
+		List<int[]> constraints = new ArrayList<>();
+		int unknown = 0;
+
+		for (int cell = 0; cell < board.bound; cell++) {
+			if (game.getState(cell) != FloodReveal.REVEALED) {
+				unknown++;
+				continue;
+			}
+
+			if (board.isBomb(cell)) {
+				continue;
+			}
+
+			int count = geometry.neighbours(cell, neighbours);
+			int cells = 0;
+
+			for (int k = 0; k < count; k++) {
+				if (game.getState(neighbours[k]) != FloodReveal.REVEALED) {
+					neighbours[cells++] = neighbours[k];
+				}
+			}
+
+			if (cells == 0) {
+				continue;
+			}
+
+			// value, then the cells
+			int[] constraint = new int[cells + 1];
+			constraint[0] = board.get(cell);
+			System.arraycopy(neighbours, 0, constraint, 1, cells);
+
+			constraints.add(constraint);
+		}
+
+		byte[] known = new byte[board.bound];
+		int knownMines = propagate(constraints, known);
+		int bombs = board.getNumberOfBombs() - knownMines;
+
+		// the other unknown cells next to the numbers, and the constraints, merged into components
+		UnionFind components = new UnionFind(board.bound);
+		boolean[] frontier = new boolean[board.bound];
+		List<int[]> open = new ArrayList<>();
+
+		for (int[] constraint : constraints) {
+			int value = constraint[0];
+			int cells = 0;
+
+			for (int k = 1; k < constraint.length; k++) {
+				if (known[constraint[k]] == MINE) {
+					value--;
+				}
+				else if (known[constraint[k]] != SAFE) {
+					neighbours[cells++] = constraint[k];
+				}
+			}
+
+			if (cells == 0) {
+				continue;
+			}
+
+			int[] reduced = new int[cells + 1];
+			reduced[0] = value;
+
+			for (int k = 0; k < cells; k++) {
+				reduced[k + 1] = neighbours[k];
+				frontier[neighbours[k]] = true;
+				components.union(neighbours[0], neighbours[k]);
+			}
+
+			open.add(reduced);
+		}
+
+		for (byte k : known) {
+			if (k != 0) unknown--;
+		}
+
+		List<Component> parts = split(board.bound, frontier, components, open);
+		double density = Math.min(Math.max((double) bombs / Math.max(unknown, 1), 0.001), 0.999);
+
+		for (Component part : parts) {
+			part.density = density;
+		}
+
+		solve(parts, random);
+
+		int frontierCells = 0;
+		for (Component part : parts) {
+			frontierCells += part.cells.length;
+		}
+
+		double[] probabilities = combine(game, parts, bombs, unknown - frontierCells, frontier, known);
+		boolean exact = true;
+
+		for (Component part : parts) {
+			exact &= part.exact;
+		}
+
+		return new Result(game, probabilities, exact, parts.size(), frontierCells);
+	}
+
+	/**
+	 * Finds the cells which are forced by one constraint: its value is reached (the others are safe) or
+	 * it needs all its cells, until nothing changes. They are certain, so the components are smaller.
+	 * @param constraints value, then the cells
+	 * @param known SAFE or MINE for the forced cells
+	 * @return number of forced mines
+	 */
+	private static int propagate(List<int[]> constraints, byte[] known) {
+		int mines = 0;
+		boolean changed = true;
+
+		while (changed) {
+			changed = false;
+
+			for (int[] constraint : constraints) {
+				int need = constraint[0];
+				int unknown = 0;
+
+				for (int k = 1; k < constraint.length; k++) {
+					if (known[constraint[k]] == MINE) need--;
+					else if (known[constraint[k]] == 0) unknown++;
+				}
+
+				if (unknown == 0 || (need != 0 && need != unknown)) {
+					continue;
+				}
+
+				byte value = need == 0 ? SAFE : MINE;
+
+				for (int k = 1; k < constraint.length; k++) {
+					if (known[constraint[k]] == 0) {
+						known[constraint[k]] = value;
+						if (value == MINE) mines++;
+					}
+				}
+
+				changed = true;
+			}
+		}
+
+		return mines;
+	}
+
+	private static List<Component> split(int bound, boolean[] frontier, UnionFind components, List<int[]> constraints) {
+		int[] componentOf = new int[bound];
+		Arrays.fill(componentOf, -1);
+
+		List<Component> parts = new ArrayList<>();
+		List<List<Integer>> cells = new ArrayList<>();
+
+		// cells in linear order, so the constraints are closed soon in the enumeration
+		for (int cell = 0; cell < bound; cell++) {
+			if (!frontier[cell]) continue;
+
+			int root = components.find(cell);
+
+			if (componentOf[root] < 0) {
+				componentOf[root] = parts.size();
+				parts.add(new Component());
+				cells.add(new ArrayList<>());
+			}
+
+			cells.get(componentOf[root]).add(cell);
+		}
+
+		List<List<int[]>> partConstraints = new ArrayList<>();
+		for (int i = 0; i < parts.size(); i++) {
+			partConstraints.add(new ArrayList<>());
+		}
+
+		for (int[] constraint : constraints) {
+			partConstraints.get(componentOf[components.find(constraint[1])]).add(constraint);
+		}
+
+		for (int i = 0; i < parts.size(); i++) {
+			parts.get(i).init(cells.get(i), partConstraints.get(i));
+		}
+
+		return parts;
+	}
+
+	private void solve(List<Component> parts, SplitRandom random) {
+		List<RecursiveAction> forked = new ArrayList<>();
+		List<Component> inline = new ArrayList<>();
+
+		for (int i = 0; i < parts.size(); i++) {
+			Component part = parts.get(i);
+			part.random = random.split(i);
+
+			if (part.cells.length >= FORK_THRESHOLD) {
+				forked.add(new RecursiveAction() {
+					@Override
+					protected void compute() {
+						part.solve(maxWork, samples);
+					}
+				});
+			}
+			else {
+				inline.add(part);
+			}
+		}
+
+		if (forked.isEmpty()) {
+			for (Component part : inline) {
+				part.solve(maxWork, samples);
+			}
+
+			return;
+		}
+
+		pool.invoke(new RecursiveAction() {
+			@Override
+			protected void compute() {
+				for (RecursiveAction action : forked) {
+					action.fork();
+				}
+
+				for (Component part : inline) {
+					part.solve(maxWork, samples);
+				}
+
+				for (RecursiveAction action : forked) {
+					action.join();
+				}
+			}
+		});
+	}
+
+	/**
+	 * Weights the component solutions with the placements of the other bombs in the interior cells
+	 */
+	private static double[] combine(MinesweeperGame game, List<Component> parts, int bombs, int interior,
+			boolean[] frontier, byte[] known) {
+		int count = parts.size();
+
+		// prefix[i]: convolution of the solution counts of parts 0..i-1, suffix[i]: of parts i..
+		double[][] prefix = new double[count + 1][];
+		double[][] suffix = new double[count + 1][];
+		prefix[0] = new double[]{1};
+		suffix[count] = new double[]{1};
+
+		for (int i = 0; i < count; i++) {
+			prefix[i + 1] = normalize(convolve(prefix[i], parts.get(i).solutions));
+		}
+		for (int i = count - 1; i >= 0; i--) {
+			suffix[i] = normalize(convolve(parts.get(i).solutions, suffix[i + 1]));
+		}
+
+		double[] total = prefix[count];
+		double[] weights = interiorWeights(interior, bombs, total.length);
+
+		double z = 0;
+		double interiorMines = 0;
+
+		for (int f = 0; f < total.length; f++) {
+			z += total[f] * weights[f];
+			interiorMines += total[f] * weights[f] * (bombs - f);
+		}
+
+		double[] probabilities = new double[game.board.bound];
+
+		if (z == 0) {
+			// the numbers do not fit the number of bombs, it does not happen in a real game
+			return probabilities;
+		}
+
+		double interiorProbability = interior == 0 ? 0 : interiorMines / z / interior;
+
+		for (int cell = 0; cell < probabilities.length; cell++) {
+			if (known[cell] == MINE) {
+				probabilities[cell] = 1;
+			}
+			else if (game.getState(cell) != FloodReveal.REVEALED && !frontier[cell] && known[cell] != SAFE) {
+				probabilities[cell] = interiorProbability;
+			}
+		}
+
+		for (int i = 0; i < count; i++) {
+			Component part = parts.get(i);
+			double[] others = convolve(prefix[i], suffix[i + 1]);
+
+			// the weight of the part's solutions with m mines, with all the combinations of the others
+			double[] g = new double[part.solutions.length];
+			double partZ = 0;
+
+			for (int m = 0; m < g.length; m++) {
+				for (int f = 0; f < others.length && m + f < weights.length; f++) {
+					g[m] += others[f] * weights[m + f];
+				}
+				partZ += part.solutions[m] * g[m];
+			}
+
+			double[] mines = part.weightedMines(g);
+
+			for (int v = 0; v < part.cells.length; v++) {
+				probabilities[part.cells[v]] = partZ == 0 ? 0 : mines[v] / partZ;
+			}
+		}
+
+		return probabilities;
+	}
+
+	/**
+	 * weights[f] is proportional to C(interior, bombs - f), the number of placements of the other bombs
+	 */
+	private static double[] interiorWeights(int interior, int bombs, int length) {
+		double[] logFactorial = new double[interior + 1];
+
+		for (int i = 1; i <= interior; i++) {
+			logFactorial[i] = logFactorial[i - 1] + Math.log(i);
+		}
+
+		double[] logWeights = new double[length];
+		double max = Double.NEGATIVE_INFINITY;
+
+		for (int f = 0; f < length; f++) {
+			int rest = bombs - f;
+
+			logWeights[f] = rest < 0 || rest > interior
+					? Double.NEGATIVE_INFINITY
+					: logFactorial[interior] - logFactorial[rest] - logFactorial[interior - rest];
+			max = Math.max(max, logWeights[f]);
+		}
+
+		double[] weights = new double[length];
+
+		for (int f = 0; f < length; f++) {
+			weights[f] = max == Double.NEGATIVE_INFINITY ? 0 : Math.exp(logWeights[f] - max);
+		}
+
+		return weights;
+	}
+
+	private static double[] convolve(double[] a, double[] b) {
+		double[] c = new double[a.length + b.length - 1];
+
+		for (int i = 0; i < a.length; i++) {
+			if (a[i] == 0) continue;
+
+			for (int j = 0; j < b.length; j++) {
+				c[i + j] += a[i] * b[j];
+			}
+		}
+
+		return c;
+	}
+
+	/**
+	 * Scales to max 1, only the ratios matter and the products of many counts would overflow
+	 */
+	private static double[] normalize(double[] a) {
+		double max = 0;
+
+		for (double x : a) {
+			max = Math.max(max, x);
+		}
+
+		if (max > 0) {
+			for (int i = 0; i < a.length; i++) {
+				a[i] /= max;
+			}
+		}
+
+		return a;
+	}
+
+	/**
+	 * Independent part of the frontier
+	 */
+	static class Component {
+		int[] cells;
+
+		/**
+		 * value of the constraints, and their cells as indexes into cells
+		 */
+		int[] values;
+		int[][] constraintCells;
+
+		/**
+		 * constraints of every cell
+		 */
+		int[][] cellConstraints;
+
+		/**
+		 * solutions[m]: number of solutions with m mines
+		 */
+		double[] solutions;
+
+		/**
+		 * exact components are counted, the others are sampled: mines[m][v] is the weight of the samples
+		 * with m mines in which cells[v] is a mine
+		 */
+		Counting counting;
+		double[][] mines;
+
+		boolean exact;
+
+		/**
+		 * for sampling
+		 */
+		SplitRandom random;
+
+		/**
+		 * bombs / unknown cells, a sampled cell is tried as a mine first with this probability
+		 */
+		double density;
+
+		void init(List<Integer> cellList, List<int[]> constraints) {
+			cells = new int[cellList.size()];
+			for (int v = 0; v < cells.length; v++) {
+				cells[v] = cellList.get(v);
+			}
+
+			values = new int[constraints.size()];
+			constraintCells = new int[constraints.size()][];
+			int[] constraintsPerCell = new int[cells.length];
+
+			for (int c = 0; c < values.length; c++) {
+				int[] constraint = constraints.get(c);
+				values[c] = constraint[0];
+				constraintCells[c] = new int[constraint.length - 1];
+
+				for (int k = 1; k < constraint.length; k++) {
+					int v = Arrays.binarySearch(cells, constraint[k]);
+					constraintCells[c][k - 1] = v;
+					constraintsPerCell[v]++;
+				}
+			}
+
+			cellConstraints = new int[cells.length][];
+			for (int v = 0; v < cells.length; v++) {
+				cellConstraints[v] = new int[constraintsPerCell[v]];
+				constraintsPerCell[v] = 0;
+			}
+			for (int c = 0; c < values.length; c++) {
+				for (int v : constraintCells[c]) {
+					cellConstraints[v][constraintsPerCell[v]++] = c;
+				}
+			}
+		}
+
+		void solve(long maxWork, int samples) {
+			solutions = new double[cells.length + 1];
+			counting = new Counting(this);
+
+			if (counting.run(maxWork)) {
+				exact = true;
+				return;
+			}
+
+			Arrays.fill(solutions, 0);
+			counting = null;
+			mines = new double[cells.length + 1][cells.length];
+			exact = false;
+
+			if (!new Sampling(this, random).run(samples)) {
+				estimateLocally();
+			}
+		}
+
+		/**
+		 * @param weights by the number of mines of the component
+		 * @return for every cell, the sum of the weights of the solutions in which it is a mine
+		 */
+		double[] weightedMines(double[] weights) {
+			if (counting != null) {
+				return counting.weightedMines(weights);
+			}
+
+			double[] result = new double[cells.length];
+
+			for (int m = 0; m < mines.length; m++) {
+				for (int v = 0; v < cells.length; v++) {
+					result[v] += mines[m][v] * weights[m];
+				}
+			}
+
+			return result;
+		}
+
+		/**
+		 * When not even a sample is found: every cell gets the average of value / cells of its constraints,
+		 * as if there was one solution with their sum of mines
+		 */
+		private void estimateLocally() {
+			double sum = 0;
+
+			for (int v = 0; v < cells.length; v++) {
+				double estimate = 0;
+
+				for (int c : cellConstraints[v]) {
+					estimate += (double) values[c] / constraintCells[c].length;
+				}
+
+				estimate /= cellConstraints[v].length;
+				sum += estimate;
+				mines[0][v] = estimate;
+			}
+
+			int m = (int) Math.round(sum);
+			solutions[m] = 1;
+
+			if (m != 0) {
+				System.arraycopy(mines[0], 0, mines[m], 0, cells.length);
+				Arrays.fill(mines[0], 0);
+			}
+		}
+	}
+
+	/**
+	 * Exact counting of the solutions of a component by dynamic programming.
+	 *
+	 * Cells with the same constraints are interchangeable, they are a group, and only the number of
+	 * mines in a group is chosen, C(size, x) ways. The groups are placed in breadth-first order through
+	 * the shared constraints, so it follows the frontier and only a few constraints are open (have
+	 * groups on both sides) at a time. The state between two groups is the remaining value of every
+	 * open constraint, 4 bits each in a long, and the states of a position have a polynomial: the
+	 * number of ways, by number of mines so far. The forward pass gives the solutions by number of
+	 * mines, a backward pass with the weights of the numbers of mines gives the mines of every group.
+	 */
+	static class Counting {
+		static final int MAX_OPEN_CONSTRAINTS = Long.SIZE / 4;
+
+		private static final long[][] BINOMIALS = new long[9][9];
+
+		static {
+			for (int n = 0; n < BINOMIALS.length; n++) {
+				BINOMIALS[n][0] = 1;
+				for (int k = 1; k <= n; k++) {
+					BINOMIALS[n][k] = BINOMIALS[n - 1][k - 1] + (k < n ? BINOMIALS[n - 1][k] : 0);
+				}
+			}
+		}
+
+		private final Component part;
+
+		/**
+		 * cells of the groups, in the order of placing
+		 */
+		private final int[][] groups;
+
+		/**
+		 * open[i]: the constraints which have groups before and after position i (before the i-th group)
+		 */
+		private final int[][] open;
+
+		/**
+		 * contains[i][c]: the i-th group is in constraint c
+		 */
+		private final boolean[][] contains;
+
+		/**
+		 * last[c]: position of the last group of constraint c
+		 */
+		private final int[] last;
+
+		/**
+		 * capacity[i][j]: cells of open[i][j] in the groups from position i
+		 */
+		private final int[][] capacity;
+
+		/**
+		 * forward[i]: the states before the i-th group, with their polynomials
+		 */
+		private final List<Map<Long, double[]>> forward = new ArrayList<>();
+
+		private long work;
+
+		Counting(Component part) {
+			this.part = part;
+
+			int constraints = part.values.length;
+			Map<List<Integer>, Integer> groupOf = new HashMap<>();
+			List<List<Integer>> groupCells = new ArrayList<>();
+			List<List<Integer>> constraintGroups = new ArrayList<>();
+
+			for (int c = 0; c < constraints; c++) {
+				constraintGroups.add(new ArrayList<>());
+			}
+
+			for (int v = 0; v < part.cells.length; v++) {
+				List<Integer> key = new ArrayList<>();
+				for (int c : part.cellConstraints[v]) {
+					key.add(c);
+				}
+
+				Integer group = groupOf.get(key);
+
+				if (group == null) {
+					group = groupCells.size();
+					groupOf.put(key, group);
+					groupCells.add(new ArrayList<>());
+
+					for (int c : key) {
+						constraintGroups.get(c).add(group);
+					}
+				}
+
+				groupCells.get(group).add(v);
+			}
+
+			int[] order = breadthFirst(groupCells.size(), groupOf, constraintGroups);
+
+			groups = new int[order.length][];
+			contains = new boolean[order.length][constraints];
+			int[] first = new int[constraints];
+			last = new int[constraints];
+			Arrays.fill(first, -1);
+
+			for (int i = 0; i < order.length; i++) {
+				List<Integer> cells = groupCells.get(order[i]);
+				groups[i] = new int[cells.size()];
+
+				for (int k = 0; k < groups[i].length; k++) {
+					groups[i][k] = cells.get(k);
+				}
+
+				for (int c : part.cellConstraints[groups[i][0]]) {
+					contains[i][c] = true;
+					last[c] = i;
+					if (first[c] < 0) first[c] = i;
+				}
+			}
+
+			open = new int[order.length + 1][];
+			capacity = new int[order.length + 1][];
+
+			for (int i = 0; i <= order.length; i++) {
+				List<Integer> openConstraints = new ArrayList<>();
+
+				for (int c = 0; c < constraints; c++) {
+					if (first[c] < i && i <= last[c]) {
+						openConstraints.add(c);
+					}
+				}
+
+				open[i] = new int[openConstraints.size()];
+				capacity[i] = new int[open[i].length];
+
+				for (int j = 0; j < open[i].length; j++) {
+					int c = open[i][j] = openConstraints.get(j);
+
+					for (int g = i; g <= last[c]; g++) {
+						if (contains[g][c]) capacity[i][j] += groups[g].length;
+					}
+				}
+			}
+		}
+
+		/**
+		 * The groups in breadth-first order, from a group with the fewest neighbours (an end of the frontier)
+		 */
+		private static int[] breadthFirst(int count, Map<List<Integer>, Integer> groupOf, List<List<Integer>> constraintGroups) {
+			List<List<Integer>> constraintsOf = new ArrayList<>();
+			for (int g = 0; g < count; g++) {
+				constraintsOf.add(null);
+			}
+			for (Map.Entry<List<Integer>, Integer> entry : groupOf.entrySet()) {
+				constraintsOf.set(entry.getValue(), entry.getKey());
+			}
+
+			int start = 0;
+			int fewest = Integer.MAX_VALUE;
+
+			for (int g = 0; g < count; g++) {
+				int neighbours = 0;
+				for (int c : constraintsOf.get(g)) {
+					neighbours += constraintGroups.get(c).size();
+				}
+
+				if (neighbours < fewest) {
+					fewest = neighbours;
+					start = g;
+				}
+			}
+
+			int[] order = new int[count];
+			boolean[] queued = new boolean[count];
+			int head = 0;
+			int tail = 0;
+
+			order[tail++] = start;
+			queued[start] = true;
+
+			while (head < tail) {
+				for (int c : constraintsOf.get(order[head++])) {
+					for (int g : constraintGroups.get(c)) {
+						if (!queued[g]) {
+							queued[g] = true;
+							order[tail++] = g;
+						}
+					}
+				}
+			}
+
+			return order;
+		}
+
+		/**
+		 * The forward pass, it sets the solutions of the component
+		 * @return false when there are too many open constraints or it needs more work than maxWork
+		 */
+		boolean run(long maxWork) {
+			for (int[] constraints : open) {
+				if (constraints.length > MAX_OPEN_CONSTRAINTS) {
+					return false;
+				}
+			}
+
+			Map<Long, double[]> states = new HashMap<>();
+			states.put(0L, new double[]{1});
+			forward.add(states);
+
+			for (int i = 0; i < groups.length; i++) {
+				Map<Long, double[]> next = new HashMap<>();
+				int size = groups[i].length;
+
+				for (Map.Entry<Long, double[]> entry : states.entrySet()) {
+					double[] ways = entry.getValue();
+
+					for (int x = 0; x <= size; x++) {
+						long target = next(i, entry.getKey(), x);
+
+						if (target < 0) {
+							continue;
+						}
+
+						work += ways.length;
+						if (work > maxWork) {
+							return false;
+						}
+
+						double[] nextWays = next.get(target);
+						if (nextWays == null) {
+							nextWays = new double[ways.length + size];
+							next.put(target, nextWays);
+						}
+
+						long binomial = BINOMIALS[size][x];
+						for (int m = 0; m < ways.length; m++) {
+							nextWays[m + x] += ways[m] * binomial;
+						}
+					}
+				}
+
+				forward.add(next);
+				states = next;
+			}
+
+			double[] ways = states.get(0L);
+
+			if (ways != null) {
+				System.arraycopy(ways, 0, part.solutions, 0, ways.length);
+			}
+
+			return true;
+		}
+
+		/**
+		 * The state after x mines in the i-th group
+		 * @return -1 when a constraint cannot be satisfied
+		 */
+		private long next(int i, long state, int x) {
+			int[] from = open[i];
+			int[] to = open[i + 1];
+			long result = 0;
+
+			// the constraints which are closed by this group
+			for (int j = 0; j < from.length; j++) {
+				int c = from[j];
+
+				if (last[c] == i && need(state, j) != (contains[i][c] ? x : 0)) {
+					return -1;
+				}
+			}
+
+			for (int j = 0, k = 0; j < to.length; j++) {
+				int c = to[j];
+
+				while (k < from.length && from[k] < c) {
+					k++;
+				}
+
+				int need = k < from.length && from[k] == c ? need(state, k) : part.values[c];
+
+				if (contains[i][c]) {
+					need -= x;
+				}
+
+				if (need < 0 || need > capacity[i + 1][j]) {
+					return -1;
+				}
+
+				result |= (long) need << (4 * j);
+			}
+
+			// the constraints of only this group
+			for (int c : part.cellConstraints[groups[i][0]]) {
+				if (last[c] == i && !isOpen(from, c) && part.values[c] != x) {
+					return -1;
+				}
+			}
+
+			return result;
+		}
+
+		private static int need(long state, int j) {
+			return (int) (state >>> (4 * j)) & 0xF;
+		}
+
+		private static boolean isOpen(int[] constraints, int c) {
+			return Arrays.binarySearch(constraints, c) >= 0;
+		}
+
+		/**
+		 * The backward pass
+		 * @param weights by the number of mines of the component
+		 * @return for every cell, the sum of the weights of the solutions in which it is a mine
+		 */
+		double[] weightedMines(double[] weights) {
+			double[] mines = new double[part.cells.length];
+			Map<Long, double[]> after = new HashMap<>();
+
+			// after[state][a]: the weighted completions, when there were a mines before
+			if (forward.get(groups.length).containsKey(0L)) {
+				after.put(0L, weights);
+			}
+
+			for (int i = groups.length - 1; i >= 0; i--) {
+				Map<Long, double[]> before = new HashMap<>();
+				int size = groups[i].length;
+				double groupMines = 0;
+
+				for (Map.Entry<Long, double[]> entry : forward.get(i).entrySet()) {
+					double[] ways = entry.getValue();
+					double[] completions = new double[ways.length];
+
+					for (int x = 0; x <= size; x++) {
+						long target = next(i, entry.getKey(), x);
+						double[] next = target < 0 ? null : after.get(target);
+
+						if (next == null) {
+							continue;
+						}
+
+						long binomial = BINOMIALS[size][x];
+
+						for (int a = 0; a < ways.length; a++) {
+							double completion = binomial * next[a + x];
+
+							completions[a] += completion;
+							groupMines += x * ways[a] * completion;
+						}
+					}
+
+					before.put(entry.getKey(), completions);
+				}
+
+				for (int v : groups[i]) {
+					mines[v] = groupMines / size;
+				}
+
+				after = before;
+			}
+
+			return mines;
+		}
+	}
+
+	/**
+	 * Sequential importance sampling (Knuth's estimator): the cells are assigned in order without
+	 * backtracking, a cell which fits both ways is a mine with the probability density, and the sample
+	 * is weighted by 1 / the probability of its choices. The cells of a constraint which became tight
+	 * are forced at once, so fewer samples get stuck; a sample which gets stuck has no weight. The
+	 * weighted counts are unbiased estimates of the numbers of solutions.
+	 */
+	static class Sampling {
+		private final Component part;
+		private final SplitRandom random;
+
+		private final int[] mines;
+		private final int[] open;
+		private final boolean[] assignment;
+		private final boolean[] assigned;
+
+		/**
+		 * value of a cell which is assigned or forced (SAFE, MINE), 0 when it is open
+		 */
+		private final byte[] pending;
+		private final int[] stack;
+
+		/**
+		 * the weights are kept as exp(log weight - scale), scale is the largest log weight so far
+		 */
+		private double scale = Double.NEGATIVE_INFINITY;
+
+		Sampling(Component part, SplitRandom random) {
+			this.part = part;
+			this.random = random;
+			this.mines = new int[part.values.length];
+			this.open = new int[part.values.length];
+			this.assignment = new boolean[part.cells.length];
+			this.assigned = new boolean[part.cells.length];
+			this.pending = new byte[part.cells.length];
+			this.stack = new int[part.cells.length];
+		}
+
+		/**
+		 * @return false when every sample got stuck
+		 */
+		boolean run(int samples) {
+			boolean found = false;
+
+			for (int s = 0; s < samples; s++) {
+				double logWeight = sample();
+
+				if (Double.isNaN(logWeight)) {
+					continue;
+				}
+
+				found = true;
+
+				if (logWeight > scale) {
+					rescale(Double.isInfinite(scale) ? 0 : Math.exp(scale - logWeight));
+					scale = logWeight;
+				}
+
+				double weight = Math.exp(logWeight - scale);
+				int m = 0;
+
+				for (boolean mine : assignment) {
+					if (mine) m++;
+				}
+
+				part.solutions[m] += weight;
+				for (int v = 0; v < assignment.length; v++) {
+					if (assignment[v]) {
+						part.mines[m][v] += weight;
+					}
+				}
+			}
+
+			return found;
+		}
+
+		private void rescale(double factor) {
+			for (int m = 0; m < part.solutions.length; m++) {
+				part.solutions[m] *= factor;
+
+				double[] row = part.mines[m];
+				for (int v = 0; v < row.length; v++) {
+					row[v] *= factor;
+				}
+			}
+		}
+
+		/**
+		 * @return log of the weight of the sample in assignment, NaN when it got stuck
+		 */
+		private double sample() {
+			for (int c = 0; c < open.length; c++) {
+				mines[c] = 0;
+				open[c] = part.constraintCells[c].length;
+			}
+			Arrays.fill(pending, (byte) 0);
+			Arrays.fill(assigned, false);
+
+			double logWeight = 0;
+
+			for (int v = 0; v < assignment.length; v++) {
+				if (pending[v] != 0) {
+					continue;
+				}
+
+				boolean mine = fits(v, true);
+				boolean safe = fits(v, false);
+
+				if (mine && safe) {
+					mine = random.nextDouble() < part.density;
+					logWeight -= Math.log(mine ? part.density : 1 - part.density);
+				}
+				else if (!mine && !safe) {
+					return Double.NaN;
+				}
+
+				if (!propagate(v, mine)) {
+					return Double.NaN;
+				}
+			}
+
+			return logWeight;
+		}
+
+		/**
+		 * Assigns the cell, and the cells which are forced by a constraint which became tight
+		 * @return false on a contradiction
+		 */
+		private boolean propagate(int v, boolean mine) {
+			int top = 0;
+			stack[top++] = v;
+			pending[v] = mine ? MINE : SAFE;
+
+			while (top > 0) {
+				int u = stack[--top];
+				boolean uMine = pending[u] == MINE;
+
+				if (!fits(u, uMine)) {
+					return false;
+				}
+
+				assignment[u] = uMine;
+				assigned[u] = true;
+
+				for (int c : part.cellConstraints[u]) {
+					open[c]--;
+					if (uMine) mines[c]++;
+				}
+
+				for (int c : part.cellConstraints[u]) {
+					byte forced = mines[c] == part.values[c] ? SAFE : mines[c] + open[c] == part.values[c] ? MINE : 0;
+
+					if (forced == 0 || open[c] == 0) {
+						continue;
+					}
+
+					for (int w : part.constraintCells[c]) {
+						if (assigned[w]) {
+							continue;
+						}
+
+						if (pending[w] == 0) {
+							pending[w] = forced;
+							stack[top++] = w;
+						}
+						else if (pending[w] != forced) {
+							return false;
+						}
+					}
+				}
+			}
+
+			return true;
+		}
+
+		/**
+		 * The constraints of the cell can still be satisfied when it is assigned so
+		 */
+		private boolean fits(int v, boolean mine) {
+			int add = mine ? 1 : 0;
+
+			for (int c : part.cellConstraints[v]) {
+				int m = mines[c] + add;
+
+				if (m > part.values[c] || m + open[c] - 1 < part.values[c]) {
+					return false;
+				}
+			}
+
+			return true;
+		}
+	}
+
+	private static class UnionFind {
+		private final int[] parent;
+
+		UnionFind(int size) {
+			parent = new int[size];
+
+			for (int i = 0; i < size; i++) {
+				parent[i] = i;
+			}
+		}
+
+		int find(int i) {
+			while (parent[i] != i) {
+				parent[i] = parent[parent[i]];
+				i = parent[i];
+			}
+
+			return i;
+		}
+
+		void union(int a, int b) {
+			parent[find(a)] = find(b);
+		}
+	}
+}
@@ -0,0 +1,128 @@
+package hu.bp.minesweeper.core;
+
+import java.util.Arrays;
+
+/**
+ * Selects "length" pieces of unique random numbers from between 0 and bound - 1,
+ * without touching all the bound numbers when it is not needed.
+ *
+ * - sparse boards: Floyd's algorithm with a primitive open addressing hash set, O(length)
+ *   time and memory
+ * - dense boards: partial Fisher-Yates shuffle of an int[bound], only the first length
+ *   positions are shuffled
+ */
+public class MineSampler {
+	/**
+	 * Partial Fisher-Yates is used when length * DENSE_RATIO >= bound
+	 */
+	public static final int DENSE_RATIO = 8;
+
+	private MineSampler() {}
+
+	/**
+	 * Chooses the algorithm by the density. The result is not sorted.
+	 * @param bound
+	 * @param length it is truncated to bound
+	 * @param random
+	 * @return
+	 */
+	public static int[] sample(int bound, int length, SplitRandom random) {
+		length = Math.max(0, Math.min(bound, length));
+
+		if ((long) length * DENSE_RATIO >= bound) {
+			return partialFisherYates(bound, length, random);
+		}
+
+		return floyd(bound, length, random);
+	}
+
+	/**
+	 * Floyd's algorithm: for j from bound - length to bound - 1 choose t from [0, j], if t is
+	 * already selected, select j instead. Every subset has the same probability.
+	 * @param bound
+	 * @param length should not be greater than bound
+	 * @param random
+	 * @return
+	 */
+	public static int[] floyd(int bound, int length, SplitRandom random) {
+		int[] selected = new int[length];
+		IntHashSet set = new IntHashSet(length);
+
+		int n = 0;
+		for (int j = bound - length; j < bound; j++) {
+			int t = random.nextInt(j + 1);
+
+			if (set.add(t)) {
+				selected[n++] = t;
+			}
+			else {
+				set.add(j);
+				selected[n++] = j;
+			}
+		}
+
+		return selected;
+	}
+
+	/**
+	 * Shuffles only the first length positions of 0..bound-1
+	 * @param bound
+	 * @param length should not be greater than bound
+	 * @param random
+	 * @return
+	 */
+	public static int[] partialFisherYates(int bound, int length, SplitRandom random) {
+		int[] numbers = new int[bound];
+		for (int i = 0; i < bound; i++) {
+			numbers[i] = i;
+		}
+
+		for (int i = 0; i < length; i++) {
+			int j = i + random.nextInt(bound - i);
+			int tmp = numbers[i];
+			numbers[i] = numbers[j];
+			numbers[j] = tmp;
+		}
+
+		return length == bound ? numbers : Arrays.copyOf(numbers, length);
+	}
+
+	/**
+	 * Insert-only set of non-negative ints with linear probing
+	 */
+	private static class IntHashSet {
+		private static final int EMPTY = -1;
+
+		private final int[] table;
+		private final int mask;
+		private final int shift;
+
+		IntHashSet(int expectedSize) {
+			int capacity = Integer.highestOneBit(Math.max(2, expectedSize) * 2 - 1) << 1;
+			this.table = new int[capacity];
+			this.mask = capacity - 1;
+			this.shift = 32 - Integer.numberOfTrailingZeros(capacity);
+			Arrays.fill(table, EMPTY);
+		}
+
+		/**
+		 * @param value
+		 * @return true when the value was not in the set
+		 */
+		boolean add(int value) {
+			int i = (value * 0x9e3779b9) >>> shift;
+
+			while (table[i] != EMPTY) {
+				if (table[i] == value) {
+					return false;
+				}
+
+				i = (i + 1) & mask;
+			}
+
+			table[i] = value;
+
+			return true;
+		}
+	}
+}
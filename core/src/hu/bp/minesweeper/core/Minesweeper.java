@@ -1,5 +1,6 @@
 package hu.bp.minesweeper.core;
 
+import java.io.IOException;
 import java.util.*;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
@@ -28,6 +29,23 @@ public class Minesweeper {
 	 */
 	public static final String STR_ZEO = "_";
 
+	private static final Metrics.Histogram GENERATION = Metrics.timer("generation");
+
+	/**
+	 * Algorithms for computing the numbers in the bombs-neighbourhood cells. They give the same results,
+	 * STREAM is the original one, it is kept for verification.
+	 */
+	public enum NeighbourCounting {
+		/**
+		 * Stream pipeline over the neighbourhoods of the bombs, O(bombs * bombs)
+		 */
+		STREAM,
+		/**
+		 * Bit-sliced adders over long[] bit rows, O(rows * cols / 64), see BitsetNeighbourCounter
+		 */
+		BITSET
+	}
+
 	/**
 	 * Don't instantiate this class, use the create* factory methods
 	 */
@@ -55,9 +73,80 @@ public class Minesweeper {
 	 * @return
 	 */
 	public static MinesweeperData createMinesweeperData(int rows, int cols, int numberOfBombs) {
-		List<Integer> bombs = getUniqueRandoms(rows * cols, numberOfBombs);
+		return createMinesweeperData(rows, cols, numberOfBombs, SplitRandom.create().seed);
+	}
 
-		return createMinesweeperData(rows, cols, bombs);
+	/**
+	 * Same as createMinesweeperData(rows, cols, numberOfBombs), but the same seed always gives the same grid.
+	 * The seed is kept in MinesweeperData.seed.
+	 * @param rows
+	 * @param cols
+	 * @param numberOfBombs
+	 * @param seed
+	 * @return
+	 */
+	public static MinesweeperData createMinesweeperData(int rows, int cols, int numberOfBombs, long seed) {
+		return createMinesweeperData(rows, cols, numberOfBombs, seed, -1);
+	}
+
+	/**
+	 * Same as createMinesweeperData(rows, cols, numberOfBombs, seed), but the safe cell is never a bomb:
+	 * the bombs are sampled from the other cells. It is kept in MinesweeperData.safeCell.
+	 * @param rows
+	 * @param cols
+	 * @param numberOfBombs at most rows * cols - 1 when there is a safe cell
+	 * @param seed
+	 * @param safeCell linear coordinate, e.g. the first click, or -1
+	 * @return
+	 */
+	public static MinesweeperData createMinesweeperData(int rows, int cols, int numberOfBombs, long seed, int safeCell) {
+		if (safeCell < -1 || safeCell >= rows * cols) {
+			throw new IllegalArgumentException("safeCell is out of the board: " + safeCell);
+		}
+
+		long start = Metrics.start();
+		Object span = Tracing.beginGeneration();
+		int[] bombs;
+
+		if (safeCell < 0) {
+			bombs = getUniqueRandoms(rows * cols, numberOfBombs, new SplitRandom(seed));
+		}
+		else {
+			// sampled from rows * cols - 1 cells, the cells from the safe cell are shifted by one
+			bombs = getUniqueRandoms(rows * cols - 1, numberOfBombs, new SplitRandom(seed));
+
+			for (int i = 0; i < bombs.length; i++) {
+				if (bombs[i] >= safeCell) {
+					bombs[i]++;
+				}
+			}
+		}
+
+		MinesweeperData data = new MinesweeperData(BitsetNeighbourCounter.createBoard(rows, cols, bombs), seed, safeCell, "");
+		Tracing.endGeneration(span, rows, cols, numberOfBombs);
+		GENERATION.stop(start);
+
+		return data;
+	}
+
+	/**
+	 * Same as createMinesweeperData(rows, cols, numberOfBombs), the bombs are chosen by the given generator.
+	 * For a batch of grids use random.split(n) for the n-th grid, so any of them can be reproduced alone.
+	 * @param rows
+	 * @param cols
+	 * @param numberOfBombs
+	 * @param random
+	 * @return
+	 */
+	public static MinesweeperData createMinesweeperData(int rows, int cols, int numberOfBombs, SplitRandom random) {
+		long start = Metrics.start();
+		Object span = Tracing.beginGeneration();
+		int[] bombs = getUniqueRandoms(rows * cols, numberOfBombs, random);
+		MinesweeperData data = new MinesweeperData(BitsetNeighbourCounter.createBoard(rows, cols, bombs));
+		Tracing.endGeneration(span, rows, cols, numberOfBombs);
+		GENERATION.stop(start);
+
+		return data;
 	}
 
 	/**
@@ -69,36 +158,65 @@ public class Minesweeper {
 	 * @return
 	 */
 	public static MinesweeperData createMinesweeperData(int rows, int cols, List<Integer> bombs) {
-		Map<Integer, Long> bombsNeighboursWithCounts = getBombsNeighboursWithCounts(rows, cols, bombs);
+		return createMinesweeperData(rows, cols, bombs, NeighbourCounting.BITSET);
+	}
 
-		return new MinesweeperData(rows, cols, bombs, bombsNeighboursWithCounts);
+	/**
+	 * Same as createMinesweeperData(rows, cols, bombs) but the neighbourhood counting algorithm can be chosen.
+	 * @param rows
+	 * @param cols
+	 * @param bombs
+	 * @param counting
+	 * @return
+	 */
+	public static MinesweeperData createMinesweeperData(int rows, int cols, List<Integer> bombs, NeighbourCounting counting) {
+		if (counting == NeighbourCounting.BITSET) {
+			return new MinesweeperData(BitsetNeighbourCounter.createBoard(rows, cols, bombs));
+		}
+
+		Map<Integer, Long> bombsNeighboursWithCounts = getBombsNeighboursWithCounts(rows, cols, bombs, counting);
+
+		return new MinesweeperData(Board.fromCounts(rows, cols, bombs, bombsNeighboursWithCounts));
 	}
 
 	/**
 	 * Generates "length" pieces of unique random numbers which are from between 0 and bound - 1.
 	 * Unique means, that the number will not be repeated.
 	 *
-	 * This method uses this algorithm:
-	 * - generating numbers from 0 to bound -1
-	 * - stands them in random order
-	 * - selects the first "length" pieces.
-	 *
-	 * I know a better algorithm which takes exactly bound steps:
-	 * for ( i = 0; i < bound; i++) {
-	 *
-	 * }
+	 * See getUniqueRandoms(bound, length, random), this one uses a randomly seeded generator
+	 * and boxes the result.
 	 *
 	 * @param bound
 	 * @param length
 	 * @return
 	 */
 	public static List<Integer> getUniqueRandoms(int bound, int length) {
-		List<Integer> numbersUpToBound = IntStream.range(0, bound).boxed().collect(Collectors.toList());
-		Collections.shuffle(numbersUpToBound);
+		int[] randoms = getUniqueRandoms(bound, length, SplitRandom.create());
+		List<Integer> list = new ArrayList<>(randoms.length);
 
-		length = Math.min(bound, length);
+		for (int random : randoms) {
+			list.add(random);
+		}
 
-		return numbersUpToBound.subList(0, length);
+		return list;
+	}
+
+	/**
+	 * Generates "length" pieces of unique random numbers which are from between 0 and bound - 1.
+	 *
+	 * It does not generate all the numbers up to bound when length is small:
+	 * - sparse: Floyd's algorithm, it takes O(length) steps and memory
+	 * - dense: the first length elements of a Fisher-Yates shuffle of 0..bound-1
+	 * See MineSampler.
+	 *
+	 * The numbers are not sorted. length is truncated to bound.
+	 * @param bound
+	 * @param length
+	 * @param random
+	 * @return
+	 */
+	public static int[] getUniqueRandoms(int bound, int length, SplitRandom random) {
+		return MineSampler.sample(bound, length, random);
 	}
 
 	/**
@@ -189,14 +307,36 @@ public class Minesweeper {
 	 * Imagine, that one of the bomb's neighbourhood cell may contain another bomb.
 	 * In this case, this cell should not be in the list, so
 	 * filter out the bomb-cells from the neighbourhood cells.
+	 *
+	 * These steps are the NeighbourCounting.STREAM algorithm. This method uses NeighbourCounting.BITSET,
+	 * which gives the same counts from the bit rows of the bombs.
 	 * @param rows
 	 * @param cols
 	 * @param bombs
-	 * @return
+	 * @return a read-only view, the non-bomb cells with at least one bomb neighbour and their counts
 	 */
 	public static Map<Integer, Long> getBombsNeighboursWithCounts(int rows, int cols, List<Integer> bombs) {
+		return getBombsNeighboursWithCounts(rows, cols, bombs, NeighbourCounting.BITSET);
+	}
+
+	/**
+	 * Same as getBombsNeighboursWithCounts(rows, cols, bombs) but the algorithm can be chosen.
+	 * The BITSET result is a read-only view of a packed Board.
+	 * @param rows
+	 * @param cols
+	 * @param bombs
+	 * @param counting
+	 * @return
+	 */
+	public static Map<Integer, Long> getBombsNeighboursWithCounts(int rows, int cols, List<Integer> bombs, NeighbourCounting counting) {
+		if (counting == NeighbourCounting.BITSET) {
+			return BitsetNeighbourCounter.createBoard(rows, cols, bombs).neighbourCountsView();
+		}
+
+		Geometry geometry = Geometry.of(rows, cols);
+
 		return bombs.stream().
-				map(linearCoord -> Coord.createCoord(rows, cols, linearCoord)).
+				map(linearCoord -> Coord.createCoord(geometry, linearCoord)).
 				flatMap(coord -> coord.neighbours.stream()).
 				filter(linearCoord -> !bombs.contains(linearCoord)).
 				collect(Collectors.groupingBy(Integer::new, counting()));
@@ -230,9 +370,14 @@ public class Minesweeper {
 	 * @return
 	 */
 	public static Integer[] getLinearGrid(MinesweeperData data) {
-		return IntStream.range(0, data.BOUND).boxed().
-				map(cell -> cellMapper(cell, data.bombs, data.bombsNeighboursWithCounts)).
-				toArray(Integer[]::new);
+		Board board = data.board;
+		Integer[] grid = new Integer[board.bound];
+
+		for (int i = 0; i < board.bound; i++) {
+			grid[i] = board.get(i);
+		}
+
+		return grid;
 	}
 
 	/**
@@ -244,24 +389,21 @@ public class Minesweeper {
 	 * @param data
 	 * @return
 	 */
-	//TODO: more clever with stream grid output not forEach
 	public static Integer[][] getIntegerGrid(MinesweeperData data) {
-		Integer[] linearGrid = getLinearGrid(data);
-
-		Integer[][] grid = new Integer[data.ROWS][data.COLS];
+		Board board = data.board;
+		Integer[][] grid = new Integer[board.rows][board.cols];
 
-		IntStream.range(0, data.BOUND).forEach(i ->
-			{
-				Coord c = Coord.createCoord(data.ROWS, data.COLS, i);
-				grid[c.row][c.col] = linearGrid[i] == null ? 0 : linearGrid[i];
+		for (int r = 0; r < board.rows; r++) {
+			for (int c = 0; c < board.cols; c++) {
+				grid[r][c] = board.get(r, c);
 			}
-		);
+		}
 
 		return grid;
 	}
 
 	/**
-	 * Maps a cell value to its string value
+	 * Maps a cell value to its string value, GridRenderer.glyph() gives it without creating a String
 	 * @param cellValue
 	 * @return
 	 */
@@ -284,15 +426,17 @@ public class Minesweeper {
 	 * @return
 	 */
 	public static String getStringGrid(MinesweeperData data) {
-		Integer[][] intGrid = getIntegerGrid(data);
-
-		return
-			Arrays.stream(intGrid).
-					map(
-						intArr -> Arrays.stream(intArr).
-								map(intCell -> cellToStringMapper(intCell)).
-								collect(Collectors.joining(""))
-					).
-					collect(Collectors.joining("\n"));
+		Board board = data.board;
+		StringBuilder sb = new StringBuilder(board.bound + board.rows);
+
+		try {
+			new GridRenderer().render(board, sb);
+		}
+		catch (IOException e) {
+			// StringBuilder does not throw it
+			throw new IllegalStateException(e);
+		}
+
+		return sb.toString();
 	}
 }
@@ -24,30 +24,66 @@ public class MinesweeperData {
 	public final int BOUND;
 
 	/**
-	 * the bombs linear coordinates
+	 * packed cell values, the other fields are views of this
+	 */
+	public final Board board;
+
+	/**
+	 * the bombs linear coordinates in ascending order (read-only view of the board)
 	 */
 	public final List<Integer> bombs;
 
 	/**
 	 * Map<LinearCoordinate, number of neighbourhood bombs>
-	 * The cells which have non-zero value and not bombs
+	 * The cells which have non-zero value and not bombs (read-only view of the board)
 	 */
 	public final Map<Integer, Long> bombsNeighboursWithCounts;
 
+	/**
+	 * seed of the bombs, the same grid is given by
+	 * Minesweeper.createMinesweeperData(ROWS, COLS, bombs.size(), seed, safeCell).
+	 * null when the grid was not created from a seed
+	 */
+	public final Long seed;
+
+	/**
+	 * the cell which was left out of the bomb sampling (e.g. the first click), -1 when there is none
+	 */
+	public final int safeCell;
+
 	/**
 	 * free-form string. Mainly for debugging
 	 */
 	public final String description;
 
-	public MinesweeperData(int rows, int cols, List<Integer> bombs, Map<Integer, Long> bombsNeighboursWithCounts, String description) {
-		this.ROWS = rows;
-		this.COLS = cols;
-		this.BOUND = rows * cols;
-		this.bombs = bombs;
-		this.bombsNeighboursWithCounts = bombsNeighboursWithCounts;
+	public MinesweeperData(Board board, Long seed, int safeCell, String description) {
+		this.ROWS = board.rows;
+		this.COLS = board.cols;
+		this.BOUND = board.bound;
+		this.board = board;
+		this.bombs = board.bombsView();
+		this.bombsNeighboursWithCounts = board.neighbourCountsView();
+		this.seed = seed;
+		this.safeCell = safeCell;
 		this.description = description;
 	}
 
+	public MinesweeperData(Board board, Long seed, String description) {
+		this(board, seed, -1, description);
+	}
+
+	public MinesweeperData(Board board, String description) {
+		this(board, null, description);
+	}
+
+	public MinesweeperData(Board board) {
+		this(board, "");
+	}
+
+	public MinesweeperData(int rows, int cols, List<Integer> bombs, Map<Integer, Long> bombsNeighboursWithCounts, String description) {
+		this(Board.fromCounts(rows, cols, bombs, bombsNeighboursWithCounts), description);
+	}
+
 	public MinesweeperData(int rows, int cols, List<Integer> bombs, Map<Integer, Long> bombsNeighboursWithCounts) {
 		this(rows, cols, bombs, bombsNeighboursWithCounts, "");
 	}
@@ -0,0 +1,296 @@
+package hu.bp.minesweeper.core;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * State of a game on a Board: the state of every cell (FloodReveal.HIDDEN, REVEALED, FLAGGED in a
+ * byte array), the number of safe cells which are still hidden and the number of flags.
+ *
+ * The game is won when no safe cell is hidden and lost when a bomb is revealed, both are O(1) checks.
+ * A cell is revealed only when it is hidden, so it is counted once.
+ *
+ * Every move which changes cells notifies the listeners once, with the changed cells as runs of
+ * linear coordinates (getChangeCount(), getChangeStart(i), getChangeLength(i)), so a zero opening
+ * thousands of cells is one event. The moves do not allocate.
+ *
+ * The state of a game can be saved with snapshot() and set back with restore(), e.g. for seeking in
+ * a replay (MoveReplay).
+ *
+ * It is used from one thread (the render thread), it is not thread-safe.
+ */
+public class MinesweeperGame {
+	public enum Status {
+		PLAYING,
+		WON,
+		LOST
+	}
+
+	/**
+	 * Called after every move which changed cells. The change is read from the game.
+	 */
+	public interface Listener {
+		void cellsChanged(MinesweeperGame game);
+	}
+
+	/**
+	 * Copy of the state of a game, it can be restored into any game on the same board
+	 */
+	public static class Snapshot {
+		private final byte[] state;
+		private final int hiddenSafeCells;
+		private final int flags;
+		private final Status status;
+		private final int explodedCell;
+
+		private Snapshot(MinesweeperGame game) {
+			this.state = game.state.clone();
+			this.hiddenSafeCells = game.hiddenSafeCells;
+			this.flags = game.flags;
+			this.status = game.status;
+			this.explodedCell = game.explodedCell;
+		}
+	}
+
+	private static final Metrics.Histogram REVEAL = Metrics.timer("reveal");
+
+	public final Board board;
+
+	private final byte[] state;
+	private final FloodReveal reveal;
+	private final List<Listener> listeners = new ArrayList<>();
+
+	private int hiddenSafeCells;
+	private int flags;
+	private Status status = Status.PLAYING;
+	private int explodedCell = -1;
+
+	private boolean changeIsReveal;
+	private int changedCell;
+
+	private int moveCell = -1;
+	private boolean moveIsFlag;
+
+	/**
+	 * Span of the game for Tracing, until the game ends
+	 */
+	private Object trace;
+
+	public MinesweeperGame(Board board) {
+		this.board = board;
+		this.state = new byte[board.bound];
+		this.reveal = new FloodReveal(board, state);
+		this.hiddenSafeCells = board.bound - board.getNumberOfBombs();
+
+		if (hiddenSafeCells == 0) {
+			status = Status.WON;
+		}
+		else {
+			trace = Tracing.gameStarted(board.rows, board.cols, board.getNumberOfBombs());
+		}
+	}
+
+	public void addListener(Listener listener) {
+		listeners.add(listener);
+	}
+
+	public void removeListener(Listener listener) {
+		listeners.remove(listener);
+	}
+
+	/**
+	 * Reveals a hidden cell, a zero reveals its region like in the original game
+	 * @param linearCoord
+	 * @return number of revealed cells, 0 when the game is over or the cell is not hidden
+	 */
+	public int reveal(int linearCoord) {
+		if (status != Status.PLAYING || state[linearCoord] != FloodReveal.HIDDEN) {
+			return 0;
+		}
+
+		moveCell = linearCoord;
+		moveIsFlag = false;
+
+		if (board.isBomb(linearCoord)) {
+			state[linearCoord] = FloodReveal.REVEALED;
+			status = Status.LOST;
+			explodedCell = linearCoord;
+			Tracing.gameEnded(trace, status);
+			fireCell(linearCoord);
+
+			return 1;
+		}
+
+		long start = Metrics.start();
+		Object span = Tracing.beginReveal();
+		int revealed = reveal.reveal(linearCoord);
+		Tracing.endReveal(span, linearCoord, revealed);
+		REVEAL.stop(start);
+		hiddenSafeCells -= revealed;
+
+		if (hiddenSafeCells == 0) {
+			status = Status.WON;
+			Tracing.gameEnded(trace, status);
+		}
+
+		changeIsReveal = true;
+		fire();
+
+		return revealed;
+	}
+
+	/**
+	 * Flags a hidden cell or removes the flag
+	 * @param linearCoord
+	 * @return true when the state of the cell changed
+	 */
+	public boolean toggleFlag(int linearCoord) {
+		if (status != Status.PLAYING) {
+			return false;
+		}
+
+		if (state[linearCoord] == FloodReveal.HIDDEN) {
+			state[linearCoord] = FloodReveal.FLAGGED;
+			flags++;
+		}
+		else if (state[linearCoord] == FloodReveal.FLAGGED) {
+			state[linearCoord] = FloodReveal.HIDDEN;
+			flags--;
+		}
+		else {
+			return false;
+		}
+
+		moveCell = linearCoord;
+		moveIsFlag = true;
+		fireCell(linearCoord);
+
+		return true;
+	}
+
+	/**
+	 * Shows a cell after the end of the game, for the final animation. The counters do not
+	 * change and the listeners are not notified.
+	 * @param linearCoord
+	 */
+	public void show(int linearCoord) {
+		if (status == Status.PLAYING) {
+			throw new IllegalStateException("the game is not over");
+		}
+
+		state[linearCoord] = FloodReveal.REVEALED;
+	}
+
+	/**
+	 * Saves the state of the game, the listeners are not saved
+	 * @return
+	 */
+	public Snapshot snapshot() {
+		return new Snapshot(this);
+	}
+
+	/**
+	 * Sets back a saved state, the listeners are not notified
+	 * @param snapshot a snapshot of a game on the same board
+	 */
+	public void restore(Snapshot snapshot) {
+		if (snapshot.state.length != state.length) {
+			throw new IllegalArgumentException("the snapshot is of another board");
+		}
+
+		System.arraycopy(snapshot.state, 0, state, 0, state.length);
+		hiddenSafeCells = snapshot.hiddenSafeCells;
+		flags = snapshot.flags;
+		status = snapshot.status;
+		explodedCell = snapshot.explodedCell;
+		moveCell = -1;
+	}
+
+	public byte getState(int linearCoord) {
+		return state[linearCoord];
+	}
+
+	public Status getStatus() {
+		return status;
+	}
+
+	public boolean isOver() {
+		return status != Status.PLAYING;
+	}
+
+	/**
+	 * The revealed bomb, -1 when the game is not lost
+	 * @return
+	 */
+	public int getExplodedCell() {
+		return explodedCell;
+	}
+
+	/**
+	 * Number of safe cells which are still hidden (or flagged)
+	 * @return
+	 */
+	public int getHiddenSafeCells() {
+		return hiddenSafeCells;
+	}
+
+	public int getFlags() {
+		return flags;
+	}
+
+	/**
+	 * Number of bombs minus number of flags, like the counter of the original game
+	 * @return
+	 */
+	public int getRemainingBombs() {
+		return board.getNumberOfBombs() - flags;
+	}
+
+	/**
+	 * The cell of the last move which changed cells, -1 before the first move
+	 * @return
+	 */
+	public int getMoveCell() {
+		return moveCell;
+	}
+
+	/**
+	 * @return true when the last move was toggleFlag(), false when it was reveal()
+	 */
+	public boolean isMoveFlag() {
+		return moveIsFlag;
+	}
+
+	/**
+	 * Number of runs of changed cells of the last move
+	 * @return
+	 */
+	public int getChangeCount() {
+		return changeIsReveal ? reveal.getRunCount() : 1;
+	}
+
+	/**
+	 * Linear coordinate of the first cell of the index-th run, the cells of a run are in one row
+	 * @param index
+	 * @return
+	 */
+	public int getChangeStart(int index) {
+		return changeIsReveal ? reveal.getRunStart(index) : changedCell;
+	}
+
+	public int getChangeLength(int index) {
+		return changeIsReveal ? reveal.getRunLength(index) : 1;
+	}
+
+	private void fireCell(int linearCoord) {
+		changeIsReveal = false;
+		changedCell = linearCoord;
+		fire();
+	}
+
+	private void fire() {
+		for (int i = 0; i < listeners.size(); i++) {
+			listeners.get(i).cellsChanged(this);
+		}
+	}
+}
@@ -0,0 +1,165 @@
+package hu.bp.minesweeper.core;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only binary log of the moves of a game, see MoveLogWriter and MoveReplay.
+ *
+ * Header: the MAGIC bytes "MSML", the VERSION, rows, cols, the number of bombs and the safe cell + 1
+ * as unsigned varints (7 bits per byte, lowest group first, high bit = more bytes), then the seed of
+ * the board in 8 bytes big endian. The board is Minesweeper.createMinesweeperData(rows, cols, bombs,
+ * seed, safeCell). Version 1 logs have no safe cell, they are read too.
+ *
+ * Then one varint per move: (zigzag(cell - previous cell) << 2) | action, where the previous cell of
+ * the first move is 0. Consecutive moves are usually close, so most moves are 1 or 2 bytes.
+ *
+ * The END action closes the log with the final state of the game, for checking the replay:
+ * the status byte (ordinal of MinesweeperGame.Status), the hidden safe cells and the flags as varints,
+ * and the CRC32 of the cell states (4 bytes big endian). A log without END (e.g. the game was not
+ * finished) can be replayed but not checked.
+ *
+ * JVM only, it is excluded from the GWT module.
+ */
+public class MoveLogFormat {
+	public static final byte[] MAGIC = {'M', 'S', 'M', 'L'};
+
+	public static final int VERSION = 2;
+
+	public static final int REVEAL = 0;
+
+	public static final int FLAG = 1;
+
+	public static final int END = 2;
+
+	static final int ACTION_BITS = 2;
+
+	static final int ACTION_MASK = (1 << ACTION_BITS) - 1;
+
+	/**
+	 * Longest header: magic, 5 varints and the seed
+	 */
+	static final int MAX_HEADER_LENGTH = MAGIC.length + 5 * 5 + 8;
+
+	/**
+	 * Longest move: a 34 bits varint
+	 */
+	static final int MAX_MOVE_LENGTH = 5;
+
+	/**
+	 * Longest END record: the END varint, the status, 2 varints and the CRC
+	 */
+	static final int MAX_END_LENGTH = 1 + 1 + 2 * 5 + 4;
+
+	private MoveLogFormat() {}
+
+	static void writeHeader(ByteBuffer buffer, int rows, int cols, int bombs, int safeCell, long seed) {
+		buffer.put(MAGIC);
+		writeVarint(buffer, VERSION);
+		writeVarint(buffer, rows);
+		writeVarint(buffer, cols);
+		writeVarint(buffer, bombs);
+		writeVarint(buffer, safeCell + 1);
+		buffer.putLong(seed);
+	}
+
+	static void writeMove(ByteBuffer buffer, int previousCell, int cell, int action) {
+		int delta = cell - previousCell;
+
+		writeVarint(buffer, ((((long) delta << 1) ^ (delta >> 31)) & 0xFFFFFFFFL) << ACTION_BITS | action);
+	}
+
+	static void writeEnd(ByteBuffer buffer, MinesweeperGame game) {
+		writeVarint(buffer, END);
+		buffer.put((byte) game.getStatus().ordinal());
+		writeVarint(buffer, game.getHiddenSafeCells());
+		writeVarint(buffer, game.getFlags());
+		buffer.putInt(stateChecksum(game));
+	}
+
+	/**
+	 * Reads a move varint
+	 * @return the varint, -1 at the end of the buffer
+	 * @throws IOException when the last move is cut
+	 */
+	static long readMove(ByteBuffer buffer) throws IOException {
+		if (!buffer.hasRemaining()) {
+			return -1;
+		}
+
+		return readVarint(buffer);
+	}
+
+	static int action(long move) {
+		return (int) (move & ACTION_MASK);
+	}
+
+	static int cell(int previousCell, long move) {
+		int zigzag = (int) (move >>> ACTION_BITS);
+
+		return previousCell + ((zigzag >>> 1) ^ -(zigzag & 1));
+	}
+
+	/**
+	 * CRC32 of the states of the cells
+	 * @param game
+	 * @return
+	 */
+	public static int stateChecksum(MinesweeperGame game) {
+		CRC32 crc = new CRC32();
+		byte[] row = new byte[game.board.cols];
+
+		for (int r = 0, cell = 0; r < game.board.rows; r++) {
+			for (int c = 0; c < row.length; c++, cell++) {
+				row[c] = game.getState(cell);
+			}
+
+			crc.update(row, 0, row.length);
+		}
+
+		return (int) crc.getValue();
+	}
+
+	static void writeVarint(ByteBuffer buffer, long value) {
+		while ((value & ~0x7FL) != 0) {
+			buffer.put((byte) ((value & 0x7F) | 0x80));
+			value >>>= 7;
+		}
+
+		buffer.put((byte) value);
+	}
+
+	static long readVarint(ByteBuffer buffer) throws IOException {
+		long value = 0;
+
+		try {
+			for (int shift = 0; shift < 64; shift += 7) {
+				int b = buffer.get() & 0xFF;
+
+				value |= (long) (b & 0x7F) << shift;
+
+				if ((b & 0x80) == 0) {
+					return value;
+				}
+			}
+		}
+		catch (BufferUnderflowException e) {
+			throw new EOFException("the move log is cut");
+		}
+
+		throw new IOException("malformed varint");
+	}
+
+	static int readIntVarint(ByteBuffer buffer) throws IOException {
+		long value = readVarint(buffer);
+
+		if (value > Integer.MAX_VALUE) {
+			throw new IOException("too large value: " + value);
+		}
+
+		return (int) value;
+	}
+}
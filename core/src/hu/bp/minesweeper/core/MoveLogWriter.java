@@ -0,0 +1,136 @@
+package hu.bp.minesweeper.core;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Writes the moves of a game in the MoveLogFormat. Add it to the game as a listener, every move which
+ * changed cells is logged, and the END record is written and flushed when the game is over.
+ *
+ * The moves are collected in a buffer and written to the channel when it is full, at the end of the
+ * game and by flush(). Moves after the END record are ignored.
+ *
+ * JVM only, it is excluded from the GWT module.
+ */
+public class MoveLogWriter implements MinesweeperGame.Listener, Closeable, Flushable {
+	public static final int DEFAULT_BUFFER_SIZE = 1 << 12;
+
+	private final WritableByteChannel channel;
+	private final ByteBuffer buffer;
+
+	private int previousCell;
+	private boolean ended;
+
+	/**
+	 * Writes the header
+	 * @param channel
+	 * @param data the board, it should have a seed
+	 * @param bufferSize
+	 */
+	public MoveLogWriter(WritableByteChannel channel, MinesweeperData data, int bufferSize) {
+		if (data.seed == null) {
+			throw new IllegalArgumentException("the board was not created from a seed, it cannot be logged");
+		}
+
+		this.channel = channel;
+		this.buffer = ByteBuffer.allocate(Math.max(bufferSize, MoveLogFormat.MAX_HEADER_LENGTH + MoveLogFormat.MAX_END_LENGTH));
+
+		MoveLogFormat.writeHeader(buffer, data.ROWS, data.COLS, data.bombs.size(), data.safeCell, data.seed);
+	}
+
+	public MoveLogWriter(WritableByteChannel channel, MinesweeperData data) {
+		this(channel, data, DEFAULT_BUFFER_SIZE);
+	}
+
+	/**
+	 * Creates a new log file, an existing file is not overwritten
+	 * @param file
+	 * @param data
+	 * @return
+	 * @throws IOException
+	 */
+	public static MoveLogWriter create(Path file, MinesweeperData data) throws IOException {
+		return new MoveLogWriter(FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE), data);
+	}
+
+	/**
+	 * Logs the last move of the game, and the end of the game
+	 * @param game
+	 * @throws UncheckedIOException
+	 */
+	@Override
+	public void cellsChanged(MinesweeperGame game) {
+		try {
+			write(game.getMoveCell(), game.isMoveFlag() ? MoveLogFormat.FLAG : MoveLogFormat.REVEAL);
+
+			if (game.isOver()) {
+				end(game);
+			}
+		}
+		catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Logs a move
+	 * @param linearCoord
+	 * @param action MoveLogFormat.REVEAL or FLAG
+	 * @throws IOException
+	 */
+	public void write(int linearCoord, int action) throws IOException {
+		if (ended) {
+			return;
+		}
+
+		if (buffer.remaining() < MoveLogFormat.MAX_MOVE_LENGTH + MoveLogFormat.MAX_END_LENGTH) {
+			flush();
+		}
+
+		MoveLogFormat.writeMove(buffer, previousCell, linearCoord, action);
+		previousCell = linearCoord;
+	}
+
+	/**
+	 * Writes the final state of the game and flushes
+	 * @param game
+	 * @throws IOException
+	 */
+	public void end(MinesweeperGame game) throws IOException {
+		if (ended) {
+			return;
+		}
+
+		MoveLogFormat.writeEnd(buffer, game);
+		ended = true;
+		flush();
+	}
+
+	@Override
+	public void flush() throws IOException {
+		buffer.flip();
+
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+
+		buffer.clear();
+	}
+
+	@Override
+	public void close() throws IOException {
+		try {
+			flush();
+		}
+		finally {
+			channel.close();
+		}
+	}
+}
@@ -0,0 +1,330 @@
+package hu.bp.minesweeper.core;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Replays a game from a log in the MoveLogFormat, without any UI.
+ *
+ * The log is decoded once into an int per move, replaying is one reveal() or toggleFlag() per move.
+ * Every move of a log changed the game when it was recorded, so a move which does not change the
+ * replayed game means the log does not belong to this board or the game logic changed: it is an IOException.
+ *
+ * seek() gives the state after any move. The states after every snapshotInterval-th move are saved
+ * (MinesweeperGame.Snapshot) when they are first passed, so seeking restores the nearest snapshot
+ * and replays at most snapshotInterval - 1 moves. A snapshot is rows * cols bytes.
+ *
+ * JVM only, it is excluded from the GWT module.
+ */
+public class MoveReplay {
+	public static final int DEFAULT_SNAPSHOT_INTERVAL = 1024;
+
+	public final int rows;
+	public final int cols;
+	public final int bombs;
+	public final long seed;
+
+	/**
+	 * the cell which was left out of the bomb sampling, -1 when there is none
+	 */
+	public final int safeCell;
+
+	/**
+	 * cell << 1 | 1 for flags
+	 */
+	private final int[] moves;
+	private final int moveCount;
+
+	private final boolean ended;
+	private MinesweeperGame.Status endStatus;
+	private int endHiddenSafeCells;
+	private int endFlags;
+	private int endChecksum;
+
+	private final int snapshotInterval;
+	private final List<MinesweeperGame.Snapshot> snapshots = new ArrayList<>();
+
+	private MinesweeperData data;
+	private MinesweeperGame scratch;
+
+	/**
+	 * Decodes a log
+	 * @param buffer from its position to its limit
+	 * @param snapshotInterval
+	 * @throws IOException when the log is malformed
+	 */
+	public MoveReplay(ByteBuffer buffer, int snapshotInterval) throws IOException {
+		if (snapshotInterval < 1) {
+			throw new IllegalArgumentException("snapshotInterval should be positive: " + snapshotInterval);
+		}
+
+		this.snapshotInterval = snapshotInterval;
+
+		for (byte b : MoveLogFormat.MAGIC) {
+			if (buffer.remaining() == 0 || buffer.get() != b) {
+				throw new IOException("not a move log");
+			}
+		}
+
+		int version = MoveLogFormat.readIntVarint(buffer);
+		if (version != MoveLogFormat.VERSION && version != 1) {
+			throw new IOException("unsupported move log version: " + version);
+		}
+
+		rows = MoveLogFormat.readIntVarint(buffer);
+		cols = MoveLogFormat.readIntVarint(buffer);
+		bombs = MoveLogFormat.readIntVarint(buffer);
+		safeCell = version == 1 ? -1 : MoveLogFormat.readIntVarint(buffer) - 1;
+
+		if (rows <= 0 || cols <= 0 || (long) rows * cols > Integer.MAX_VALUE || bombs > rows * cols) {
+			throw new IOException("invalid board: " + rows + "x" + cols + " with " + bombs + " bombs");
+		}
+
+		if (safeCell >= rows * cols || (safeCell >= 0 && bombs == rows * cols)) {
+			throw new IOException("invalid safe cell: " + safeCell);
+		}
+
+		if (buffer.remaining() < Long.BYTES) {
+			throw new IOException("the move log is cut");
+		}
+		seed = buffer.getLong();
+
+		int bound = rows * cols;
+		int[] decoded = new int[Math.max(16, buffer.remaining())];
+		int count = 0;
+		int previousCell = 0;
+		boolean end = false;
+		long move;
+
+		while ((move = MoveLogFormat.readMove(buffer)) >= 0) {
+			int action = MoveLogFormat.action(move);
+
+			if (action == MoveLogFormat.END) {
+				readEnd(buffer);
+				end = true;
+				break;
+			}
+
+			int cell = MoveLogFormat.cell(previousCell, move);
+
+			if (action != MoveLogFormat.REVEAL && action != MoveLogFormat.FLAG) {
+				throw new IOException("unknown action " + action + " at move " + count);
+			}
+			if (cell < 0 || cell >= bound) {
+				throw new IOException("cell " + cell + " is out of the board at move " + count);
+			}
+
+			decoded[count++] = cell << 1 | action;
+			previousCell = cell;
+		}
+
+		this.moves = decoded;
+		this.moveCount = count;
+		this.ended = end;
+	}
+
+	public MoveReplay(ByteBuffer buffer) throws IOException {
+		this(buffer, DEFAULT_SNAPSHOT_INTERVAL);
+	}
+
+	/**
+	 * Reads a log file
+	 * @param file
+	 * @return
+	 * @throws IOException
+	 */
+	public static MoveReplay read(Path file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			if (channel.size() > Integer.MAX_VALUE) {
+				throw new IOException("too large move log: " + channel.size());
+			}
+
+			ByteBuffer buffer = ByteBuffer.allocate((int) channel.size());
+
+			while (buffer.hasRemaining()) {
+				if (channel.read(buffer) < 0) {
+					throw new EOFException("the move log was shortened while reading");
+				}
+			}
+
+			buffer.flip();
+
+			return new MoveReplay(buffer);
+		}
+	}
+
+	private void readEnd(ByteBuffer buffer) throws IOException {
+		if (!buffer.hasRemaining()) {
+			throw new IOException("the move log is cut");
+		}
+
+		int status = buffer.get();
+		if (status < 0 || status >= MinesweeperGame.Status.values().length) {
+			throw new IOException("unknown status: " + status);
+		}
+
+		endStatus = MinesweeperGame.Status.values()[status];
+		endHiddenSafeCells = MoveLogFormat.readIntVarint(buffer);
+		endFlags = MoveLogFormat.readIntVarint(buffer);
+
+		if (buffer.remaining() < Integer.BYTES) {
+			throw new IOException("the move log is cut");
+		}
+		endChecksum = buffer.getInt();
+
+		if (buffer.hasRemaining()) {
+			throw new IOException("data after the end of the game");
+		}
+	}
+
+	/**
+	 * The board of the game, it is generated from the seed at the first call
+	 * @return
+	 */
+	public MinesweeperData getData() {
+		if (data == null) {
+			data = Minesweeper.createMinesweeperData(rows, cols, bombs, seed, safeCell);
+		}
+
+		return data;
+	}
+
+	public int getMoveCount() {
+		return moveCount;
+	}
+
+	public int getMoveCell(int index) {
+		checkIndex(index, moveCount - 1);
+
+		return moves[index] >>> 1;
+	}
+
+	/**
+	 * @param index
+	 * @return true when the index-th move is toggleFlag(), false when it is reveal()
+	 */
+	public boolean isFlag(int index) {
+		checkIndex(index, moveCount - 1);
+
+		return (moves[index] & 1) != 0;
+	}
+
+	/**
+	 * @return true when the log has the final state of the game, so verify() can check it
+	 */
+	public boolean hasEnd() {
+		return ended;
+	}
+
+	/**
+	 * Replays all the moves on a new game
+	 * @return
+	 * @throws IOException when a move does not change the game
+	 */
+	public MinesweeperGame replay() throws IOException {
+		return seek(moveCount);
+	}
+
+	/**
+	 * The state after the given number of moves, on a new game
+	 * @param move 0..getMoveCount()
+	 * @return
+	 * @throws IOException when a move does not change the game
+	 */
+	public MinesweeperGame seek(int move) throws IOException {
+		MinesweeperGame game = new MinesweeperGame(getData().board);
+		seek(game, move);
+
+		return game;
+	}
+
+	/**
+	 * Sets the game to the state after the given number of moves. The listeners of the game are
+	 * notified only about the moves which are replayed after the restored snapshot.
+	 * @param game a game on the board of getData()
+	 * @param move 0..getMoveCount()
+	 * @throws IOException when a move does not change the game
+	 */
+	public void seek(MinesweeperGame game, int move) throws IOException {
+		checkIndex(move, moveCount);
+
+		int snapshot = move / snapshotInterval;
+		takeSnapshots(snapshot);
+
+		game.restore(snapshots.get(snapshot));
+		play(game, snapshot * snapshotInterval, move);
+	}
+
+	/**
+	 * Replays the whole game and checks its final state with the end of the log
+	 * @return the replayed game
+	 * @throws IOException when the log has no end, or the state is not the same
+	 */
+	public MinesweeperGame verify() throws IOException {
+		if (!ended) {
+			throw new IOException("the move log has no end, the game was not finished");
+		}
+
+		MinesweeperGame game = replay();
+
+		if (game.getStatus() != endStatus
+				|| game.getHiddenSafeCells() != endHiddenSafeCells
+				|| game.getFlags() != endFlags
+				|| MoveLogFormat.stateChecksum(game) != endChecksum) {
+			throw new IOException("the replayed game is " + game.getStatus() + " with " + game.getHiddenSafeCells()
+					+ " hidden safe cells and " + game.getFlags() + " flags, the log ends with " + endStatus + ", "
+					+ endHiddenSafeCells + " and " + endFlags + (MoveLogFormat.stateChecksum(game) != endChecksum
+					? ", and the cell states are different" : ""));
+		}
+
+		return game;
+	}
+
+	/**
+	 * Saves the snapshots up to the index-th one, by replaying from the last saved one
+	 */
+	private void takeSnapshots(int index) throws IOException {
+		if (snapshots.size() > index) {
+			return;
+		}
+
+		if (scratch == null) {
+			scratch = new MinesweeperGame(getData().board);
+			snapshots.add(scratch.snapshot());
+		}
+		else {
+			scratch.restore(snapshots.get(snapshots.size() - 1));
+		}
+
+		while (snapshots.size() <= index) {
+			int from = (snapshots.size() - 1) * snapshotInterval;
+
+			play(scratch, from, from + snapshotInterval);
+			snapshots.add(scratch.snapshot());
+		}
+	}
+
+	private void play(MinesweeperGame game, int from, int to) throws IOException {
+		for (int i = from; i < to; i++) {
+			int cell = moves[i] >>> 1;
+			boolean changed = (moves[i] & 1) != 0 ? game.toggleFlag(cell) : game.reveal(cell) > 0;
+
+			if (!changed) {
+				throw new IOException("move " + i + " (" + ((moves[i] & 1) != 0 ? "flag " : "reveal ") + cell
+						+ ") does not change the game");
+			}
+		}
+	}
+
+	private static void checkIndex(int index, int max) {
+		if (index < 0 || index > max) {
+			throw new IndexOutOfBoundsException("index: " + index + ", max: " + max);
+		}
+	}
+}
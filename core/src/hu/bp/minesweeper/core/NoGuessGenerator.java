@@ -0,0 +1,307 @@
+package hu.bp.minesweeper.core;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Generates boards which can be solved from a given first click without guessing (see NoGuessSolver).
+ *
+ * Random boards are tried on the fixed pool of worker threads of the generator until one of them is
+ * solvable or the time budget runs out. Every worker has its own NoGuessSolver and takes the next
+ * candidate index from a shared counter; the index-th candidate is
+ * Minesweeper.createMinesweeperData(rows, cols, bombs, s, firstClick), where s is the first long of
+ * new SplitRandom(seed).split(index), so every candidate (and the result) has a seed and can be
+ * reproduced alone. The first click is left out of the bomb sampling, no candidate is wasted on a bomb
+ * there. When a worker finds a solvable board, the others stop before their next candidate, and
+ * generate() returns when they stopped. When the budget runs out, the candidate with the fewest safe
+ * cells left hidden by the solver is returned, result.solvable is false.
+ * With one thread the result depends only on the seed, with more threads the fastest worker wins.
+ *
+ * Keep one generator for many boards, and close it at the end to stop its threads (they are daemons),
+ * but not while generate() runs. Overlapping generate() calls share the threads.
+ *
+ * A candidate takes about 0.1 ms. From the center cell, about every 65th expert board is solvable
+ * (so a board takes about 7 ms on one thread), and every 6th 16x16 board with 40 bombs.
+ *
+ * JVM only, it is excluded from the GWT module.
+ */
+public class NoGuessGenerator implements Closeable {
+	public static final long DEFAULT_BUDGET_MILLIS = 250;
+
+	/**
+	 * The board, and the statistics of a generate() call
+	 */
+	public static class Result {
+		/**
+		 * the solvable board, or the best candidate when the budget ran out
+		 */
+		public final MinesweeperData data;
+		public final int firstClick;
+		public final boolean solvable;
+
+		/**
+		 * safe cells left hidden by the solver on the board, 0 when it is solvable
+		 */
+		public final int hiddenSafeCells;
+
+		/**
+		 * index of the board among the candidates
+		 */
+		public final long index;
+
+		/**
+		 * number of checked candidates
+		 */
+		public final long candidates;
+		public final long nanos;
+		public final int threads;
+
+		/**
+		 * time of checking a candidate (generation and solving), of all the workers
+		 */
+		public final LatencyHistogram candidateTime;
+
+		public Result(MinesweeperData data, int firstClick, int hiddenSafeCells, long index, long candidates,
+				long nanos, int threads, LatencyHistogram candidateTime) {
+			this.data = data;
+			this.firstClick = firstClick;
+			this.solvable = hiddenSafeCells == 0;
+			this.hiddenSafeCells = hiddenSafeCells;
+			this.index = index;
+			this.candidates = candidates;
+			this.nanos = nanos;
+			this.threads = threads;
+			this.candidateTime = candidateTime;
+		}
+
+		@Override
+		public String toString() {
+			return String.format("%s board %d (seed %d, %d hidden safe cells) after %d candidates in %.3f ms on %d threads%n",
+					solvable ? "solvable" : "best", index, data.seed, hiddenSafeCells, candidates, nanos / 1e6, threads)
+					+ "candidate: " + candidateTime;
+		}
+	}
+
+	private final int threads;
+	private final long budgetNanos;
+	private final ExecutorService pool;
+
+	/**
+	 * @param threads
+	 * @param budgetMillis generate() returns after this time even when no solvable board was found
+	 */
+	public NoGuessGenerator(int threads, long budgetMillis) {
+		if (threads < 1 || budgetMillis < 0) {
+			throw new IllegalArgumentException("threads should be positive and budgetMillis not negative: "
+					+ threads + ", " + budgetMillis);
+		}
+
+		this.threads = threads;
+		this.budgetNanos = TimeUnit.MILLISECONDS.toNanos(budgetMillis);
+		this.pool = Executors.newFixedThreadPool(threads, runnable -> {
+			Thread thread = new Thread(runnable, "NoGuessGenerator");
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	/**
+	 * One thread per available processor, DEFAULT_BUDGET_MILLIS
+	 */
+	public NoGuessGenerator() {
+		this(Runtime.getRuntime().availableProcessors(), DEFAULT_BUDGET_MILLIS);
+	}
+
+	/**
+	 * Tries candidates until one is solvable from firstClick or the budget runs out. At least one
+	 * candidate is checked, even when the budget is 0.
+	 * @param rows
+	 * @param cols
+	 * @param bombs less than rows * cols
+	 * @param firstClick linear coordinate of the first reveal
+	 * @param seed
+	 * @return
+	 * @throws IllegalStateException after close()
+	 */
+	public Result generate(int rows, int cols, int bombs, int firstClick, long seed) {
+		if (firstClick < 0 || firstClick >= rows * cols) {
+			throw new IllegalArgumentException("firstClick is out of the board: " + firstClick);
+		}
+		if (bombs >= rows * cols) {
+			throw new IllegalArgumentException("there is no safe cell for the first click: " + bombs + " bombs");
+		}
+		if (pool.isShutdown()) {
+			throw new IllegalStateException("the generator is closed");
+		}
+
+		long start = System.nanoTime();
+		long deadline = start + budgetNanos;
+		SplitRandom root = new SplitRandom(seed);
+
+		AtomicLong next = new AtomicLong();
+		AtomicBoolean stop = new AtomicBoolean();
+		CountDownLatch found = new CountDownLatch(1);
+		CountDownLatch finished = new CountDownLatch(threads);
+		Best best = new Best();
+		List<Worker> workers = new ArrayList<>();
+
+		try {
+			for (int i = 0; i < threads; i++) {
+				Worker worker = new Worker(rows, cols, bombs, firstClick, root, deadline, next, stop, found, finished, best);
+				workers.add(worker);
+				pool.execute(worker);
+			}
+
+			found.await(budgetNanos, TimeUnit.NANOSECONDS);
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		finally {
+			stop.set(true);
+		}
+
+		// the losers stop before their next candidate, so the pool is free for the next call
+		boolean interrupted = false;
+
+		while (true) {
+			try {
+				finished.await();
+				break;
+			}
+			catch (InterruptedException e) {
+				interrupted = true;
+			}
+		}
+
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+		}
+
+		LatencyHistogram candidateTime = new LatencyHistogram();
+		for (Worker worker : workers) {
+			candidateTime.merge(worker.candidateTime);
+		}
+
+		Candidate result = best.get();
+
+		return new Result(result.data, firstClick, result.hiddenSafeCells, result.index, candidateTime.getCount(),
+				System.nanoTime() - start, threads, candidateTime);
+	}
+
+	/**
+	 * Stops the threads, generate() cannot be called after it
+	 */
+	@Override
+	public void close() {
+		pool.shutdownNow();
+	}
+
+	private static class Candidate {
+		final MinesweeperData data;
+		final int hiddenSafeCells;
+		final long index;
+
+		Candidate(MinesweeperData data, int hiddenSafeCells, long index) {
+			this.data = data;
+			this.hiddenSafeCells = hiddenSafeCells;
+			this.index = index;
+		}
+	}
+
+	/**
+	 * The candidate with the fewest hidden safe cells, the first solvable one is kept
+	 */
+	private static class Best {
+		private Candidate candidate;
+
+		synchronized void offer(MinesweeperData data, int hiddenSafeCells, long index) {
+			if (candidate == null || hiddenSafeCells < candidate.hiddenSafeCells) {
+				candidate = new Candidate(data, hiddenSafeCells, index);
+			}
+		}
+
+		synchronized Candidate get() {
+			return candidate;
+		}
+	}
+
+	private static class Worker implements Runnable {
+		private final int rows;
+		private final int cols;
+		private final int bombs;
+		private final int firstClick;
+		private final SplitRandom root;
+		private final long deadline;
+		private final AtomicLong next;
+		private final AtomicBoolean stop;
+		private final CountDownLatch found;
+		private final CountDownLatch finished;
+		private final Best best;
+
+		/**
+		 * read after finished, it is not shared while the worker runs
+		 */
+		final LatencyHistogram candidateTime = new LatencyHistogram();
+
+		Worker(int rows, int cols, int bombs, int firstClick, SplitRandom root, long deadline, AtomicLong next,
+				AtomicBoolean stop, CountDownLatch found, CountDownLatch finished, Best best) {
+			this.rows = rows;
+			this.cols = cols;
+			this.bombs = bombs;
+			this.firstClick = firstClick;
+			this.root = root;
+			this.deadline = deadline;
+			this.next = next;
+			this.stop = stop;
+			this.found = found;
+			this.finished = finished;
+			this.best = best;
+		}
+
+		@Override
+		public void run() {
+			try {
+				search();
+			}
+			finally {
+				finished.countDown();
+			}
+		}
+
+		private void search() {
+			NoGuessSolver solver = new NoGuessSolver(rows, cols);
+			int fewest = Integer.MAX_VALUE;
+
+			// the first candidate is checked anyway, so there is a result even with a zero budget
+			do {
+				long start = System.nanoTime();
+				long index = next.getAndIncrement();
+				MinesweeperData data = Minesweeper.createMinesweeperData(rows, cols, bombs, root.split(index).nextLong(),
+						firstClick);
+				int hidden = solver.solve(data.board, firstClick);
+
+				candidateTime.record(System.nanoTime() - start);
+
+				if (hidden < fewest) {
+					fewest = hidden;
+					best.offer(data, hidden, index);
+				}
+
+				if (hidden == 0) {
+					stop.set(true);
+					found.countDown();
+					return;
+				}
+			}
+			while (!stop.get() && System.nanoTime() - deadline < 0);
+		}
+	}
+}
@@ -0,0 +1,388 @@
+package hu.bp.minesweeper.core;
+
+import java.util.Arrays;
+
+/**
+ * Checks whether a board can be solved without guessing from a first click, by playing it with
+ * local rules only. It is fast enough to be called in a generation loop (a 30x16 board with 99 bombs
+ * takes about 0.1 ms), and it does not allocate after its stack has grown, so keep one per board size.
+ *
+ * Every revealed number is a constraint: need (its value minus the known mines around it) mines are
+ * in its unknown (hidden, not known mine) neighbours. The rules:
+ * - single cell: when need is 0, the unknown neighbours are safe, when need is the number of unknown
+ *   neighbours, they are mines;
+ * - pairs: two constraints which share unknown cells (they are at most two cells apart). The shared
+ *   cells have between max(0, need - only own cells) and min(shared, need) mines for both of them,
+ *   so when the rest of one constraint needs all or none of its own cells, they are mines or safe.
+ *   This covers the subset rule (one constraint is inside the other) and the 1-2 patterns.
+ * Safe cells are revealed (zeros are flooded like in the game), mines are marked as FLAGGED.
+ *
+ * The constraints which may give something are in a worklist: a revealed number, and the neighbours
+ * of a cell which was revealed or marked. So a reveal re-evaluates only the affected constraints.
+ * The pair rule is tried only when the single cell rules have nothing to do, they are cheaper.
+ * The total number of bombs is not used, it is not a local rule.
+ */
+public class NoGuessSolver {
+	public final int rows;
+	public final int cols;
+
+	private final Geometry geometry;
+
+	/**
+	 * FloodReveal.HIDDEN, REVEALED, or FLAGGED for the known mines
+	 */
+	private final byte[] state;
+
+	/**
+	 * of the revealed numbers: mines needed in the unknown neighbours, and the number of them
+	 */
+	private final int[] need;
+	private final int[] unknown;
+
+	/**
+	 * ring buffers of the constraints to check with the single cell rules, and of those which did not
+	 * give anything, for the pair rule. Every cell is in a queue at most once.
+	 */
+	private final Queue singles;
+	private final Queue pairs;
+
+	private int[] stack;
+
+	private final int[] updated = new int[8];
+	private final int[] targets = new int[8];
+
+	private Board board;
+	private int revealed;
+	private int mines;
+
+	public NoGuessSolver(int rows, int cols) {
+		this.rows = rows;
+		this.cols = cols;
+		this.geometry = Geometry.of(rows, cols);
+
+		int bound = rows * cols;
+		this.state = new byte[bound];
+		this.need = new int[bound];
+		this.unknown = new int[bound];
+		this.singles = new Queue(bound);
+		this.pairs = new Queue(bound);
+		this.stack = new int[64];
+	}
+
+	/**
+	 * Solves a board without guessing
+	 * @param board
+	 * @param firstClick
+	 * @return true when every safe cell is revealed from the first click
+	 */
+	public static boolean isSolvable(Board board, int firstClick) {
+		return new NoGuessSolver(board.rows, board.cols).solve(board, firstClick) == 0;
+	}
+
+	/**
+	 * Reveals the first click and applies the rules while they give something. The final state can be
+	 * queried with getState().
+	 * @param board rows x cols
+	 * @param firstClick
+	 * @return number of safe cells which are still hidden, 0 when the board can be solved without guessing
+	 */
+	public int solve(Board board, int firstClick) {
+		if (board.rows != rows || board.cols != cols) {
+			throw new IllegalArgumentException("the board is " + board.rows + "x" + board.cols
+					+ ", the solver is " + rows + "x" + cols);
+		}
+
+		this.board = board;
+		Arrays.fill(state, FloodReveal.HIDDEN);
+		singles.clear();
+		pairs.clear();
+		revealed = 0;
+		mines = 0;
+
+		if (!board.isBomb(firstClick)) {
+			reveal(firstClick);
+
+			while (singles.size > 0 || pairs.size > 0) {
+				if (singles.size > 0) {
+					check(singles.poll());
+				}
+				else {
+					int cell = pairs.poll();
+
+					if (unknown[cell] > 0) {
+						checkPairs(cell);
+					}
+				}
+			}
+		}
+
+		return board.bound - board.getNumberOfBombs() - revealed;
+	}
+
+	/**
+	 * @param linearCoord
+	 * @return FloodReveal.HIDDEN, REVEALED or FLAGGED (a mine found by the rules), after the last solve()
+	 */
+	public byte getState(int linearCoord) {
+		return state[linearCoord];
+	}
+
+	/**
+	 * Number of cells revealed by the last solve()
+	 * @return
+	 */
+	public int getRevealedCells() {
+		return revealed;
+	}
+
+	/**
+	 * Number of mines found by the last solve()
+	 * @return
+	 */
+	public int getFoundMines() {
+		return mines;
+	}
+
+	private void check(int cell) {
+		if (unknown[cell] <= 0) {
+			return;
+		}
+
+		if (need[cell] == 0 || need[cell] == unknown[cell]) {
+			boolean mine = need[cell] != 0;
+			int count = collect(cell, -2, -2);
+
+			for (int k = 0; k < count; k++) {
+				settle(targets[k], mine);
+			}
+
+			return;
+		}
+
+		pairs.offer(cell);
+	}
+
+	/**
+	 * The pair rule with the constraints at most two cells away
+	 */
+	private void checkPairs(int cell) {
+		int row = cell / cols;
+		int col = cell - row * cols;
+
+		for (int r = Math.max(0, row - 2); r <= Math.min(rows - 1, row + 2); r++) {
+			for (int c = Math.max(0, col - 2); c <= Math.min(cols - 1, col + 2); c++) {
+				int other = r * cols + c;
+
+				if (other == cell || state[other] != FloodReveal.REVEALED || unknown[other] <= 0) {
+					continue;
+				}
+
+				// the hidden cells in both 3x3 boxes
+				int shared = 0;
+
+				for (int sharedRow = Math.max(row, r) - 1; sharedRow <= Math.min(row, r) + 1; sharedRow++) {
+					if (sharedRow < 0 || sharedRow >= rows) continue;
+
+					for (int sharedCol = Math.max(col, c) - 1; sharedCol <= Math.min(col, c) + 1; sharedCol++) {
+						if (sharedCol >= 0 && sharedCol < cols && state[sharedRow * cols + sharedCol] == FloodReveal.HIDDEN) {
+							shared++;
+						}
+					}
+				}
+
+				if (shared == 0) {
+					continue;
+				}
+
+				int own = unknown[cell] - shared;
+				int otherOwn = unknown[other] - shared;
+				int most = Math.min(shared, Math.min(need[cell], need[other]));
+				int least = Math.max(0, Math.max(need[cell] - own, need[other] - otherOwn));
+
+				if (settleOwn(other, row, col, otherOwn, need[other] - most, need[other] - least)
+						|| settleOwn(cell, r, c, own, need[cell] - most, need[cell] - least)) {
+					// the counts changed, the changed constraints are queued again
+					return;
+				}
+			}
+		}
+	}
+
+	/**
+	 * When the own cells (not next to the other constraint) of the constraint need all or none of them
+	 * @param minMines the own cells have at least this many mines (need - the most mines shared)
+	 * @param maxMines at most this many (need - the least mines shared)
+	 * @return true when something was settled
+	 */
+	private boolean settleOwn(int cell, int otherRow, int otherCol, int own, int minMines, int maxMines) {
+		if (own == 0 || (minMines != own && maxMines != 0)) {
+			return false;
+		}
+
+		boolean mine = minMines == own;
+		int count = collect(cell, otherRow, otherCol);
+
+		for (int k = 0; k < count; k++) {
+			settle(targets[k], mine);
+		}
+
+		return true;
+	}
+
+	/**
+	 * Copies the hidden neighbours of the cell which are not next to the other constraint into targets
+	 * @param otherRow -2, -2 when there is no other constraint, it is next to none of the cells
+	 */
+	private int collect(int cell, int otherRow, int otherCol) {
+		int row = cell / cols;
+		int col = cell - row * cols;
+		int collected = 0;
+
+		for (int r = Math.max(0, row - 1); r <= Math.min(rows - 1, row + 1); r++) {
+			for (int c = Math.max(0, col - 1); c <= Math.min(cols - 1, col + 1); c++) {
+				int neighbour = r * cols + c;
+
+				if (state[neighbour] == FloodReveal.HIDDEN && (Math.abs(r - otherRow) > 1 || Math.abs(c - otherCol) > 1)) {
+					targets[collected++] = neighbour;
+				}
+			}
+		}
+
+		return collected;
+	}
+
+	private void settle(int cell, boolean mine) {
+		if (state[cell] != FloodReveal.HIDDEN) {
+			return;
+		}
+
+		if (mine) {
+			markMine(cell);
+		}
+		else {
+			reveal(cell);
+		}
+	}
+
+	private void markMine(int cell) {
+		state[cell] = FloodReveal.FLAGGED;
+		mines++;
+
+		int count = geometry.neighbours(cell, updated);
+
+		for (int k = 0; k < count; k++) {
+			int neighbour = updated[k];
+
+			if (state[neighbour] == FloodReveal.REVEALED) {
+				need[neighbour]--;
+				unknown[neighbour]--;
+				enqueue(neighbour);
+			}
+		}
+	}
+
+	/**
+	 * Reveals a safe cell, and floods the zeros. The neighbours of a zero which are on the stack are
+	 * counted in its unknown, they are decremented when they are revealed. A zero is not queued,
+	 * the flood reveals its neighbours anyway.
+	 */
+	private void reveal(int cell) {
+		int stackSize = 0;
+		stack[stackSize++] = cell;
+
+		while (stackSize > 0) {
+			int current = stack[--stackSize];
+
+			if (state[current] != FloodReveal.HIDDEN) {
+				continue;
+			}
+
+			if (board.isBomb(current)) {
+				throw new IllegalStateException("the rules revealed a bomb at " + current);
+			}
+
+			state[current] = FloodReveal.REVEALED;
+			revealed++;
+
+			int value = board.get(current);
+			int hidden = 0;
+			int count = geometry.neighbours(current, updated);
+
+			for (int k = 0; k < count; k++) {
+				int neighbour = updated[k];
+
+				if (state[neighbour] == FloodReveal.REVEALED) {
+					unknown[neighbour]--;
+
+					if (board.get(neighbour) != 0) {
+						enqueue(neighbour);
+					}
+				}
+				else if (state[neighbour] == FloodReveal.FLAGGED) {
+					value--;
+				}
+				else {
+					hidden++;
+
+					if (board.get(current) == 0) {
+						if (stackSize == stack.length) {
+							stack = Arrays.copyOf(stack, stack.length * 2);
+						}
+						stack[stackSize++] = neighbour;
+					}
+				}
+			}
+
+			need[current] = value;
+			unknown[current] = hidden;
+
+			if (hidden > 0 && board.get(current) != 0) {
+				enqueue(current);
+			}
+		}
+	}
+
+	private void enqueue(int cell) {
+		if (unknown[cell] > 0) {
+			singles.offer(cell);
+		}
+	}
+
+	private static class Queue {
+		private final int[] cells;
+		private final boolean[] queued;
+		private int head;
+		int size;
+
+		Queue(int capacity) {
+			cells = new int[capacity];
+			queued = new boolean[capacity];
+		}
+
+		void clear() {
+			Arrays.fill(queued, false);
+			head = 0;
+			size = 0;
+		}
+
+		void offer(int cell) {
+			if (queued[cell]) {
+				return;
+			}
+
+			queued[cell] = true;
+			int tail = head + size;
+			cells[tail >= cells.length ? tail - cells.length : tail] = cell;
+			size++;
+		}
+
+		int poll() {
+			int cell = cells[head];
+			head = head + 1 == cells.length ? 0 : head + 1;
+			size--;
+			queued[cell] = false;
+
+			return cell;
+		}
+	}
+}
@@ -0,0 +1,446 @@
+package hu.bp.minesweeper.core;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Board for very large grids (10^8 and more cells), with one byte per cell outside of the Java heap,
+ * in direct or memory mapped ByteBuffers, so the garbage collector does not see the cells at all.
+ *
+ * A cell byte is the state (FloodReveal.HIDDEN, REVEALED, FLAGGED) in the high nibble and the value
+ * in the low nibble: the number of neighbourhood bombs or BOMB (0xF). The cells are in segments of
+ * 2^SEGMENT_BITS bytes, so the linear coordinates are longs.
+ *
+ * The operations are the same as the heap variants:
+ * - generate(): exactly numberOfBombs bombs with selection sampling (Knuth's algorithm S), one
+ *   random number per cell, no list of bombs is kept
+ * - the numbers are counted row by row with sums of three rows, with three row buffers on the heap
+ * - reveal(): the scanline flood fill of FloodReveal
+ *
+ * The heap memory used is O(cols), except the stack of reveal(). Not thread-safe.
+ * JVM only, it is excluded from the GWT module.
+ */
+public class OffHeapBoard implements Closeable {
+	/**
+	 * Low nibble of a bomb cell
+	 */
+	public static final int BOMB = 0xF;
+
+	public static final int SEGMENT_BITS = 30;
+
+	private static final int VALUE_MASK = 0xF;
+	private static final int STATE_SHIFT = 4;
+
+	public final int rows;
+	public final int cols;
+	public final long bound;
+
+	private final int segmentBits;
+	private final long segmentMask;
+	private final ByteBuffer[] segments;
+	private final FileChannel channel;
+
+	private long numberOfBombs;
+
+	private long[] stack = new long[64];
+	private int stackSize;
+	private long revealedCount;
+
+	OffHeapBoard(int rows, int cols, ByteBuffer[] segments, int segmentBits, FileChannel channel) {
+		this.rows = rows;
+		this.cols = cols;
+		this.bound = (long) rows * cols;
+		this.segments = segments;
+		this.segmentBits = segmentBits;
+		this.segmentMask = (1L << segmentBits) - 1;
+		this.channel = channel;
+	}
+
+	/**
+	 * Empty board in direct buffers
+	 * @param rows
+	 * @param cols
+	 * @return
+	 */
+	public static OffHeapBoard allocate(int rows, int cols) {
+		return allocate(rows, cols, SEGMENT_BITS);
+	}
+
+	static OffHeapBoard allocate(int rows, int cols, int segmentBits) {
+		long bound = checkSize(rows, cols);
+		int numberOfSegments = (int) ((bound + (1L << segmentBits) - 1) >>> segmentBits);
+		ByteBuffer[] segments = new ByteBuffer[numberOfSegments];
+
+		for (int s = 0; s < numberOfSegments; s++) {
+			segments[s] = ByteBuffer.allocateDirect((int) Math.min(1L << segmentBits, bound - ((long) s << segmentBits)));
+		}
+
+		return new OffHeapBoard(rows, cols, segments, segmentBits, null);
+	}
+
+	/**
+	 * Board in a memory mapped file, the file is created or overwritten, the cells are written
+	 * back to it by the operating system
+	 * @param path
+	 * @param rows
+	 * @param cols
+	 * @return
+	 * @throws IOException
+	 */
+	public static OffHeapBoard map(Path path, int rows, int cols) throws IOException {
+		return map(path, rows, cols, SEGMENT_BITS);
+	}
+
+	static OffHeapBoard map(Path path, int rows, int cols, int segmentBits) throws IOException {
+		long bound = checkSize(rows, cols);
+		FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+				StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+
+		try {
+			int numberOfSegments = (int) ((bound + (1L << segmentBits) - 1) >>> segmentBits);
+			ByteBuffer[] segments = new ByteBuffer[numberOfSegments];
+
+			for (int s = 0; s < numberOfSegments; s++) {
+				long from = (long) s << segmentBits;
+				segments[s] = channel.map(FileChannel.MapMode.READ_WRITE, from, Math.min(1L << segmentBits, bound - from));
+			}
+
+			return new OffHeapBoard(rows, cols, segments, segmentBits, channel);
+		}
+		catch (IOException | RuntimeException e) {
+			channel.close();
+			throw e;
+		}
+	}
+
+	private static long checkSize(int rows, int cols) {
+		if (rows < 1 || cols < 1) {
+			throw new IllegalArgumentException("rows and cols should be positive: " + rows + ", " + cols);
+		}
+
+		return (long) rows * cols;
+	}
+
+	/**
+	 * Places exactly numberOfBombs bombs, uniformly, then counts the numbers. All the cells become hidden.
+	 * @param numberOfBombs
+	 * @param random
+	 */
+	public void generate(long numberOfBombs, SplitRandom random) {
+		if (numberOfBombs < 0 || numberOfBombs > bound) {
+			throw new IllegalArgumentException("numberOfBombs should be between 0 and " + bound + ": " + numberOfBombs);
+		}
+
+		byte[] row = new byte[cols];
+		long needed = numberOfBombs;
+		long left = bound;
+
+		for (int r = 0; r < rows; r++) {
+			for (int c = 0; c < cols; c++) {
+				// algorithm S: select with probability needed / left
+				if (left * random.nextDouble() < needed) {
+					row[c] = BOMB;
+					needed--;
+				}
+				else {
+					row[c] = 0;
+				}
+				left--;
+			}
+
+			write((long) r * cols, row);
+		}
+
+		this.numberOfBombs = numberOfBombs;
+		countNeighbours();
+	}
+
+	/**
+	 * Sets the bombs (all the other cells become zero and hidden) and counts the numbers
+	 * @param bombs linear coordinates
+	 */
+	public void setBombs(long[] bombs) {
+		fill((byte) 0);
+
+		for (long bomb : bombs) {
+			put(bomb, (byte) BOMB);
+		}
+
+		this.numberOfBombs = bombs.length;
+		countNeighbours();
+	}
+
+	/**
+	 * Counts the numbers of the non-bomb cells from the bombs, row by row. The states are not changed.
+	 */
+	public void countNeighbours() {
+		byte[] previous = new byte[cols];
+		byte[] current = new byte[cols];
+		byte[] next = new byte[cols];
+		int[] sums = new int[cols + 2];
+
+		read(0, current);
+
+		for (int r = 0; r < rows; r++) {
+			if (r + 1 < rows) {
+				read((long) (r + 1) * cols, next);
+			}
+
+			for (int c = 0; c < cols; c++) {
+				sums[c + 1] = (r > 0 ? isBomb(previous[c]) : 0) + isBomb(current[c]) + (r + 1 < rows ? isBomb(next[c]) : 0);
+			}
+
+			for (int c = 0; c < cols; c++) {
+				if (isBomb(current[c]) == 0) {
+					int count = sums[c] + sums[c + 1] + sums[c + 2];
+					current[c] = (byte) ((current[c] & ~VALUE_MASK) | count);
+				}
+			}
+
+			write((long) r * cols, current);
+
+			byte[] swap = previous;
+			previous = current;
+			current = next;
+			next = swap;
+		}
+	}
+
+	private static int isBomb(byte cell) {
+		return (cell & VALUE_MASK) == BOMB ? 1 : 0;
+	}
+
+	public long getNumberOfBombs() {
+		return numberOfBombs;
+	}
+
+	/**
+	 * Value of the cell, Minesweeper.INT_BOMB or the number of neighbourhood bombs
+	 * @param linearCoord
+	 * @return
+	 */
+	public int get(long linearCoord) {
+		int value = get0(linearCoord) & VALUE_MASK;
+
+		return value == BOMB ? Minesweeper.INT_BOMB : value;
+	}
+
+	public int get(int row, int col) {
+		return get((long) row * cols + col);
+	}
+
+	public boolean isBomb(long linearCoord) {
+		return (get0(linearCoord) & VALUE_MASK) == BOMB;
+	}
+
+	/**
+	 * FloodReveal.HIDDEN, REVEALED or FLAGGED
+	 * @param linearCoord
+	 * @return
+	 */
+	public byte getState(long linearCoord) {
+		return (byte) ((get0(linearCoord) & 0xFF) >>> STATE_SHIFT);
+	}
+
+	/**
+	 * Flags a hidden cell, or makes a flagged cell hidden again
+	 * @param linearCoord
+	 * @return the new state
+	 */
+	public byte toggleFlag(long linearCoord) {
+		byte state = getState(linearCoord);
+
+		if (state == FloodReveal.HIDDEN) {
+			setState(linearCoord, FloodReveal.FLAGGED);
+			return FloodReveal.FLAGGED;
+		}
+		if (state == FloodReveal.FLAGGED) {
+			setState(linearCoord, FloodReveal.HIDDEN);
+			return FloodReveal.HIDDEN;
+		}
+
+		return state;
+	}
+
+	/**
+	 * Reveals the cell, and when it is a zero, the connected zeros and their neighbourhood, like FloodReveal
+	 * @param linearCoord
+	 * @return number of newly revealed cells, 0 when the cell is not hidden
+	 */
+	public long reveal(long linearCoord) {
+		revealedCount = 0;
+
+		if (getState(linearCoord) != FloodReveal.HIDDEN) {
+			return 0;
+		}
+
+		if (get(linearCoord) != 0) {
+			revealCell(linearCoord);
+
+			return revealedCount;
+		}
+
+		stackSize = 0;
+		push(linearCoord);
+
+		while (stackSize > 0) {
+			long seed = stack[--stackSize];
+
+			if (getState(seed) != FloodReveal.HIDDEN) continue;
+
+			long row = seed / cols;
+			long rowStart = row * cols;
+			long rowEnd = rowStart + cols - 1;
+
+			long left = seed;
+			while (left > rowStart && isHiddenZero(left - 1)) left--;
+
+			long right = seed;
+			while (right < rowEnd && isHiddenZero(right + 1)) right++;
+
+			long from = left > rowStart ? left - 1 : left;
+			long to = right < rowEnd ? right + 1 : right;
+
+			for (long i = from; i <= to; i++) {
+				if (getState(i) == FloodReveal.HIDDEN) {
+					revealCell(i);
+				}
+			}
+
+			if (row > 0) {
+				scanRow(from - cols, to - cols);
+			}
+
+			if (row < rows - 1) {
+				scanRow(from + cols, to + cols);
+			}
+		}
+
+		return revealedCount;
+	}
+
+	/**
+	 * Copy of the cells to the heap, for small boards (tests, drawing a part)
+	 * @return
+	 */
+	public Board toBoard() {
+		if (bound > Integer.MAX_VALUE) {
+			throw new IllegalStateException("too big for a Board: " + bound);
+		}
+
+		byte[] cells = new byte[(int) bound];
+		read(0, cells);
+
+		for (int i = 0; i < cells.length; i++) {
+			int value = cells[i] & VALUE_MASK;
+			cells[i] = value == BOMB ? Minesweeper.INT_BOMB : (byte) value;
+		}
+
+		return new Board(rows, cols, cells);
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (channel != null) {
+			channel.close();
+		}
+	}
+
+	private boolean isHiddenZero(long linearCoord) {
+		return get0(linearCoord) == 0;
+	}
+
+	private void scanRow(long from, long to) {
+		boolean inZeroRun = false;
+
+		for (long i = from; i <= to; i++) {
+			byte cell = get0(i);
+
+			if ((cell & 0xFF) >>> STATE_SHIFT != FloodReveal.HIDDEN) {
+				inZeroRun = false;
+			}
+			else if (cell == 0) {
+				if (!inZeroRun) {
+					push(i);
+				}
+				inZeroRun = true;
+			}
+			else {
+				revealCell(i);
+				inZeroRun = false;
+			}
+		}
+	}
+
+	private void revealCell(long linearCoord) {
+		setState(linearCoord, FloodReveal.REVEALED);
+		revealedCount++;
+	}
+
+	private void push(long linearCoord) {
+		if (stackSize == stack.length) {
+			stack = Arrays.copyOf(stack, stack.length * 2);
+		}
+
+		stack[stackSize++] = linearCoord;
+	}
+
+	private void setState(long linearCoord, byte state) {
+		put(linearCoord, (byte) ((get0(linearCoord) & VALUE_MASK) | (state << STATE_SHIFT)));
+	}
+
+	private byte get0(long linearCoord) {
+		return segments[(int) (linearCoord >>> segmentBits)].get((int) (linearCoord & segmentMask));
+	}
+
+	private void put(long linearCoord, byte cell) {
+		segments[(int) (linearCoord >>> segmentBits)].put((int) (linearCoord & segmentMask), cell);
+	}
+
+	private void fill(byte cell) {
+		byte[] row = new byte[cols];
+		Arrays.fill(row, cell);
+
+		for (int r = 0; r < rows; r++) {
+			write((long) r * cols, row);
+		}
+	}
+
+	/**
+	 * Bulk read, it can cross segment borders
+	 */
+	private void read(long from, byte[] dest) {
+		int done = 0;
+
+		while (done < dest.length) {
+			long position = from + done;
+			ByteBuffer segment = segments[(int) (position >>> segmentBits)];
+			int offset = (int) (position & segmentMask);
+			int length = Math.min(dest.length - done, segment.capacity() - offset);
+
+			segment.position(offset);
+			segment.get(dest, done, length);
+			done += length;
+		}
+	}
+
+	private void write(long from, byte[] src) {
+		int done = 0;
+
+		while (done < src.length) {
+			long position = from + done;
+			ByteBuffer segment = segments[(int) (position >>> segmentBits)];
+			int offset = (int) (position & segmentMask);
+			int length = Math.min(src.length - done, segment.capacity() - offset);
+
+			segment.position(offset);
+			segment.put(src, done, length);
+			done += length;
+		}
+	}
+}
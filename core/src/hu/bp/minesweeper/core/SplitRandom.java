@@ -0,0 +1,98 @@
+package hu.bp.minesweeper.core;
+
+import java.util.Random;
+
+/**
+ * Small, seeded and splittable pseudo random generator (SplitMix64).
+ *
+ * The same seed always gives the same numbers, on every platform. split(index) gives an
+ * independent generator which depends only on the seed and the index, so in a batch of boards
+ * generated with new SplitRandom(batchSeed).split(n) the n-th board can be reproduced on its own,
+ * without generating the boards before it.
+ */
+public final class SplitRandom {
+	private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+	/**
+	 * the seed this generator was created with
+	 */
+	public final long seed;
+
+	private long state;
+
+	public SplitRandom(long seed) {
+		this.seed = seed;
+		this.state = seed;
+	}
+
+	/**
+	 * Creates a generator with a random seed
+	 * @return
+	 */
+	public static SplitRandom create() {
+		return new SplitRandom(new Random().nextLong());
+	}
+
+	/**
+	 * Seed of the index-th child generator, see split(index)
+	 * @param seed
+	 * @param index
+	 * @return
+	 */
+	public static long splitSeed(long seed, long index) {
+		return mix64(seed + (index + 1) * GOLDEN_GAMMA);
+	}
+
+	/**
+	 * Gives the index-th child generator. It does not depend on the state of this generator,
+	 * only on its seed.
+	 * @param index
+	 * @return
+	 */
+	public SplitRandom split(long index) {
+		return new SplitRandom(splitSeed(seed, index));
+	}
+
+	public long nextLong() {
+		state += GOLDEN_GAMMA;
+
+		return mix64(state);
+	}
+
+	/**
+	 * Uniformly distributed int between 0 (inclusive) and bound (exclusive)
+	 * @param bound should be positive
+	 * @return
+	 */
+	public int nextInt(int bound) {
+		if (bound <= 0) {
+			throw new IllegalArgumentException("bound must be positive: " + bound);
+		}
+
+		int r = (int) (nextLong() >>> 33);
+		int m = bound - 1;
+
+		if ((bound & m) == 0) {
+			return (int) ((bound * (long) r) >> 31);
+		}
+
+		for (int u = r; u - (r = u % bound) + m < 0; u = (int) (nextLong() >>> 33));
+
+		return r;
+	}
+
+	/**
+	 * Uniformly distributed double between 0 (inclusive) and 1 (exclusive)
+	 * @return
+	 */
+	public double nextDouble() {
+		return (nextLong() >>> 11) * 0x1.0p-53;
+	}
+
+	private static long mix64(long z) {
+		z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+		z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+
+		return z ^ (z >>> 31);
+	}
+}
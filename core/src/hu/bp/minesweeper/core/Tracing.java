@@ -0,0 +1,123 @@
+package hu.bp.minesweeper.core;
+
+/**
+ * Hooks for a profiler (JfrTracer on the desktop) around the game's operations: board generation,
+ * neighbour counting, reveals, the life of a MinesweeperGame and the frames.
+ *
+ * An operation is begin...() before and end...(span, ...) after it. The span is the tracer's object
+ * of the operation (e.g. the JFR event), it is null when no tracer is set or the tracer does not
+ * record that operation, then end...() does nothing. So without a tracer (in the browser, in the
+ * tests) every hook costs one static field check.
+ */
+public class Tracing {
+	public interface Tracer {
+		Object beginGeneration();
+
+		void endGeneration(Object span, int rows, int cols, int bombs);
+
+		Object beginNeighbourCounting();
+
+		void endNeighbourCounting(Object span, int rows, int cols, int bombs);
+
+		Object beginReveal();
+
+		void endReveal(Object span, int linearCoord, int revealedCells);
+
+		/**
+		 * @return the span of the game, it ends with gameEnded()
+		 */
+		Object gameStarted(int rows, int cols, int bombs);
+
+		void gameEnded(Object span, MinesweeperGame.Status status);
+
+		Object beginFrame();
+
+		void endFrame(Object span, int renderCalls);
+	}
+
+	private static Tracer tracer;
+
+	private Tracing() {}
+
+	/**
+	 * Set it before the game starts, the spans begun with one tracer are ended with the same one
+	 * @param tracer null removes the tracer
+	 */
+	public static void setTracer(Tracer tracer) {
+		Tracing.tracer = tracer;
+	}
+
+	public static Tracer getTracer() {
+		return tracer;
+	}
+
+	public static Object beginGeneration() {
+		Tracer t = tracer;
+
+		return t == null ? null : t.beginGeneration();
+	}
+
+	public static void endGeneration(Object span, int rows, int cols, int bombs) {
+		Tracer t = tracer;
+
+		if (span != null && t != null) {
+			t.endGeneration(span, rows, cols, bombs);
+		}
+	}
+
+	public static Object beginNeighbourCounting() {
+		Tracer t = tracer;
+
+		return t == null ? null : t.beginNeighbourCounting();
+	}
+
+	public static void endNeighbourCounting(Object span, int rows, int cols, int bombs) {
+		Tracer t = tracer;
+
+		if (span != null && t != null) {
+			t.endNeighbourCounting(span, rows, cols, bombs);
+		}
+	}
+
+	public static Object beginReveal() {
+		Tracer t = tracer;
+
+		return t == null ? null : t.beginReveal();
+	}
+
+	public static void endReveal(Object span, int linearCoord, int revealedCells) {
+		Tracer t = tracer;
+
+		if (span != null && t != null) {
+			t.endReveal(span, linearCoord, revealedCells);
+		}
+	}
+
+	public static Object gameStarted(int rows, int cols, int bombs) {
+		Tracer t = tracer;
+
+		return t == null ? null : t.gameStarted(rows, cols, bombs);
+	}
+
+	public static void gameEnded(Object span, MinesweeperGame.Status status) {
+		Tracer t = tracer;
+
+		if (span != null && t != null) {
+			t.gameEnded(span, status);
+		}
+	}
+
+	public static Object beginFrame() {
+		Tracer t = tracer;
+
+		return t == null ? null : t.beginFrame();
+	}
+
+	public static void endFrame(Object span, int renderCalls) {
+		Tracer t = tracer;
+
+		if (span != null && t != null) {
+			t.endFrame(span, renderCalls);
+		}
+	}
+}
@@ -0,0 +1,299 @@
+package hu.bp.minesweeper.graph;
+
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.graphics.Pixmap;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.Batch;
+import com.badlogic.gdx.graphics.g2d.BitmapFont;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.scenes.scene2d.InputEvent;
+import com.badlogic.gdx.scenes.scene2d.ui.Skin;
+import com.badlogic.gdx.scenes.scene2d.ui.TextButton;
+import com.badlogic.gdx.scenes.scene2d.ui.Widget;
+import com.badlogic.gdx.scenes.scene2d.utils.ClickListener;
+import com.badlogic.gdx.scenes.scene2d.utils.Cullable;
+import com.badlogic.gdx.scenes.scene2d.utils.Drawable;
+import com.badlogic.gdx.utils.Disposable;
+import hu.bp.minesweeper.core.Board;
+import hu.bp.minesweeper.core.FloodReveal;
+import hu.bp.minesweeper.core.GridRenderer;
+import hu.bp.minesweeper.core.Minesweeper;
+import hu.bp.minesweeper.core.MinesweeperGame;
+
+/**
+ * One actor for the whole board, instead of a MinesweeperButton per cell.
+ *
+ * Every cell is drawn with one or two quads in the same SpriteBatch pass: the button region of the
+ * skin's atlas (hidden or pressed) and, for revealed cells, the glyph of the button font, which is
+ * in the same atlas page, so the batch is not flushed between cells. A touch is mapped to its cell
+ * by dividing the coordinates with the cell size, there is no actor per cell.
+ *
+ * When a culling area is set (by a ScrollPane or BoardCameraController), only the cells inside it
+ * are drawn. When the cells are smaller than LOD_CELL_PIXELS pixels on the screen, they are drawn as
+ * coloured rectangles instead of buttons and glyphs, and when they are smaller than a pixel, only
+ * every stride-th cell is drawn as a block, so at most about one quad per pixel is submitted.
+ *
+ * The cells are drawn from the state of the MinesweeperGame, a click reveals the cell in the game.
+ * At the end of the game the cells are shown by a RevealAction.
+ */
+public class BoardActor extends Widget implements Cullable, Disposable, RevealAction.Target {
+	static final String HIDDEN_REGION = "button";
+	static final String REVEALED_REGION = "button-pressed";
+
+	/**
+	 * Below this cell size (in pixels) the level of detail is coloured rectangles
+	 */
+	public static final float LOD_CELL_PIXELS = 8;
+
+	/**
+	 * Minimum size of a coloured block in pixels
+	 */
+	public static final float MIN_BLOCK_PIXELS = 2;
+
+	/**
+	 * Colors of the low detail cells: hidden, then by revealed cell value + 2 (bomb, zero, 1..8)
+	 */
+	static final Color[] LOD_COLORS = {
+			new Color(0.46f, 0.46f, 0.46f, 1),
+			Color.RED,
+			new Color(0.83f, 0.83f, 0.83f, 1),
+			Color.BLUE, Color.FOREST, Color.SCARLET, Color.NAVY,
+			Color.MAROON, Color.TEAL, Color.BLACK, Color.DARK_GRAY};
+
+	private final MinesweeperGame game;
+	private final Board board;
+
+	private final TextureRegion hidden;
+	private final TextureRegion revealed;
+	private final TextureRegion[] glyphs = new TextureRegion[10];
+	private final float[] glyphWidths = new float[10];
+	private final float[] glyphHeights = new float[10];
+	private final Color fontColor;
+
+	private final float cellWidth;
+	private final float cellHeight;
+
+	private final Texture pixel;
+	private final float[] lodColors = new float[LOD_COLORS.length];
+
+	private Rectangle cullingArea;
+	private float pixelsPerUnit = 1;
+
+	private int fromRow;
+	private int toRow;
+	private int fromCol;
+	private int toCol;
+
+	/**
+	 * @param game
+	 * @param skin the "toggle" TextButtonStyle gives the font and the colors
+	 */
+	public BoardActor(MinesweeperGame game, Skin skin) {
+		this.game = game;
+		this.board = game.board;
+
+		TextButton.TextButtonStyle style = skin.get("toggle", TextButton.TextButtonStyle.class);
+		BitmapFont font = style.font;
+
+		this.hidden = skin.getRegion(HIDDEN_REGION);
+		this.revealed = skin.getRegion(REVEALED_REGION);
+		this.fontColor = style.checkedFontColor != null ? style.checkedFontColor : style.fontColor;
+
+		float maxGlyphWidth = 0;
+
+		for (int value = Minesweeper.INT_BOMB; value <= 8; value++) {
+			BitmapFont.Glyph glyph = font.getData().getGlyph(GridRenderer.glyph(value));
+
+			if (glyph != null) {
+				glyphs[value + 1] = new TextureRegion(font.getRegion(glyph.page).getTexture(),
+						glyph.u, glyph.v, glyph.u2, glyph.v2);
+				glyphWidths[value + 1] = glyph.width;
+				glyphHeights[value + 1] = glyph.height;
+				maxGlyphWidth = Math.max(maxGlyphWidth, glyph.width);
+			}
+		}
+
+		Drawable up = style.up;
+		this.cellWidth = up.getLeftWidth() + up.getRightWidth() + maxGlyphWidth;
+		this.cellHeight = up.getTopHeight() + up.getBottomHeight() + font.getLineHeight();
+
+		Pixmap white = new Pixmap(1, 1, Pixmap.Format.RGBA8888);
+		white.setColor(Color.WHITE);
+		white.fill();
+		this.pixel = new Texture(white);
+		white.dispose();
+
+		addListener(new ClickListener() {
+			@Override
+			public void clicked(InputEvent event, float x, float y) {
+				int col = (int) (x / cellWidth);
+				int row = board.rows - 1 - (int) (y / cellHeight);
+
+				if (row >= 0 && row < board.rows && col >= 0 && col < board.cols) {
+					game.reveal(row * board.cols + col);
+				}
+			}
+		});
+	}
+
+	/**
+	 * Shows the cell at the end of the game
+	 * @param linearCoord
+	 */
+	@Override
+	public void showCell(int linearCoord) {
+		if (game.getState(linearCoord) != FloodReveal.REVEALED) {
+			game.show(linearCoord);
+		}
+	}
+
+	/**
+	 * The cells are drawn from the game, there is no layout to update
+	 */
+	@Override
+	public void cellsShown() {
+	}
+
+	public float getCellWidth() {
+		return cellWidth;
+	}
+
+	public float getCellHeight() {
+		return cellHeight;
+	}
+
+	@Override
+	public float getPrefWidth() {
+		return board.cols * cellWidth;
+	}
+
+	@Override
+	public float getPrefHeight() {
+		return board.rows * cellHeight;
+	}
+
+	@Override
+	public void setCullingArea(Rectangle cullingArea) {
+		this.cullingArea = cullingArea;
+	}
+
+	/**
+	 * Screen size of a world unit, it selects the level of detail
+	 * @param pixelsPerUnit
+	 */
+	public void setPixelsPerUnit(float pixelsPerUnit) {
+		this.pixelsPerUnit = pixelsPerUnit;
+	}
+
+	@Override
+	public void draw(Batch batch, float parentAlpha) {
+		validate();
+
+		float cellPixels = Math.min(cellWidth, cellHeight) * pixelsPerUnit;
+
+		if (cellPixels >= LOD_CELL_PIXELS) {
+			cull(1);
+			drawCells(batch, parentAlpha);
+		}
+		else {
+			int stride = Math.max(1, MathUtils.ceil(MIN_BLOCK_PIXELS / cellPixels));
+			cull(stride);
+			drawBlocks(batch, parentAlpha, stride);
+		}
+
+		batch.setColor(Color.WHITE);
+	}
+
+	@Override
+	public void dispose() {
+		pixel.dispose();
+	}
+
+	/**
+	 * Sets the visible rows and columns, the first ones are multiples of stride, so the blocks
+	 * do not change while panning
+	 */
+	private void cull(int stride) {
+		fromCol = 0;
+		toCol = board.cols;
+		fromRow = 0;
+		toRow = board.rows;
+
+		if (cullingArea != null) {
+			fromCol = Math.max(0, (int) (cullingArea.x / cellWidth));
+			toCol = Math.min(board.cols, (int) Math.ceil((cullingArea.x + cullingArea.width) / cellWidth));
+			fromRow = Math.max(0, board.rows - (int) Math.ceil((cullingArea.y + cullingArea.height) / cellHeight));
+			toRow = Math.min(board.rows, board.rows - (int) (cullingArea.y / cellHeight));
+		}
+
+		fromCol -= fromCol % stride;
+		fromRow -= fromRow % stride;
+	}
+
+	private void drawCells(Batch batch, float parentAlpha) {
+		Color color = getColor();
+		float x = getX();
+		float top = getY() + board.rows * cellHeight;
+
+		batch.setColor(color.r, color.g, color.b, color.a * parentAlpha);
+
+		for (int r = fromRow; r < toRow; r++) {
+			float cellY = top - (r + 1) * cellHeight;
+
+			for (int c = fromCol; c < toCol; c++) {
+				TextureRegion region = game.getState(r * board.cols + c) == FloodReveal.REVEALED ? revealed : hidden;
+				batch.draw(region, x + c * cellWidth, cellY, cellWidth, cellHeight);
+			}
+		}
+
+		batch.setColor(fontColor.r * color.r, fontColor.g * color.g, fontColor.b * color.b,
+				fontColor.a * color.a * parentAlpha);
+
+		for (int r = fromRow; r < toRow; r++) {
+			float cellY = top - (r + 1) * cellHeight;
+
+			for (int c = fromCol; c < toCol; c++) {
+				int cell = r * board.cols + c;
+				int glyph = board.get(cell) + 1;
+
+				if (game.getState(cell) == FloodReveal.REVEALED && glyphs[glyph] != null) {
+					float glyphWidth = glyphWidths[glyph];
+					float glyphHeight = glyphHeights[glyph];
+
+					batch.draw(glyphs[glyph], x + c * cellWidth + (cellWidth - glyphWidth) / 2,
+							cellY + (cellHeight - glyphHeight) / 2, glyphWidth, glyphHeight);
+				}
+			}
+		}
+	}
+
+	/**
+	 * One coloured block of stride x stride cells, its color is the color of its first cell
+	 */
+	private void drawBlocks(Batch batch, float parentAlpha, int stride) {
+		Color color = getColor();
+
+		for (int i = 0; i < LOD_COLORS.length; i++) {
+			Color lod = LOD_COLORS[i];
+			lodColors[i] = Color.toFloatBits(lod.r * color.r, lod.g * color.g, lod.b * color.b, lod.a * color.a * parentAlpha);
+		}
+
+		float x = getX();
+		float top = getY() + board.rows * cellHeight;
+
+		for (int r = fromRow; r < toRow; r += stride) {
+			int blockRows = Math.min(stride, board.rows - r);
+			float blockY = top - (r + blockRows) * cellHeight;
+
+			for (int c = fromCol; c < toCol; c += stride) {
+				int cell = r * board.cols + c;
+				int lod = game.getState(cell) == FloodReveal.REVEALED ? board.get(cell) + 2 : 0;
+
+				batch.setPackedColor(lodColors[lod]);
+				batch.draw(pixel, x + c * cellWidth, blockY, Math.min(stride, board.cols - c) * cellWidth, blockRows * cellHeight);
+			}
+		}
+	}
+}
@@ -0,0 +1,138 @@
+package hu.bp.minesweeper.graph;
+
+import com.badlogic.gdx.InputProcessor;
+import com.badlogic.gdx.graphics.OrthographicCamera;
+import com.badlogic.gdx.input.GestureDetector;
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.scenes.scene2d.Stage;
+import com.badlogic.gdx.utils.viewport.Viewport;
+
+/**
+ * Pans (drag) and zooms (pinch, mouse wheel) the camera of the stage over a BoardActor.
+ *
+ * update() should be called every frame before stage.draw(): it gives the visible part of the board
+ * to the actor as its culling area and the screen size of a world unit for the level of detail,
+ * so the cost of a frame depends on the number of visible cells, not on the size of the board.
+ */
+public class BoardCameraController extends GestureDetector.GestureAdapter {
+	/**
+	 * Smallest camera zoom: zooming in stops when a cell is 1 / MIN_ZOOM times its natural size
+	 */
+	public static final float MIN_ZOOM = 0.25f;
+
+	/**
+	 * Zooming out stops when the board is this times smaller than the screen
+	 */
+	public static final float MAX_ZOOM_OUT = 2f;
+
+	/**
+	 * Zoom factor of a mouse wheel step
+	 */
+	public static final float SCROLL_ZOOM = 1.2f;
+
+	private final Stage stage;
+	private final BoardActor board;
+	private final OrthographicCamera camera;
+
+	private final Rectangle cullingArea = new Rectangle();
+	private final Vector2 corner = new Vector2();
+
+	private float initialZoom = 1;
+
+	/**
+	 * @param stage its viewport should have an OrthographicCamera
+	 * @param board
+	 */
+	public BoardCameraController(Stage stage, BoardActor board) {
+		this.stage = stage;
+		this.board = board;
+		this.camera = (OrthographicCamera) stage.getCamera();
+	}
+
+	/**
+	 * Put it before the stage into an InputMultiplexer
+	 * @return
+	 */
+	public InputProcessor createInputProcessor() {
+		return new GestureDetector(this) {
+			@Override
+			public boolean scrolled(int amount) {
+				zoomTo(camera.zoom * (float) Math.pow(SCROLL_ZOOM, amount));
+
+				return true;
+			}
+		};
+	}
+
+	/**
+	 * Shows the whole board
+	 */
+	public void fit() {
+		Viewport viewport = stage.getViewport();
+
+		camera.zoom = Math.max(MIN_ZOOM, Math.max(board.getWidth() / viewport.getWorldWidth(),
+				board.getHeight() / viewport.getWorldHeight()));
+		camera.position.set(board.getX() + board.getWidth() / 2, board.getY() + board.getHeight() / 2, 0);
+	}
+
+	/**
+	 * Gives the visible part of the board and the zoom to the actor, call it before stage.draw()
+	 */
+	public void update() {
+		Viewport viewport = stage.getViewport();
+		float width = viewport.getWorldWidth() * camera.zoom;
+		float height = viewport.getWorldHeight() * camera.zoom;
+
+		board.stageToLocalCoordinates(corner.set(camera.position.x - width / 2, camera.position.y - height / 2));
+		cullingArea.set(corner.x, corner.y, width, height);
+
+		board.setCullingArea(cullingArea);
+		board.setPixelsPerUnit(viewport.getScreenWidth() / width);
+	}
+
+	@Override
+	public boolean touchDown(float x, float y, int pointer, int button) {
+		initialZoom = camera.zoom;
+
+		return false;
+	}
+
+	@Override
+	public boolean pan(float x, float y, float deltaX, float deltaY) {
+		// the touch is a drag, not a click on a cell
+		stage.cancelTouchFocus();
+
+		float unitsPerPixel = stage.getViewport().getWorldWidth() * camera.zoom / stage.getViewport().getScreenWidth();
+		camera.translate(-deltaX * unitsPerPixel, deltaY * unitsPerPixel);
+		clampPosition();
+
+		return true;
+	}
+
+	@Override
+	public boolean zoom(float initialDistance, float distance) {
+		stage.cancelTouchFocus();
+		zoomTo(initialZoom * initialDistance / distance);
+
+		return true;
+	}
+
+	private void zoomTo(float zoom) {
+		Viewport viewport = stage.getViewport();
+		float maxZoom = MAX_ZOOM_OUT * Math.max(board.getWidth() / viewport.getWorldWidth(),
+				board.getHeight() / viewport.getWorldHeight());
+
+		camera.zoom = MathUtils.clamp(zoom, MIN_ZOOM, Math.max(MIN_ZOOM, maxZoom));
+		clampPosition();
+	}
+
+	/**
+	 * The center of the screen stays over the board
+	 */
+	private void clampPosition() {
+		camera.position.x = MathUtils.clamp(camera.position.x, board.getX(), board.getX() + board.getWidth());
+		camera.position.y = MathUtils.clamp(camera.position.y, board.getY(), board.getY() + board.getHeight());
+	}
+}
@@ -1,53 +1,189 @@
 package hu.bp.minesweeper.graph;
 
 import com.badlogic.gdx.Gdx;
-import com.badlogic.gdx.scenes.scene2d.ui.Button;
+import com.badlogic.gdx.scenes.scene2d.Actor;
+import com.badlogic.gdx.scenes.scene2d.Group;
 import com.badlogic.gdx.scenes.scene2d.ui.Skin;
 import com.badlogic.gdx.scenes.scene2d.ui.Table;
+import hu.bp.minesweeper.core.FloodReveal;
+import hu.bp.minesweeper.core.MinesweeperGame;
 
 import java.util.ArrayList;
 import java.util.List;
 
-class ButtonsShower implements Runnable {
-	private final List<MinesweeperButton> buttons;
+class ButtonsShower {
+	/**
+	 * A board of the drawer: the actor which runs the RevealAction and its target
+	 */
+	private static class Shown {
+		final Actor actor;
+		final RevealAction.Target target;
+		final int rows;
+		final int cols;
 
-	public ButtonsShower(List<MinesweeperButton> buttons) {
-		this.buttons = buttons;
+		Shown(Actor actor, RevealAction.Target target, int rows, int cols) {
+			this.actor = actor;
+			this.target = target;
+			this.rows = rows;
+			this.cols = cols;
+		}
+	}
+
+	private final List<Shown> boards = new ArrayList<>();
+
+	long frameBudgetNanos = RevealAction.DEFAULT_FRAME_BUDGET_NANOS;
+	boolean wave = true;
+	float ringsPerSecond = RevealAction.DEFAULT_RINGS_PER_SECOND;
+
+	private boolean started;
+
+	void add(Actor actor, RevealAction.Target target, int rows, int cols) {
+		boards.add(new Shown(actor, target, rows, cols));
 	}
 
 	/**
-	 * Shows all the button's hidden value.
-	 * Call this when game ends
+	 * Shows all the button's hidden value, spread over frames, in a wave from the clicked cell
+	 * or row after row. Call this when game ends
+	 * @param linearCoord the clicked cell, or -1
 	 */
+	public void showFrom(int linearCoord) {
+		if (started) {
+			return;
+		}
+
+		started = true;
+
+		for (Shown board : boards) {
+			if (wave && linearCoord >= 0) {
+				board.actor.addAction(RevealAction.wave(board.target, board.rows, board.cols, linearCoord,
+						ringsPerSecond, frameBudgetNanos));
+			}
+			else {
+				board.actor.addAction(RevealAction.linear(board.target, board.rows * board.cols, frameBudgetNanos));
+			}
+		}
+	}
+}
+
+/**
+ * The buttons of a table, the table is invalidated once per frame
+ */
+class ButtonsTarget implements RevealAction.Target {
+	private final List<MinesweeperButton> buttons;
+	private final Table table;
+
+	ButtonsTarget(List<MinesweeperButton> buttons, Table table) {
+		this.buttons = buttons;
+		this.table = table;
+	}
+
 	@Override
-	public void run() {
-		buttons.forEach(MinesweeperButton::showCell);
+	public void showCell(int linearCoord) {
+		MinesweeperButton button = buttons.get(linearCoord);
+
+		if (!button.isDisabled()) {
+			button.showCellDeferred();
+		}
 	}
 
+	@Override
+	public void cellsShown() {
+		table.invalidateHierarchy();
+	}
 }
 
-public class ButtonDrawer {
+public class ButtonDrawer implements MinesweeperGame.Listener {
 	private Skin skin;
-	private List<MinesweeperButton> buttons = new ArrayList<>();
-	private final int numberOfBombs;
-	private final Counter counter;
+	private final MinesweeperGame game;
 	private final ButtonsShower buttonsShower;
+	private List<MinesweeperButton> buttons;
 
-	public ButtonDrawer(int numberOfBombs, int numberOfCells) {
+	public ButtonDrawer(MinesweeperGame game) {
 		skin = new Skin(Gdx.files.internal("skin/number-cruncher/skin/number-cruncher-ui.json"));
-		this.numberOfBombs = numberOfBombs;
-		this.buttonsShower = new ButtonsShower(buttons);
-		this.counter = new Counter(numberOfCells - numberOfBombs, buttonsShower);
+		this.game = game;
+		this.buttonsShower = new ButtonsShower();
+
+		game.addListener(this);
 	}
 
-	public void addButtons(Integer[][] grid, Table table) {
-		for (int r = 0; r < grid.length; r++) {
-			for (int c = 0; c < grid[r].length; c++) {
-				MinesweeperButton button = new MinesweeperButton(grid[r][c], skin, buttonsShower, counter);
+	/**
+	 * Shows the changed buttons, and all the cells when the game is over
+	 * @param game
+	 */
+	@Override
+	public void cellsChanged(MinesweeperGame game) {
+		if (buttons != null) {
+			for (int i = 0; i < game.getChangeCount(); i++) {
+				int start = game.getChangeStart(i);
+
+				for (int cell = start; cell < start + game.getChangeLength(i); cell++) {
+					if (game.getState(cell) == FloodReveal.REVEALED) {
+						buttons.get(cell).showCell();
+					}
+				}
+			}
+		}
+
+		if (game.isOver()) {
+			buttonsShower.showFrom(game.getExplodedCell());
+		}
+	}
+
+	/**
+	 * Time of a frame which can be spent on showing the cells at the end of the game
+	 * @param frameBudgetNanos
+	 */
+	public void setFrameBudget(long frameBudgetNanos) {
+		buttonsShower.frameBudgetNanos = frameBudgetNanos;
+	}
+
+	/**
+	 * When a bomb is clicked, the cells are shown in a wave from the bomb, or row after row
+	 * @param wave
+	 * @param ringsPerSecond speed of the wave
+	 */
+	public void setWave(boolean wave, float ringsPerSecond) {
+		buttonsShower.wave = wave;
+		buttonsShower.ringsPerSecond = ringsPerSecond;
+	}
+
+	/**
+	 * One MinesweeperButton per cell, it is for small boards. The cells which are already revealed
+	 * are shown.
+	 * @param table
+	 */
+	public void addButtons(Table table) {
+		buttons = new ArrayList<>();
+
+		for (int r = 0; r < game.board.rows; r++) {
+			for (int c = 0; c < game.board.cols; c++) {
+				int linearCoord = buttons.size();
+				MinesweeperButton button = new MinesweeperButton(game.board.get(linearCoord), skin,
+						() -> game.reveal(linearCoord));
 				buttons.add(button);
 				table.add(button);
+
+				if (game.getState(linearCoord) == FloodReveal.REVEALED) {
+					button.showCell();
+				}
 			}
 			table.row();
 		}
+
+		buttonsShower.add(table, new ButtonsTarget(buttons, table), game.board.rows, game.board.cols);
+	}
+
+	/**
+	 * The whole board is one BoardActor at the origin of the group, it is drawn in one batch pass
+	 * @param group
+	 * @return
+	 */
+	public BoardActor addBoard(Group group) {
+		BoardActor actor = new BoardActor(game, skin);
+		actor.setSize(actor.getPrefWidth(), actor.getPrefHeight());
+		buttonsShower.add(actor, actor, game.board.rows, game.board.cols);
+		group.addActor(actor);
+
+		return actor;
 	}
 }
@@ -0,0 +1,88 @@
+package hu.bp.minesweeper.graph;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.TimeUtils;
+import hu.bp.minesweeper.core.Metrics;
+
+import java.io.IOException;
+
+/**
+ * Writes the Metrics periodically while the instrumentation is enabled, then resets them, so every
+ * dump covers one interval. It appends to metrics.csv or metrics.jsonl in the local storage, or logs
+ * the lines when there is no local storage (in the browser).
+ */
+public class MetricsDump {
+	public enum Format {
+		CSV,
+		JSON
+	}
+
+	public static final float DEFAULT_INTERVAL_SECONDS = 10;
+
+	private final Format format;
+	private final float intervalSeconds;
+	private final StringBuilder buffer = new StringBuilder();
+
+	private float elapsed;
+
+	public MetricsDump(Format format, float intervalSeconds) {
+		this.format = format;
+		this.intervalSeconds = intervalSeconds;
+	}
+
+	public MetricsDump() {
+		this(Format.CSV, DEFAULT_INTERVAL_SECONDS);
+	}
+
+	/**
+	 * Call it once per frame
+	 * @param delta
+	 */
+	public void update(float delta) {
+		if (!Metrics.isEnabled()) {
+			elapsed = 0;
+			return;
+		}
+
+		elapsed += delta;
+
+		if (elapsed >= intervalSeconds) {
+			elapsed = 0;
+			dump();
+		}
+	}
+
+	public void dump() {
+		buffer.setLength(0);
+
+		try {
+			if (format == Format.CSV) {
+				Metrics.writeCsv(buffer, TimeUtils.millis());
+			}
+			else {
+				Metrics.writeJson(buffer, TimeUtils.millis());
+			}
+		}
+		catch (IOException e) {
+			// a StringBuilder does not throw it
+			throw new GdxRuntimeException(e);
+		}
+
+		if (Gdx.files.isLocalStorageAvailable()) {
+			FileHandle file = Gdx.files.local(format == Format.CSV ? "metrics.csv" : "metrics.jsonl");
+
+			if (format == Format.CSV && !file.exists()) {
+				file.writeString(Metrics.CSV_HEADER + "\n", false);
+			}
+
+			file.writeString(buffer.toString(), true);
+		}
+		else {
+			Gdx.app.log("metrics", buffer.toString());
+		}
+
+		Metrics.reset();
+	}
+}
@@ -0,0 +1,103 @@
+package hu.bp.minesweeper.graph;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.Input;
+import com.badlogic.gdx.InputAdapter;
+import com.badlogic.gdx.InputProcessor;
+import com.badlogic.gdx.graphics.g2d.BitmapFont;
+import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+import com.badlogic.gdx.utils.Disposable;
+import hu.bp.minesweeper.core.Metrics;
+
+/**
+ * Shows the Metrics on the top left corner of the screen, over the stage.
+ *
+ * F3 shows and hides it. Showing it enables the instrumentation when it is disabled, and hiding it
+ * disables the instrumentation only when the overlay enabled it, so the metrics cost nothing while
+ * the overlay is hidden, but the metrics enabled from the start (and their dump) keep running.
+ * The text is refreshed twice a second.
+ */
+public class MetricsOverlay implements Disposable {
+	public static final int TOGGLE_KEY = Input.Keys.F3;
+
+	private static final float REFRESH_SECONDS = 0.5f;
+	private static final float MARGIN = 8;
+
+	private final SpriteBatch batch = new SpriteBatch();
+	private final BitmapFont font = new BitmapFont();
+	private final StringBuilder text = new StringBuilder();
+
+	private boolean visible;
+	private boolean enabledMetrics;
+	private float sinceRefresh = REFRESH_SECONDS;
+
+	/**
+	 * Toggles the overlay with TOGGLE_KEY
+	 * @return
+	 */
+	public InputProcessor createInputProcessor() {
+		return new InputAdapter() {
+			@Override
+			public boolean keyDown(int keycode) {
+				if (keycode != TOGGLE_KEY) {
+					return false;
+				}
+
+				setVisible(!visible);
+
+				return true;
+			}
+		};
+	}
+
+	public boolean isVisible() {
+		return visible;
+	}
+
+	public void setVisible(boolean visible) {
+		this.visible = visible;
+		sinceRefresh = REFRESH_SECONDS;
+
+		if (visible && !Metrics.isEnabled()) {
+			Metrics.setEnabled(true);
+			enabledMetrics = true;
+		}
+		else if (!visible && enabledMetrics) {
+			Metrics.setEnabled(false);
+			enabledMetrics = false;
+		}
+	}
+
+	public void resize(int width, int height) {
+		batch.getProjectionMatrix().setToOrtho2D(0, 0, width, height);
+	}
+
+	/**
+	 * Call it after the stage is drawn, so the overlay is not measured as part of the frame
+	 * @param delta
+	 */
+	public void draw(float delta) {
+		if (!visible) {
+			return;
+		}
+
+		sinceRefresh += delta;
+
+		if (sinceRefresh >= REFRESH_SECONDS) {
+			sinceRefresh = 0;
+			text.setLength(0);
+			text.append("fps ").append(Gdx.graphics.getFramesPerSecond()).append('\n');
+			Metrics.writeSummary(text);
+		}
+
+		batch.begin();
+		font.draw(batch, text, MARGIN, Gdx.graphics.getHeight() - MARGIN);
+		batch.end();
+	}
+
+	@Override
+	public void dispose() {
+		batch.dispose();
+		font.dispose();
+	}
+}
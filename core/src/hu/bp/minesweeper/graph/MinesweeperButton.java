@@ -8,10 +8,16 @@ import hu.bp.minesweeper.core.Minesweeper;
 
 public class MinesweeperButton extends TextButton {
 	int minesweeperCellValue;
+	private boolean deferInvalidation;
 
-	public MinesweeperButton(int minesweeperCellValue, Skin skin, Runnable showCells, Runnable clickCounter) {
+	/**
+	 * @param minesweeperCellValue
+	 * @param skin
+	 * @param clicked it reveals the cell in the game, the button is shown by the game's listener
+	 */
+	public MinesweeperButton(int minesweeperCellValue, Skin skin, Runnable clicked) {
 		super(" ", skin, "toggle");
-		this.addListener(new MinesweeperButtonClickListener(this, minesweeperCellValue, showCells, clickCounter));
+		this.addListener(new MinesweeperButtonClickListener(clicked));
 		this.minesweeperCellValue = minesweeperCellValue;
 	}
 
@@ -21,30 +27,42 @@ public class MinesweeperButton extends TextButton {
 		setProgrammaticChangeEvents(false);
 		setChecked(true);
 	}
+
+	/**
+	 * Like showCell(), but the parent is not invalidated (the size of the button does not change).
+	 * The caller should invalidate the table once after showing many cells.
+	 */
+	public void showCellDeferred() {
+		deferInvalidation = true;
+
+		try {
+			showCell();
+		}
+		finally {
+			deferInvalidation = false;
+		}
+	}
+
+	@Override
+	public void invalidateHierarchy() {
+		if (deferInvalidation) {
+			invalidate();
+			return;
+		}
+
+		super.invalidateHierarchy();
+	}
 }
 
 class MinesweeperButtonClickListener extends ClickListener {
-	private final MinesweeperButton button;
-	private final int hiddenValue;
-	private final Runnable showCells;
-	private final Runnable clickCounter;
-
-	public MinesweeperButtonClickListener(MinesweeperButton button, int hiddenValue, Runnable showCells, Runnable clickCounter) {
-		this.button = button;
-		this.hiddenValue = hiddenValue;
-		this.showCells = showCells;
-		this.clickCounter = clickCounter;
+	private final Runnable clicked;
+
+	public MinesweeperButtonClickListener(Runnable clicked) {
+		this.clicked = clicked;
 	}
 
 	@Override
 	public void clicked(InputEvent event, float x, float y){
-		button.showCell();
-
-		if (hiddenValue == Minesweeper.INT_BOMB) {
-			showCells.run();
-		}
-		else {
-			clickCounter.run();
-		}
+		clicked.run();
 	}
 }
@@ -0,0 +1,163 @@
+package hu.bp.minesweeper.graph;
+
+import com.badlogic.gdx.scenes.scene2d.Action;
+import com.badlogic.gdx.utils.TimeUtils;
+
+/**
+ * Shows all the cells of a board over several frames, so a big board does not hitch when the game ends.
+ *
+ * In every frame (act()) cells are shown until the frame budget is used up, then the target is
+ * notified once (cellsShown()), so it can invalidate its layout once per frame instead of once per cell.
+ *
+ * The cells are shown in linear order, or in a wave: rings of growing (Chebyshev) distance around
+ * a start cell, ringsPerSecond rings in a second.
+ */
+public class RevealAction extends Action {
+	/**
+	 * The board which shows its cells
+	 */
+	public interface Target {
+		void showCell(int linearCoord);
+
+		/**
+		 * Called once after every frame's cells
+		 */
+		void cellsShown();
+	}
+
+	public static final long DEFAULT_FRAME_BUDGET_NANOS = 4_000_000L;
+
+	public static final float DEFAULT_RINGS_PER_SECOND = 40;
+
+	/**
+	 * The clock is read after every CHECK_INTERVAL cells
+	 */
+	private static final int CHECK_INTERVAL_MASK = 63;
+
+	private final Target target;
+	private final int count;
+	private final int[] order;
+	private final int[] ringStarts;
+	private final float ringsPerSecond;
+	private final long frameBudgetNanos;
+
+	private int next;
+	private float elapsed;
+
+	private RevealAction(Target target, int count, int[] order, int[] ringStarts, float ringsPerSecond, long frameBudgetNanos) {
+		this.target = target;
+		this.count = count;
+		this.order = order;
+		this.ringStarts = ringStarts;
+		this.ringsPerSecond = ringsPerSecond;
+		this.frameBudgetNanos = frameBudgetNanos;
+	}
+
+	/**
+	 * Row after row, as fast as the budget allows
+	 * @param target
+	 * @param numberOfCells
+	 * @param frameBudgetNanos
+	 * @return
+	 */
+	public static RevealAction linear(Target target, int numberOfCells, long frameBudgetNanos) {
+		return new RevealAction(target, numberOfCells, null, null, 0, frameBudgetNanos);
+	}
+
+	/**
+	 * Rings around the start cell
+	 * @param target
+	 * @param rows
+	 * @param cols
+	 * @param start linear coordinate of the first cell
+	 * @param ringsPerSecond
+	 * @param frameBudgetNanos
+	 * @return
+	 */
+	public static RevealAction wave(Target target, int rows, int cols, int start, float ringsPerSecond, long frameBudgetNanos) {
+		int[] ringStarts = new int[Math.max(rows, cols) + 1];
+		int[] order = waveOrder(rows, cols, start, ringStarts);
+
+		return new RevealAction(target, order.length, order, ringStarts, ringsPerSecond, frameBudgetNanos);
+	}
+
+	/**
+	 * The cells ordered by their distance from start (counting sort)
+	 * @param rows
+	 * @param cols
+	 * @param start
+	 * @param ringStarts filled with the index of the first cell of every ring, the last element is the number of cells
+	 * @return
+	 */
+	static int[] waveOrder(int rows, int cols, int start, int[] ringStarts) {
+		int startRow = start / cols;
+		int startCol = start % cols;
+		int rings = ringStarts.length - 1;
+
+		for (int r = 0; r < rows; r++) {
+			for (int c = 0; c < cols; c++) {
+				ringStarts[distance(r, c, startRow, startCol) + 1]++;
+			}
+		}
+
+		for (int d = 1; d <= rings; d++) {
+			ringStarts[d] += ringStarts[d - 1];
+		}
+
+		int[] next = new int[rings];
+		System.arraycopy(ringStarts, 0, next, 0, rings);
+
+		int[] order = new int[rows * cols];
+
+		for (int r = 0; r < rows; r++) {
+			for (int c = 0; c < cols; c++) {
+				order[next[distance(r, c, startRow, startCol)]++] = r * cols + c;
+			}
+		}
+
+		return order;
+	}
+
+	private static int distance(int r, int c, int startRow, int startCol) {
+		return Math.max(Math.abs(r - startRow), Math.abs(c - startCol));
+	}
+
+	/**
+	 * Shows the cells of this frame
+	 * @param delta
+	 * @return true when all the cells are shown
+	 */
+	@Override
+	public boolean act(float delta) {
+		elapsed += delta;
+
+		int limit = count;
+		if (ringStarts != null) {
+			limit = ringStarts[Math.min(ringStarts.length - 1, (int) (elapsed * ringsPerSecond) + 1)];
+		}
+
+		long start = TimeUtils.nanoTime();
+		int shown = 0;
+
+		while (next < limit) {
+			target.showCell(order == null ? next : order[next]);
+			next++;
+
+			if ((++shown & CHECK_INTERVAL_MASK) == 0 && TimeUtils.nanoTime() - start >= frameBudgetNanos) {
+				break;
+			}
+		}
+
+		if (shown > 0) {
+			target.cellsShown();
+		}
+
+		return next == count;
+	}
+
+	@Override
+	public void restart() {
+		next = 0;
+		elapsed = 0;
+	}
+}
@@ -1,12 +1,125 @@
 package hu.bp.minesweeper.desktop;
 
+import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.backends.lwjgl.LwjglApplication;
 import com.badlogic.gdx.backends.lwjgl.LwjglApplicationConfiguration;
+import com.sun.management.ThreadMXBean;
 import hu.bp.minesweeper.GdxMinesweeper;
+import hu.bp.minesweeper.core.Metrics;
+import hu.bp.minesweeper.core.Minesweeper;
+import hu.bp.minesweeper.core.MinesweeperData;
+import hu.bp.minesweeper.core.MoveLogWriter;
+import hu.bp.minesweeper.core.NoGuessGenerator;
+import hu.bp.minesweeper.core.Tracing;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Paths;
+import java.util.concurrent.atomic.AtomicReference;
 
 public class DesktopLauncher {
 	public static void main (String[] arg) {
+		// allocated bytes per frame for the metrics, when the JVM can count them
+		java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+
+		if (threads instanceof ThreadMXBean && ((ThreadMXBean) threads).isThreadAllocatedMemorySupported()) {
+			ThreadMXBean allocations = (ThreadMXBean) threads;
+			Metrics.setAllocationCounter(() -> allocations.getThreadAllocatedBytes(Thread.currentThread().getId()));
+		}
+
+		// -Dminesweeper.metrics=true enables the metrics (and their dump) from the start, F3 toggles them
+		Metrics.setEnabled(Boolean.getBoolean("minesweeper.metrics"));
+
+		// the events are recorded only when a recording enables them, e.g. with minesweeper.jfc
+		if (JfrTracer.isAvailable()) {
+			Tracing.setTracer(new JfrTracer());
+		}
+
 		LwjglApplicationConfiguration config = new LwjglApplicationConfiguration();
-		new LwjglApplication(new GdxMinesweeper(), config);
+		GdxMinesweeper.GameObserver observer = moveRecorder(System.getProperty("minesweeper.moveLog"));
+		String noGuess = System.getProperty("minesweeper.noGuess");
+		GdxMinesweeper.BoardSource boards = noGuess == null ? Minesweeper::createMinesweeperData
+				: noGuessBoards(Long.parseLong(noGuess));
+
+		// -Dminesweeper.buttons=true draws a button per cell instead of the BoardActor
+		new LwjglApplication(new GdxMinesweeper(observer, boards, Boolean.getBoolean("minesweeper.buttons")), config);
+	}
+
+	/**
+	 * -Dminesweeper.noGuess=<budget in ms> starts the games with the center cell revealed, on boards
+	 * which can be solved from there without guessing (or the best board found within the budget).
+	 * One generator makes the boards of all the games, its daemon threads stop with the application.
+	 */
+	private static GdxMinesweeper.BoardSource noGuessBoards(long budgetMillis) {
+		NoGuessGenerator generator = new NoGuessGenerator(Runtime.getRuntime().availableProcessors(), budgetMillis);
+
+		return new GdxMinesweeper.BoardSource() {
+			@Override
+			public MinesweeperData create(int rows, int cols, int bombs) {
+				NoGuessGenerator.Result result = generator.generate(rows, cols, bombs, center(rows, cols), System.nanoTime());
+
+				if (!result.solvable) {
+					Gdx.app.log("noGuess", "no solvable board within the budget, " + result);
+				}
+
+				return result.data;
+			}
+
+			@Override
+			public int getStart(MinesweeperData data) {
+				return center(data.ROWS, data.COLS);
+			}
+		};
+	}
+
+	private static int center(int rows, int cols) {
+		return rows / 2 * cols + cols / 2;
+	}
+
+	/**
+	 * -Dminesweeper.moveLog=dir writes the moves of the game into dir/game-<time>.msml, see MoveReplay.
+	 * The log is closed when the game is over, or when the next game is created.
+	 */
+	private static GdxMinesweeper.GameObserver moveRecorder(String dir) {
+		if (dir == null) {
+			return null;
+		}
+
+		AtomicReference<MoveLogWriter> current = new AtomicReference<>();
+
+		// an unfinished game is flushed at exit, it can be replayed but not verified
+		Runtime.getRuntime().addShutdownHook(new Thread(() -> close(current.getAndSet(null))));
+
+		return (data, game) -> {
+			try {
+				MoveLogWriter writer = MoveLogWriter.create(Paths.get(dir, "game-" + System.currentTimeMillis() + ".msml"), data);
+				close(current.getAndSet(writer));
+
+				// the writer is notified first, it writes the end of the game before it is closed
+				game.addListener(writer);
+				game.addListener(changed -> {
+					if (changed.isOver() && current.compareAndSet(writer, null)) {
+						close(writer);
+					}
+				});
+			}
+			catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		};
+	}
+
+	private static void close(MoveLogWriter writer) {
+		if (writer == null) {
+			return;
+		}
+
+		try {
+			writer.close();
+		}
+		catch (IOException e) {
+			e.printStackTrace();
+		}
 	}
 }
@@ -0,0 +1,258 @@
+package hu.bp.minesweeper.desktop;
+
+import hu.bp.minesweeper.core.MinesweeperGame;
+import hu.bp.minesweeper.core.Tracing;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Tracing.Tracer which records Java Flight Recorder events, so the game's operations can be lined up
+ * with GC pauses and frame stalls in a recording. The events are configured in
+ * desktop/minesweeper.jfc.
+ *
+ * A span is created only when its event is enabled in the recording, otherwise begin...() returns null
+ * and nothing is recorded. The games are numbered, the Game Started and Game events of a game have the
+ * same gameId.
+ *
+ * Needs JDK 8u272 or newer, see isAvailable().
+ */
+public class JfrTracer implements Tracing.Tracer {
+	private static final String CATEGORY = "Minesweeper";
+
+	@Name("hu.bp.minesweeper.Generation")
+	@Label("Board Generation")
+	@Description("Minesweeper.createMinesweeperData: random bombs and neighbour counts")
+	@Category(CATEGORY)
+	@StackTrace(false)
+	static class GenerationEvent extends Event {
+		@Label("Rows")
+		int rows;
+
+		@Label("Columns")
+		int cols;
+
+		@Label("Mines")
+		int mines;
+	}
+
+	@Name("hu.bp.minesweeper.NeighbourCounting")
+	@Label("Neighbour Counting")
+	@Description("BitsetNeighbourCounter.createBoard: cell values from the bombs")
+	@Category(CATEGORY)
+	@StackTrace(false)
+	static class NeighbourCountingEvent extends Event {
+		@Label("Rows")
+		int rows;
+
+		@Label("Columns")
+		int cols;
+
+		@Label("Mines")
+		int mines;
+	}
+
+	@Name("hu.bp.minesweeper.Reveal")
+	@Label("Reveal")
+	@Description("MinesweeperGame.reveal, with the flood fill of a zero")
+	@Category(CATEGORY)
+	@StackTrace(false)
+	static class RevealEvent extends Event {
+		@Label("Cell")
+		@Description("Linear coordinate of the revealed cell")
+		int cell;
+
+		@Label("Revealed Cells")
+		int revealedCells;
+	}
+
+	@Name("hu.bp.minesweeper.GameStarted")
+	@Label("Game Started")
+	@Category(CATEGORY)
+	@StackTrace(false)
+	static class GameStartedEvent extends Event {
+		@Label("Game Id")
+		long gameId;
+
+		@Label("Rows")
+		int rows;
+
+		@Label("Columns")
+		int cols;
+
+		@Label("Mines")
+		int mines;
+	}
+
+	@Name("hu.bp.minesweeper.Game")
+	@Label("Game")
+	@Description("A game from its start to its end")
+	@Category(CATEGORY)
+	@StackTrace(false)
+	static class GameEvent extends Event {
+		@Label("Game Id")
+		long gameId;
+
+		@Label("Rows")
+		int rows;
+
+		@Label("Columns")
+		int cols;
+
+		@Label("Mines")
+		int mines;
+
+		@Label("Status")
+		String status;
+	}
+
+	@Name("hu.bp.minesweeper.Frame")
+	@Label("Frame")
+	@Description("GdxMinesweeper.render: act and draw of the stage")
+	@Category(CATEGORY)
+	@StackTrace(false)
+	static class FrameEvent extends Event {
+		@Label("Render Calls")
+		int renderCalls;
+	}
+
+	private final AtomicLong games = new AtomicLong();
+
+	/**
+	 * @return true when the JVM has Flight Recorder
+	 */
+	public static boolean isAvailable() {
+		try {
+			Class.forName("jdk.jfr.FlightRecorder");
+		}
+		catch (ClassNotFoundException e) {
+			return false;
+		}
+
+		return FlightRecorder.isAvailable();
+	}
+
+	@Override
+	public Object beginGeneration() {
+		return begin(new GenerationEvent());
+	}
+
+	@Override
+	public void endGeneration(Object span, int rows, int cols, int bombs) {
+		GenerationEvent event = (GenerationEvent) span;
+		event.end();
+
+		if (event.shouldCommit()) {
+			event.rows = rows;
+			event.cols = cols;
+			event.mines = bombs;
+			event.commit();
+		}
+	}
+
+	@Override
+	public Object beginNeighbourCounting() {
+		return begin(new NeighbourCountingEvent());
+	}
+
+	@Override
+	public void endNeighbourCounting(Object span, int rows, int cols, int bombs) {
+		NeighbourCountingEvent event = (NeighbourCountingEvent) span;
+		event.end();
+
+		if (event.shouldCommit()) {
+			event.rows = rows;
+			event.cols = cols;
+			event.mines = bombs;
+			event.commit();
+		}
+	}
+
+	@Override
+	public Object beginReveal() {
+		return begin(new RevealEvent());
+	}
+
+	@Override
+	public void endReveal(Object span, int linearCoord, int revealedCells) {
+		RevealEvent event = (RevealEvent) span;
+		event.end();
+
+		if (event.shouldCommit()) {
+			event.cell = linearCoord;
+			event.revealedCells = revealedCells;
+			event.commit();
+		}
+	}
+
+	@Override
+	public Object gameStarted(int rows, int cols, int bombs) {
+		GameEvent game = new GameEvent();
+		GameStartedEvent started = new GameStartedEvent();
+
+		if (!game.isEnabled() && !started.isEnabled()) {
+			return null;
+		}
+
+		long gameId = games.incrementAndGet();
+
+		if (started.isEnabled()) {
+			started.gameId = gameId;
+			started.rows = rows;
+			started.cols = cols;
+			started.mines = bombs;
+			started.commit();
+		}
+
+		game.gameId = gameId;
+		game.rows = rows;
+		game.cols = cols;
+		game.mines = bombs;
+		game.begin();
+
+		return game;
+	}
+
+	@Override
+	public void gameEnded(Object span, MinesweeperGame.Status status) {
+		GameEvent event = (GameEvent) span;
+		event.end();
+
+		if (event.shouldCommit()) {
+			event.status = status.name();
+			event.commit();
+		}
+	}
+
+	@Override
+	public Object beginFrame() {
+		return begin(new FrameEvent());
+	}
+
+	@Override
+	public void endFrame(Object span, int renderCalls) {
+		FrameEvent event = (FrameEvent) span;
+		event.end();
+
+		if (event.shouldCommit()) {
+			event.renderCalls = renderCalls;
+			event.commit();
+		}
+	}
+
+	private static Event begin(Event event) {
+		if (!event.isEnabled()) {
+			return null;
+		}
+
+		event.begin();
+
+		return event;
+	}
+}
@@ -0,0 +1,107 @@
+package hu.bp.minesweeper.desktop;
+
+import hu.bp.minesweeper.core.Minesweeper;
+import hu.bp.minesweeper.core.MinesweeperGame;
+import hu.bp.minesweeper.core.Tracing;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+public class JfrTracerTest {
+	private static final String[] EVENTS = {
+			"hu.bp.minesweeper.Generation",
+			"hu.bp.minesweeper.NeighbourCounting",
+			"hu.bp.minesweeper.Reveal",
+			"hu.bp.minesweeper.GameStarted",
+			"hu.bp.minesweeper.Game"
+	};
+
+	@Before
+	public void setUp() {
+		assumeTrue(JfrTracer.isAvailable());
+		Tracing.setTracer(new JfrTracer());
+	}
+
+	@After
+	public void tearDown() {
+		Tracing.setTracer(null);
+	}
+
+	private List<RecordedEvent> record(Runnable game) throws IOException {
+		Path file = Files.createTempFile("minesweeper", ".jfr");
+
+		try (Recording recording = new Recording()) {
+			for (String event : EVENTS) {
+				recording.enable(event).withThreshold(Duration.ZERO);
+			}
+
+			recording.start();
+			game.run();
+			recording.stop();
+			recording.dump(file);
+
+			return RecordingFile.readAllEvents(file).stream().
+					filter(event -> event.getEventType().getName().startsWith("hu.bp.minesweeper.")).
+					collect(Collectors.toList());
+		}
+		finally {
+			Files.delete(file);
+		}
+	}
+
+	private static List<RecordedEvent> events(List<RecordedEvent> events, String name) {
+		return events.stream().filter(event -> event.getEventType().getName().equals(name)).collect(Collectors.toList());
+	}
+
+	@Test
+	public void gameIsRecorded() throws IOException {
+		List<RecordedEvent> events = record(() -> {
+			MinesweeperGame game = new MinesweeperGame(Minesweeper.createMinesweeperData(9, 8, 10, 1L).board);
+
+			for (int cell = 0; !game.isOver(); cell++) {
+				if (!game.board.isBomb(cell)) {
+					game.reveal(cell);
+				}
+			}
+		});
+
+		RecordedEvent generation = events(events, "hu.bp.minesweeper.Generation").get(0);
+		assertEquals(9, generation.getInt("rows"));
+		assertEquals(8, generation.getInt("cols"));
+		assertEquals(10, generation.getInt("mines"));
+
+		assertEquals(1, events(events, "hu.bp.minesweeper.NeighbourCounting").size());
+
+		List<RecordedEvent> reveals = events(events, "hu.bp.minesweeper.Reveal");
+		assertFalse(reveals.isEmpty());
+		assertEquals(72 - 10, reveals.stream().mapToInt(event -> event.getInt("revealedCells")).sum());
+
+		RecordedEvent started = events(events, "hu.bp.minesweeper.GameStarted").get(0);
+		RecordedEvent game = events(events, "hu.bp.minesweeper.Game").get(0);
+		assertEquals(started.getLong("gameId"), game.getLong("gameId"));
+		assertEquals("WON", game.getString("status"));
+		assertFalse(game.getStartTime().isAfter(reveals.get(0).getStartTime()));
+	}
+
+	@Test
+	public void nothingIsRecordedWithoutARecording() {
+		JfrTracer tracer = new JfrTracer();
+
+		assertNull(tracer.beginGeneration());
+		assertNull(tracer.beginReveal());
+		assertNull(tracer.gameStarted(9, 9, 10));
+	}
+}
@@ -0,0 +1,29 @@
+package hu.bp.minesweeper.core;
+
+import java.util.function.Supplier;
+
+/**
+ * Plays games with a bot and prints the statistics
+ *
+ * Arguments (all optional): number of games (100000), bot: single, probability or random (single),
+ * rows (16), cols (16), bombs (40), seed (current time), number of threads (all processors)
+ */
+public class Autoplay {
+	public static void main(String args[]) {
+		long count = args.length > 0 ? Long.parseLong(args[0]) : 100000;
+		String bot = args.length > 1 ? args[1] : "single";
+		Supplier<Bot> bots = bot.equals("random") ? Bots::random
+				: bot.equals("probability") ? new MineProbability()::bot : Bots::singleCell;
+		int rows = args.length > 2 ? Integer.parseInt(args[2]) : 16;
+		int cols = args.length > 3 ? Integer.parseInt(args[3]) : 16;
+		int bombs = args.length > 4 ? Integer.parseInt(args[4]) : 40;
+		long seed = args.length > 5 ? Long.parseLong(args[5]) : System.currentTimeMillis();
+		int threads = args.length > 6 ? Integer.parseInt(args[6]) : Runtime.getRuntime().availableProcessors();
+
+		AutoplaySimulation simulation = new AutoplaySimulation(threads, AutoplaySimulation.DEFAULT_CHUNK_SIZE);
+		AutoplaySimulation.Result result = simulation.run(seed, count,
+				(index, random) -> Minesweeper.createMinesweeperData(rows, cols, bombs, random), bots);
+
+		System.out.println("seed: " + seed + ", " + result);
+	}
+}
@@ -0,0 +1,53 @@
+package hu.bp.minesweeper.core;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class AutoplaySimulationTest {
+	private static final BatchGenerator.BoardFactory BEGINNER =
+			(index, random) -> Minesweeper.createMinesweeperData(9, 9, 10, random);
+
+	@Test
+	public void resultDoesNotDependOnThreads() {
+		AutoplaySimulation.Result one = new AutoplaySimulation(1, 1000).run(42, 500, BEGINNER, Bots::singleCell);
+		AutoplaySimulation.Result three = new AutoplaySimulation(3, 7).run(42, 500, BEGINNER, Bots::singleCell);
+
+		assertEquals(500, one.stats.games);
+		assertEquals(one.stats.wins, three.stats.wins);
+		assertEquals(one.stats.moves, three.stats.moves);
+		assertEquals(500, three.stats.generation.getCount());
+		assertEquals(three.stats.moves, three.stats.solve.getCount());
+		assertEquals(three.stats.moves, three.stats.reveal.getCount());
+	}
+
+	@Test
+	public void deductionWinsMoreThanGuessing() {
+		AutoplaySimulation simulation = new AutoplaySimulation(2, 50);
+		double random = simulation.run(7, 1000, BEGINNER, Bots::random).getWinRate();
+		double singleCell = simulation.run(7, 1000, BEGINNER, Bots::singleCell).getWinRate();
+
+		assertTrue(singleCell + " > " + random, singleCell > random + 0.3);
+	}
+
+	@Test
+	public void everyGameEnds() {
+		AutoplaySimulation.Stats stats = new AutoplaySimulation.Stats();
+
+		for (long index = 0; index < 100; index++) {
+			AutoplaySimulation.play(index, new SplitRandom(index), BEGINNER, Bots.random(), stats);
+		}
+
+		assertEquals(100, stats.games);
+		assertTrue(stats.moves >= 100);
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void botMustChooseAHiddenCell() {
+		new AutoplaySimulation(2, 1).run(1, 10, BEGINNER, () -> (game, random) -> {
+			int cell = Bots.randomHidden(game, random);
+			game.reveal(cell);
+			return cell;
+		});
+	}
+}
@@ -0,0 +1,43 @@
+package hu.bp.minesweeper.core;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.*;
+
+public class BatchGeneratorTest {
+
+	private String generate(int threads, int chunkSize, long count) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		BatchGenerator.Result result = new BatchGenerator(threads, chunkSize).
+				generate(42, count, GenerateTestData::createTestData, BatchGenerator.TEXT, out);
+
+		assertEquals(count, result.boards);
+
+		return new String(out.toByteArray(), StandardCharsets.UTF_8);
+	}
+
+	@Test
+	public void outputDoesNotDependOnThreads() throws IOException {
+		assertEquals(generate(1, 1000, 500), generate(4, 7, 500));
+	}
+
+	@Test
+	public void anyBoardCanBeReproduced() throws IOException {
+		String[] boards = generate(3, 5, 50).split("\n\n");
+		MinesweeperData board = GenerateTestData.createTestData(37, new SplitRandom(42).split(37));
+
+		assertEquals(50, boards.length);
+		assertEquals(Minesweeper.getStringGrid(board), boards[37]);
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void factoryExceptionIsRethrown() throws IOException {
+		new BatchGenerator(2, 1).generate(1, 10, (index, random) -> {
+			throw new IllegalStateException("index " + index);
+		}, BatchGenerator.TEXT, new ByteArrayOutputStream());
+	}
+}
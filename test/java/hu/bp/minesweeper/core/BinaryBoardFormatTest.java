@@ -0,0 +1,177 @@
+package hu.bp.minesweeper.core;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.*;
+
+public class BinaryBoardFormatTest {
+
+	private byte[] write(boolean includeCounts, MinesweeperData... boards) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+		try (BinaryBoardWriter writer = new BinaryBoardWriter(out, includeCounts)) {
+			for (MinesweeperData data : boards) {
+				writer.write(data);
+			}
+		}
+
+		return out.toByteArray();
+	}
+
+	private void assertRoundTrip(boolean includeCounts) throws IOException {
+		MinesweeperData seeded = Minesweeper.createMinesweeperData(16, 30, 99, 7L);
+		MinesweeperData unseeded = MinesweeperTestHelper.getMinesweeperDataFromString(3, 3, "*21" + "2*1" + "111");
+		MinesweeperData wide = Minesweeper.createMinesweeperData(3, 200, 150, 8L);
+
+		BinaryBoardReader reader = new BinaryBoardReader(new ByteArrayInputStream(write(includeCounts, seeded, unseeded, wide)));
+
+		MinesweeperData read = reader.read();
+		assertEquals(Minesweeper.getStringGrid(seeded), Minesweeper.getStringGrid(read));
+		assertEquals(Long.valueOf(7), read.seed);
+
+		read = reader.read();
+		assertEquals(Minesweeper.getStringGrid(unseeded), Minesweeper.getStringGrid(read));
+		assertNull(read.seed);
+
+		assertEquals(Minesweeper.getStringGrid(wide), Minesweeper.getStringGrid(reader.read()));
+		assertNull(reader.read());
+	}
+
+	@Test
+	public void roundTripWithoutCounts() throws IOException {
+		assertRoundTrip(false);
+	}
+
+	@Test
+	public void roundTripWithCounts() throws IOException {
+		assertRoundTrip(true);
+	}
+
+	@Test
+	public void safeCellRegeneratesTheGrid() throws IOException {
+		MinesweeperData data = Minesweeper.createMinesweeperData(16, 30, 99, 11L, 200);
+		MinesweeperData unsafe = Minesweeper.createMinesweeperData(16, 30, 99, 11L);
+
+		BinaryBoardReader reader = new BinaryBoardReader(new ByteArrayInputStream(write(false, data, unsafe)));
+		MinesweeperData read = reader.read();
+
+		assertEquals(200, read.safeCell);
+		assertEquals(Minesweeper.getStringGrid(data), Minesweeper.getStringGrid(read));
+		assertEquals(Minesweeper.getStringGrid(data), Minesweeper.getStringGrid(
+			Minesweeper.createMinesweeperData(16, 30, 99, read.seed, read.safeCell)));
+		assertEquals(-1, reader.read().safeCell);
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		BinaryBoardFormat.encode(data, true, out);
+		assertEquals(200, BinaryBoardFormat.decode(ByteBuffer.wrap(out.toByteArray())).safeCell);
+	}
+
+	@Test
+	public void readsVersion1() throws IOException {
+		byte[] bytes = write(false, Minesweeper.createMinesweeperData(10, 10, 10, 1L));
+		bytes[BinaryBoardFormat.MAGIC.length] = 1;
+
+		MinesweeperData read = new BinaryBoardReader(new ByteArrayInputStream(bytes)).read();
+		assertEquals(Minesweeper.getStringGrid(Minesweeper.createMinesweeperData(10, 10, 10, 1L)), Minesweeper.getStringGrid(read));
+		assertEquals(-1, read.safeCell);
+	}
+
+	@Test(expected = IOException.class)
+	public void safeCellOnBomb() throws IOException {
+		// 1x2, bomb at 0, safe cell 0
+		BinaryBoardFormat.decode(ByteBuffer.wrap(new byte[] {BinaryBoardFormat.FLAG_SAFE_CELL, 1, 2, 0, 1}));
+	}
+
+	@Test
+	public void eightTimesSmallerThanText() throws IOException {
+		MinesweeperData data = Minesweeper.createMinesweeperData(100, 100, 2000, 1L);
+		int text = Minesweeper.getStringGrid(data).length();
+
+		assertTrue(write(false, data).length * 7 < text);
+	}
+
+	@Test(expected = IOException.class)
+	public void wrongMagic() throws IOException {
+		new BinaryBoardReader(new ByteArrayInputStream("*1\n11".getBytes()));
+	}
+
+	@Test(expected = IOException.class)
+	public void truncated() throws IOException {
+		byte[] bytes = write(false, Minesweeper.createMinesweeperData(10, 10, 10, 1L));
+		BinaryBoardReader reader = new BinaryBoardReader(new ByteArrayInputStream(bytes, 0, bytes.length - 1));
+
+		reader.read();
+	}
+
+	/**
+	 * 65536 x 65536 cells, rows * cols overflows
+	 */
+	private static final byte[] TOO_LARGE = {0, (byte) 0x80, (byte) 0x80, 4, (byte) 0x80, (byte) 0x80, 4};
+
+	@Test
+	public void tooLargeSize() throws IOException {
+		try {
+			BinaryBoardFormat.decode(ByteBuffer.wrap(TOO_LARGE));
+			fail();
+		}
+		catch (IOException e) {
+			assertTrue(e.getMessage(), e.getMessage().startsWith("invalid grid size"));
+		}
+	}
+
+	@Test
+	public void tooLargeSizeInStream() throws IOException {
+		BinaryBoardReader reader = new BinaryBoardReader(new ByteArrayInputStream(concat(write(false), TOO_LARGE)));
+
+		try {
+			reader.read();
+			fail();
+		}
+		catch (IOException e) {
+			assertTrue(e.getMessage(), e.getMessage().startsWith("invalid grid size"));
+		}
+	}
+
+	@Test(expected = IOException.class)
+	public void zeroRows() throws IOException {
+		BinaryBoardFormat.decode(ByteBuffer.wrap(new byte[] {0, 0, 5, 0}));
+	}
+
+	@Test(expected = IOException.class)
+	public void tooLongVarint() throws IOException {
+		BinaryBoardFormat.decode(ByteBuffer.wrap(new byte[] {0, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x0F, 1}));
+	}
+
+	@Test
+	public void decodeTruncated() throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		BinaryBoardFormat.encode(Minesweeper.createMinesweeperData(10, 10, 10, 1L), true, out);
+		byte[] bytes = out.toByteArray();
+
+		for (int length = 0; length < bytes.length; length++) {
+			try {
+				BinaryBoardFormat.decode(ByteBuffer.wrap(bytes, 0, length));
+				fail("decoded " + length + " bytes");
+			}
+			catch (EOFException e) {
+				// expected
+			}
+		}
+
+		assertEquals(100, BinaryBoardFormat.decode(ByteBuffer.wrap(bytes)).board.bound);
+	}
+
+	private static byte[] concat(byte[] a, byte[] b) {
+		byte[] result = new byte[a.length + b.length];
+		System.arraycopy(a, 0, result, 0, a.length);
+		System.arraycopy(b, 0, result, a.length, b.length);
+
+		return result;
+	}
+}
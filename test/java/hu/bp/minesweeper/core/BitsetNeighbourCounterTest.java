@@ -0,0 +1,58 @@
+package hu.bp.minesweeper.core;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class BitsetNeighbourCounterTest {
+
+	@Test
+	public void toBitRows() {
+		long[] bits = BitsetNeighbourCounter.toBitRows(2, 70, Arrays.asList(0, 65, 70 + 3));
+
+		assertEquals(2, BitsetNeighbourCounter.wordsPerRow(70));
+		assertArrayEquals(new long[]{1L, 1L << 1, 1L << 3, 0L}, bits);
+	}
+
+	@Test
+	public void countCells() {
+		MinesweeperData expected = MinesweeperTestHelper.getMinesweeperDataFromString(3, 3, "*21" + "2*1" + "111");
+		byte[] cells = BitsetNeighbourCounter.countCells(3, 3, BitsetNeighbourCounter.toBitRows(3, 3, expected.bombs));
+
+		assertArrayEquals(new byte[]{-1, 2, 1, 2, -1, 1, 1, 1, 1}, cells);
+	}
+
+	@Test
+	public void sameAsStreamOnTestFile() throws IOException {
+		MinesweeperTestHelper helper = new MinesweeperTestHelper("neighbours.txt");
+
+		helper.forEach(test -> assertSameCounts(test.description, test.ROWS, test.COLS, test.bombs));
+	}
+
+	@Test
+	public void sameAsStreamOnRandomBoards() {
+		Random rnd = new Random(42);
+
+		for (int i = 0; i < 200; i++) {
+			int rows = 1 + rnd.nextInt(40);
+			int cols = 1 + rnd.nextInt(150);
+			int numOfBombs = rnd.nextInt(rows * cols + 1);
+			List<Integer> bombs = Minesweeper.getUniqueRandoms(rows * cols, numOfBombs);
+
+			assertSameCounts(rows + "x" + cols + "/" + numOfBombs, rows, cols, bombs);
+		}
+	}
+
+	private void assertSameCounts(String msg, int rows, int cols, List<Integer> bombs) {
+		Map<Integer, Long> stream = Minesweeper.getBombsNeighboursWithCounts(rows, cols, bombs, Minesweeper.NeighbourCounting.STREAM);
+		Map<Integer, Long> bitset = Minesweeper.getBombsNeighboursWithCounts(rows, cols, bombs, Minesweeper.NeighbourCounting.BITSET);
+
+		assertEquals(msg, stream, bitset);
+	}
+}
@@ -0,0 +1,127 @@
+package hu.bp.minesweeper.core;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+
+public class BoardCorpusTest {
+
+	private Path createCorpus(int count, boolean includeCounts, long segmentSize) throws IOException {
+		Path path = Files.createTempFile("corpus", ".mswc");
+		path.toFile().deleteOnExit();
+
+		try (BoardCorpus.Writer writer = BoardCorpus.create(path, includeCounts, segmentSize)) {
+			for (int i = 0; i < count; i++) {
+				writer.add(board(i));
+			}
+		}
+
+		return path;
+	}
+
+	private MinesweeperData board(int i) {
+		return Minesweeper.createMinesweeperData(5 + i % 20, 7 + i % 30, 3 + i % 17, (long) i);
+	}
+
+	@Test
+	public void randomAccess() throws IOException {
+		try (BoardCorpus corpus = BoardCorpus.open(createCorpus(300, false, BoardCorpus.SEGMENT_SIZE))) {
+			assertEquals(300, corpus.size());
+
+			for (int i : new int[]{299, 0, 150, 7}) {
+				MinesweeperData data = corpus.get(i);
+				assertEquals(Minesweeper.getStringGrid(board(i)), Minesweeper.getStringGrid(data));
+				assertEquals(Long.valueOf(i), data.seed);
+			}
+		}
+	}
+
+	@Test
+	public void keepsSafeCell() throws IOException {
+		Path path = Files.createTempFile("corpus", ".mswc");
+		path.toFile().deleteOnExit();
+		MinesweeperData data = Minesweeper.createMinesweeperData(16, 30, 99, 5L, 31);
+
+		try (BoardCorpus.Writer writer = BoardCorpus.create(path, false, BoardCorpus.SEGMENT_SIZE)) {
+			writer.add(data);
+			writer.add(board(1));
+		}
+
+		try (BoardCorpus corpus = BoardCorpus.open(path)) {
+			MinesweeperData read = corpus.get(0);
+
+			assertEquals(31, read.safeCell);
+			assertEquals(Minesweeper.getStringGrid(data), Minesweeper.getStringGrid(
+				Minesweeper.createMinesweeperData(16, 30, 99, read.seed, read.safeCell)));
+			assertEquals(-1, corpus.get(1).safeCell);
+		}
+	}
+
+	@Test
+	public void gridsDoNotCrossSegments() throws IOException {
+		try (BoardCorpus corpus = BoardCorpus.open(createCorpus(100, true, 1024))) {
+			for (int i = 0; i < 100; i++) {
+				assertEquals(Minesweeper.getStringGrid(board(i)), Minesweeper.getStringGrid(corpus.get(i)));
+			}
+		}
+	}
+
+	@Test
+	public void parallelStreamKeepsOrder() throws IOException {
+		try (BoardCorpus corpus = BoardCorpus.open(createCorpus(500, false, 4096))) {
+			List<String> grids = corpus.stream().parallel().map(Minesweeper::getStringGrid).collect(Collectors.toList());
+
+			assertEquals(500, grids.size());
+			for (int i = 0; i < 500; i++) {
+				assertEquals(Minesweeper.getStringGrid(board(i)), grids.get(i));
+			}
+
+			assertEquals(10, corpus.stream(490, 500).count());
+		}
+	}
+
+	@Test
+	public void indexInManySegments() throws IOException {
+		// 32 offsets per index segment
+		Path path = createCorpus(300, false, 256);
+
+		try (BoardCorpus corpus = BoardCorpus.open(path)) {
+			for (int i = 0; i < 300; i++) {
+				assertEquals(Minesweeper.getStringGrid(board(i)), Minesweeper.getStringGrid(corpus.get(i)));
+			}
+		}
+
+		try (Stream<Path> files = Files.list(path.toAbsolutePath().getParent())) {
+			assertFalse("the temporary index is deleted", files.anyMatch(file -> file.getFileName().toString()
+					.startsWith(path.getFileName().toString()) && file.toString().endsWith(".index")));
+		}
+	}
+
+	@Test(expected = IOException.class)
+	public void corruptCount() throws IOException {
+		Path path = createCorpus(10, false, BoardCorpus.SEGMENT_SIZE);
+
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+			channel.write(ByteBuffer.allocate(Long.BYTES).putLong(0, 1L << 40), 8);
+		}
+
+		BoardCorpus.open(path);
+	}
+
+	@Test(expected = IndexOutOfBoundsException.class)
+	public void indexOutOfBounds() throws IOException {
+		try (BoardCorpus corpus = BoardCorpus.open(createCorpus(3, false, BoardCorpus.SEGMENT_SIZE))) {
+			corpus.get(3);
+		}
+	}
+}
@@ -0,0 +1,62 @@
+package hu.bp.minesweeper.core;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class BoardTest {
+
+	@Test
+	public void fromCounts() {
+		Map<Integer, Long> counts = new HashMap<>();
+		counts.put(1, 1L);
+		counts.put(2, 2L);
+		Board board = Board.fromCounts(2, 2, Arrays.asList(0), counts);
+
+		assertEquals(Minesweeper.INT_BOMB, board.get(0));
+		assertEquals(1, board.get(0, 1));
+		assertEquals(2, board.get(1, 0));
+		assertEquals(0, board.get(3));
+		assertEquals(1, board.getNumberOfBombs());
+		assertEquals(2, board.getNumberOfNeighbourCells());
+	}
+
+	@Test
+	public void bombsView() {
+		Board board = Board.fromCells(2, 3, new byte[]{-1, 2, -1, 1, 2, 1});
+		List<Integer> bombs = board.bombsView();
+
+		assertArrayEquals(new Integer[]{0, 2}, bombs.toArray(new Integer[0]));
+		assertTrue(bombs.contains(2));
+		assertFalse(bombs.contains(1));
+		assertFalse(bombs.contains(6));
+		assertEquals(1, bombs.indexOf(2));
+	}
+
+	@Test
+	public void neighbourCountsView() {
+		Board board = Board.fromCells(2, 3, new byte[]{-1, 2, -1, 1, 2, 0});
+		Map<Integer, Long> counts = board.neighbourCountsView();
+
+		Map<Integer, Long> expected = new HashMap<>();
+		expected.put(1, 2L);
+		expected.put(3, 1L);
+		expected.put(4, 2L);
+
+		assertEquals(expected, counts);
+		assertEquals(3, counts.size());
+		assertNull(counts.get(0));
+		assertNull(counts.get(5));
+		assertFalse(counts.containsKey(-1));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void fromCellsWrongSize() {
+		Board.fromCells(2, 2, new byte[3]);
+	}
+}
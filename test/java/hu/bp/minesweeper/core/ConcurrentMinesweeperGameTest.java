@@ -0,0 +1,253 @@
+package hu.bp.minesweeper.core;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import static org.junit.Assert.*;
+
+/**
+ * Stress test: many threads reveal and flag on the same board
+ */
+public class ConcurrentMinesweeperGameTest {
+	private static final int THREADS = 8;
+	private static final int ROUNDS = 20;
+
+	private static long[] run(ConcurrentMinesweeperGame game, boolean avoidBombs, long seed) throws Exception {
+		ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+		CyclicBarrier start = new CyclicBarrier(THREADS);
+		List<Future<Long>> results = new ArrayList<>();
+
+		try {
+			for (int t = 0; t < THREADS; t++) {
+				SplitRandom random = new SplitRandom(seed).split(t);
+
+				results.add(pool.submit((Callable<Long>) () -> {
+					start.await();
+					long revealed = 0;
+
+					// every thread visits every cell, in its own random order
+					int[] order = MineSampler.sample(game.board.bound, game.board.bound, random);
+
+					for (int i = 0; i < order.length && !game.isOver(); i++) {
+						int cell = order[i];
+
+						if (game.board.isBomb(cell)) {
+							if (!avoidBombs && random.nextInt(50) == 0) {
+								revealed += game.reveal(cell);
+							}
+							continue;
+						}
+
+						if (random.nextInt(8) == 0) {
+							game.toggleFlag(cell);
+							game.toggleFlag(cell);
+						}
+
+						revealed += game.reveal(cell);
+					}
+
+					return revealed;
+				}));
+			}
+
+			long[] revealed = new long[THREADS];
+			for (int t = 0; t < THREADS; t++) {
+				revealed[t] = results.get(t).get();
+			}
+
+			return revealed;
+		}
+		finally {
+			pool.shutdownNow();
+		}
+	}
+
+	private static int count(ConcurrentMinesweeperGame game, byte state, boolean bombs) {
+		int count = 0;
+
+		for (int i = 0; i < game.board.bound; i++) {
+			if (game.getState(i) == state && game.board.isBomb(i) == bombs) {
+				count++;
+			}
+		}
+
+		return count;
+	}
+
+	@Test
+	public void everySafeCellIsRevealedOnce() throws Exception {
+		for (int round = 0; round < ROUNDS; round++) {
+			Board board = Minesweeper.createMinesweeperData(60, 70, 300, round).board;
+			ConcurrentMinesweeperGame game = new ConcurrentMinesweeperGame(board);
+
+			long total = 0;
+			for (long revealed : run(game, true, round)) {
+				total += revealed;
+			}
+
+			assertEquals(board.bound - board.getNumberOfBombs(), total);
+			assertEquals(MinesweeperGame.Status.WON, game.getStatus());
+			assertEquals(0, game.getHiddenSafeCells());
+			assertEquals(-1, game.getExplodedCell());
+			assertEquals(0, count(game, FloodReveal.REVEALED, true));
+			assertEquals(0, game.getFlags());
+		}
+	}
+
+	@Test
+	public void resultIsConsistent() throws Exception {
+		for (int round = 0; round < ROUNDS; round++) {
+			Board board = Minesweeper.createMinesweeperData(40, 50, 200, 100 + round).board;
+			ConcurrentMinesweeperGame game = new ConcurrentMinesweeperGame(board);
+
+			long total = 0;
+			for (long revealed : run(game, false, round)) {
+				total += revealed;
+			}
+
+			int safeRevealed = count(game, FloodReveal.REVEALED, false);
+			int bombsRevealed = count(game, FloodReveal.REVEALED, true);
+
+			assertEquals(safeRevealed + bombsRevealed, total);
+			assertEquals(board.bound - board.getNumberOfBombs() - safeRevealed, game.getHiddenSafeCells());
+
+			if (game.getStatus() == MinesweeperGame.Status.LOST) {
+				assertTrue(board.isBomb(game.getExplodedCell()));
+				assertEquals(FloodReveal.REVEALED, game.getState(game.getExplodedCell()));
+				assertTrue(bombsRevealed >= 1);
+			}
+			else {
+				assertEquals(MinesweeperGame.Status.WON, game.getStatus());
+				assertEquals(0, game.getHiddenSafeCells());
+				assertEquals(-1, game.getExplodedCell());
+			}
+		}
+	}
+
+	@Test
+	public void sameAsSequentialGame() {
+		Board board = Minesweeper.createMinesweeperData(30, 30, 100, 7L).board;
+		ConcurrentMinesweeperGame concurrent = new ConcurrentMinesweeperGame(board);
+		MinesweeperGame sequential = new MinesweeperGame(board);
+
+		concurrent.toggleFlag(5);
+		sequential.toggleFlag(5);
+
+		for (int cell = 0; cell < board.bound; cell += 7) {
+			if (!board.isBomb(cell)) {
+				assertEquals(sequential.reveal(cell), concurrent.reveal(cell));
+			}
+		}
+
+		for (int cell = 0; cell < board.bound; cell++) {
+			assertEquals(sequential.getState(cell), concurrent.getState(cell));
+		}
+		assertEquals(sequential.getHiddenSafeCells(), concurrent.getHiddenSafeCells());
+		assertEquals(1, concurrent.getFlags());
+	}
+
+	/**
+	 * Half of the threads reveal a few zeros, the other half flag and unflag zeros meanwhile.
+	 * A flood fill should not go through a flagged zero: every revealed cell is a clicked one or
+	 * next to a revealed zero, and it is revealed by the sequential game with the same clicks.
+	 */
+	@Test
+	public void floodStopsAtConcurrentFlags() throws Exception {
+		for (int round = 0; round < ROUNDS; round++) {
+			Board board = Minesweeper.createMinesweeperData(60, 70, 250, 200 + round).board;
+			ConcurrentMinesweeperGame game = new ConcurrentMinesweeperGame(board);
+			AtomicIntegerArray clicked = new AtomicIntegerArray(board.bound);
+			AtomicBoolean revealing = new AtomicBoolean(true);
+			int[] zeros = zeros(board);
+
+			ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+			CyclicBarrier start = new CyclicBarrier(THREADS);
+			List<Future<?>> results = new ArrayList<>();
+
+			try {
+				for (int t = 0; t < THREADS; t++) {
+					SplitRandom random = new SplitRandom(round).split(t);
+					boolean revealer = t % 2 == 0;
+
+					results.add(pool.submit((Callable<Void>) () -> {
+						start.await();
+
+						if (revealer) {
+							for (int i = 0; i < 10; i++) {
+								int cell = zeros[random.nextInt(zeros.length)];
+								clicked.set(cell, 1);
+								game.reveal(cell);
+							}
+							revealing.set(false);
+						}
+						else {
+							while (revealing.get()) {
+								int cell = zeros[random.nextInt(zeros.length)];
+								game.toggleFlag(cell);
+								game.toggleFlag(cell);
+							}
+						}
+
+						return null;
+					}));
+				}
+
+				for (Future<?> result : results) {
+					result.get();
+				}
+			}
+			finally {
+				pool.shutdownNow();
+			}
+
+			MinesweeperGame sequential = new MinesweeperGame(board);
+			for (int cell = 0; cell < board.bound; cell++) {
+				if (clicked.get(cell) == 1) {
+					sequential.reveal(cell);
+				}
+			}
+
+			Geometry geometry = Geometry.of(board.rows, board.cols);
+			int[] neighbours = new int[8];
+
+			for (int cell = 0; cell < board.bound; cell++) {
+				if (game.getState(cell) != FloodReveal.REVEALED) {
+					continue;
+				}
+
+				assertEquals("revealed by the sequential game: " + cell, FloodReveal.REVEALED, sequential.getState(cell));
+
+				boolean nextToRevealedZero = false;
+				int count = geometry.neighbours(cell, neighbours);
+				for (int k = 0; k < count; k++) {
+					nextToRevealedZero |= board.get(neighbours[k]) == 0 && game.getState(neighbours[k]) == FloodReveal.REVEALED;
+				}
+
+				assertTrue("clicked or next to a revealed zero: " + cell, clicked.get(cell) == 1 || nextToRevealedZero);
+			}
+		}
+	}
+
+	private static int[] zeros(Board board) {
+		int count = 0;
+		int[] zeros = new int[board.bound];
+
+		for (int cell = 0; cell < board.bound; cell++) {
+			if (board.get(cell) == 0) {
+				zeros[count++] = cell;
+			}
+		}
+
+		return Arrays.copyOf(zeros, count);
+	}
+}
@@ -41,6 +41,7 @@ public class CoordTest {
 	public void getNeighbours() {
 		int rows = 3;
 		int cols = 3;
+		Geometry geometry = Geometry.of(rows, cols);
 
 		Map<Integer, String> tests = new HashMap<>();
 		tests.put(Coord.convertRowColToSerial(cols,0, 0), "1, 3, 4");
@@ -55,7 +56,7 @@ public class CoordTest {
 
 		tests.forEach((linearCoord, validNeighboursString) -> {
 			Integer[] validNeighbours = stringToIntArray(validNeighboursString);
-			Coord coord = Coord.createCoord(rows, cols, linearCoord);
+			Coord coord = Coord.createCoord(geometry, linearCoord);
 			Integer[] neighbours = coord.neighbours.toArray(new Integer[0]);
 			String msg = coord.toString() + " valid: " + validNeighboursString;
 			assertArrayEquals(msg, validNeighbours, neighbours);
@@ -0,0 +1,74 @@
+package hu.bp.minesweeper.core;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class EndlessBoardTest {
+
+	@Test
+	public void numbersConsistentAcrossTileBorders() {
+		EndlessBoard board = new EndlessBoard(17, 800, 4);
+		int size = EndlessBoard.TILE_SIZE;
+
+		for (int row = -size - 3; row < size + 3; row++) {
+			for (int col = -3; col < 2 * size + 3; col++) {
+				if (board.isBomb(row, col)) continue;
+
+				int bombs = 0;
+				for (int r = row - 1; r <= row + 1; r++) {
+					for (int c = col - 1; c <= col + 1; c++) {
+						if (board.isBomb(r, c)) bombs++;
+					}
+				}
+
+				assertEquals("(" + row + "," + col + ")", bombs, board.get(row, col));
+			}
+		}
+	}
+
+	@Test
+	public void tileHasMinesPerTileBombs() {
+		EndlessBoard board = new EndlessBoard(17, 800, 4);
+
+		assertEquals(800, board.getTile(-5, 1000).getNumberOfBombs());
+	}
+
+	@Test
+	public void sameSeedSameBoard() {
+		EndlessBoard a = new EndlessBoard(99, 500, 1);
+		EndlessBoard b = new EndlessBoard(99, 500, 16);
+
+		for (int i = 0; i < 1000; i++) {
+			int row = i * 7919 - 3000000;
+			int col = 4000000 - i * 104729;
+			assertEquals(a.get(row, col), b.get(row, col));
+		}
+	}
+
+	@Test
+	public void residentTilesAreBounded() {
+		EndlessBoard board = new EndlessBoard(1, 600, 3);
+
+		for (int i = 0; i < 20; i++) {
+			board.getTile(i, -i);
+		}
+
+		assertEquals(3, board.getResidentTiles());
+		assertEquals(4 * 3 + 9, board.getResidentBombTiles());
+	}
+
+	@Test
+	public void scrollingSamplesOnlyTheNewNeighbours() {
+		EndlessBoard board = new EndlessBoard(5, 600, 16);
+
+		board.getTile(0, 0);
+		assertEquals(9, board.getResidentBombTiles());
+
+		board.getTile(0, 1);
+		assertEquals(12, board.getResidentBombTiles());
+
+		board.getTile(1, 1);
+		assertEquals(15, board.getResidentBombTiles());
+	}
+}
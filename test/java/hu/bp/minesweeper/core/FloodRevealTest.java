@@ -0,0 +1,111 @@
+package hu.bp.minesweeper.core;
+
+import org.junit.Test;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+import static org.junit.Assert.*;
+
+public class FloodRevealTest {
+
+	@Test
+	public void numberRevealsOnlyItself() {
+		MinesweeperData data = MinesweeperTestHelper.getMinesweeperDataFromString(2, 2, "*12 ");
+		FloodReveal reveal = new FloodReveal(data.board);
+
+		assertEquals(1, reveal.reveal(1));
+		assertEquals(FloodReveal.REVEALED, reveal.getState(1));
+		assertEquals(FloodReveal.HIDDEN, reveal.getState(0));
+		assertEquals(0, reveal.reveal(1));
+	}
+
+	@Test
+	public void zeroRevealsRegionAndBorder() {
+		Board board = Minesweeper.createMinesweeperData(4, 5, java.util.Arrays.asList(19)).board;
+		FloodReveal reveal = new FloodReveal(board);
+
+		assertEquals(19, reveal.reveal(0));
+		assertEquals(FloodReveal.HIDDEN, reveal.getState(19));
+		for (int i = 0; i < reveal.getRunCount(); i++) {
+			int start = reveal.getRunStart(i);
+			assertTrue("run inside a row", start % 5 + reveal.getRunLength(i) <= 5);
+		}
+	}
+
+	@Test
+	public void flaggedCellsAreNotRevealed() {
+		Board board = Minesweeper.createMinesweeperData(1, 5, java.util.Arrays.asList(4)).board;
+		byte[] state = new byte[5];
+		state[1] = FloodReveal.FLAGGED;
+		FloodReveal reveal = new FloodReveal(board, state);
+
+		assertEquals(1, reveal.reveal(0));
+		assertEquals(FloodReveal.FLAGGED, reveal.getState(1));
+	}
+
+	@Test
+	public void sameAsBreadthFirstSearch() {
+		SplitRandom random = new SplitRandom(2);
+
+		for (int t = 0; t < 300; t++) {
+			int rows = 1 + random.nextInt(30);
+			int cols = 1 + random.nextInt(30);
+			Board board = Minesweeper.createMinesweeperData(rows, cols, random.nextInt(rows * cols / 5 + 1), random).board;
+			FloodReveal reveal = new FloodReveal(board);
+			byte[] expected = new byte[board.bound];
+
+			for (int k = 0; k < 5; k++) {
+				int cell = random.nextInt(board.bound);
+				int expectedCount = breadthFirstReveal(board, expected, cell);
+
+				assertEquals(expectedCount, reveal.reveal(cell));
+
+				int inRuns = 0;
+				for (int i = 0; i < reveal.getRunCount(); i++) {
+					inRuns += reveal.getRunLength(i);
+				}
+				assertEquals(expectedCount, inRuns);
+
+				for (int i = 0; i < board.bound; i++) {
+					assertEquals(rows + "x" + cols + " cell " + i, expected[i], reveal.getState(i));
+				}
+			}
+		}
+	}
+
+	@Test
+	public void millionCellsWithoutStackOverflow() {
+		Board board = Minesweeper.createMinesweeperData(1000, 1000, 10, 1L).board;
+		FloodReveal reveal = new FloodReveal(board);
+		int cell = 0;
+		while (board.get(cell) != 0) cell++;
+
+		assertTrue(reveal.reveal(cell) > 900000);
+	}
+
+	private int breadthFirstReveal(Board board, byte[] state, int cell) {
+		if (state[cell] != FloodReveal.HIDDEN) return 0;
+
+		Geometry geometry = Geometry.of(board.rows, board.cols);
+		Deque<Integer> queue = new ArrayDeque<>();
+		state[cell] = FloodReveal.REVEALED;
+		queue.add(cell);
+		int count = 1;
+
+		while (!queue.isEmpty()) {
+			int c = queue.poll();
+			if (board.get(c) != 0) continue;
+
+			for (int neighbour : geometry.neighbourList(c)) {
+				if (state[neighbour] == FloodReveal.HIDDEN) {
+					state[neighbour] = FloodReveal.REVEALED;
+					count++;
+					queue.add(neighbour);
+				}
+			}
+		}
+
+		return count;
+	}
+}
@@ -2,27 +2,36 @@ package hu.bp.minesweeper.core;
 
 import java.io.*;
 import java.util.Date;
-import java.util.Random;
 
+/**
+ * Generates random test grids into ./neighbours-<time>.txt
+ *
+ * Arguments (all optional): number of grids (100), seed (current time), number of threads (all processors)
+ */
 public class GenerateTestData {
 	public static void main(String args[]) throws IOException {
 		Date date = new Date();
-		BufferedWriter bfw = new BufferedWriter(new FileWriter("./neighbours-" + date.getTime() + ".txt"));
+		long count = args.length > 0 ? Long.parseLong(args[0]) : 100;
+		long seed = args.length > 1 ? Long.parseLong(args[1]) : date.getTime();
+		int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
 
-		Random rnd = new Random();
+		BatchGenerator generator = new BatchGenerator(threads, BatchGenerator.DEFAULT_CHUNK_SIZE);
 
-		for(int i = 0; i < 100; i++) {
-			int rows = 3 + rnd.nextInt(10);
-			int cols = 3 + rnd.nextInt(10);
-			int numOfBombs = 3 + rnd.nextInt(rows * cols / 4);
-			MinesweeperData data = Minesweeper.createMinesweeperData(rows, cols, numOfBombs);
-			String strData = Minesweeper.getStringGrid(data);
-			bfw.append(strData);
-			bfw.newLine();
-			bfw.newLine();
+		try (OutputStream out = new BufferedOutputStream(new FileOutputStream("./neighbours-" + date.getTime() + ".txt"), 1 << 16)) {
+			BatchGenerator.Result result = generator.generate(seed, count, GenerateTestData::createTestData, BatchGenerator.TEXT, out);
+
+			System.out.println("seed: " + seed + ", " + result);
 		}
+	}
+
+	/**
+	 * 3..12 rows and cols, at least 3 bombs, at most a quarter of the cells
+	 */
+	static MinesweeperData createTestData(long index, SplitRandom rnd) {
+		int rows = 3 + rnd.nextInt(10);
+		int cols = 3 + rnd.nextInt(10);
+		int numOfBombs = 3 + rnd.nextInt(rows * cols / 4);
 
-		bfw.flush();
-		bfw.close();
+		return Minesweeper.createMinesweeperData(rows, cols, numOfBombs, rnd);
 	}
 }
@@ -0,0 +1,88 @@
+package hu.bp.minesweeper.core;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class GeometryTest {
+
+	@Test
+	public void sharedPerSize() {
+		assertSame(Geometry.of(16, 30), Geometry.of(16, 30));
+		assertNotSame(Geometry.of(16, 30), Geometry.of(30, 16));
+	}
+
+	@Test
+	public void leastRecentlyUsedIsEvicted() {
+		Geometry first = Geometry.of(101, 1);
+
+		for (int i = 0; i < Geometry.CACHE_SIZE; i++) {
+			Geometry.of(102 + i, 1);
+		}
+
+		assertNotSame(first, Geometry.of(101, 1));
+	}
+
+	@Test
+	public void usedGeometryIsKept() {
+		Geometry used = Geometry.of(201, 1);
+
+		for (int i = 0; i < 2 * Geometry.CACHE_SIZE; i++) {
+			Geometry.of(202 + i, 1);
+			assertSame(used, Geometry.of(201, 1));
+		}
+	}
+
+	@Test
+	public void neighboursSameAsBruteForce() {
+		int[][] sizes = {{1, 1}, {1, 5}, {5, 1}, {2, 2}, {2, 7}, {3, 3}, {4, 6}, {9, 2}};
+		int[] dest = new int[8];
+
+		for (int[] size : sizes) {
+			Geometry geometry = Geometry.of(size[0], size[1]);
+
+			for (int i = 0; i < geometry.bound; i++) {
+				List<Integer> expected = bruteForce(size[0], size[1], i);
+				String msg = size[0] + "x" + size[1] + " cell " + i;
+
+				assertEquals(msg, expected, geometry.neighbourList(i));
+				assertEquals(msg, expected.size(), geometry.neighbourCount(i));
+				assertEquals(msg, expected.size(), geometry.neighbours(i, dest));
+				for (int k = 0; k < expected.size(); k++) {
+					assertEquals(msg, expected.get(k).intValue(), dest[k]);
+					assertEquals(msg, expected.get(k).intValue(), geometry.neighbour(i, k));
+				}
+			}
+		}
+	}
+
+	@Test
+	public void interior() {
+		Geometry geometry = Geometry.of(3, 4);
+
+		assertFalse(geometry.isInterior(0));
+		assertTrue(geometry.isInterior(5));
+		assertTrue(geometry.isInterior(6));
+		assertFalse(geometry.isInterior(7));
+		assertEquals(8, geometry.neighbourCount(5));
+	}
+
+	private List<Integer> bruteForce(int rows, int cols, int linearCoord) {
+		int row = linearCoord / cols;
+		int col = linearCoord % cols;
+		List<Integer> neighbours = new ArrayList<>();
+
+		for (int r = row - 1; r <= row + 1; r++) {
+			for (int c = col - 1; c <= col + 1; c++) {
+				if ((r != row || c != col) && Coord.valid(rows, cols, new Pair(r, c))) {
+					neighbours.add(Coord.convertRowColToSerial(cols, r, c));
+				}
+			}
+		}
+
+		return neighbours;
+	}
+}
@@ -0,0 +1,84 @@
+package hu.bp.minesweeper.core;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.*;
+
+public class GridRendererTest {
+	private static final MinesweeperData DATA = Minesweeper.createMinesweeperData(37, 71, 400, 11L);
+	private static final String EXPECTED = expected(DATA.board);
+
+	/**
+	 * The original, cell by cell string concatenation
+	 */
+	private static String expected(Board board) {
+		StringBuilder sb = new StringBuilder();
+
+		for (int r = 0; r < board.rows; r++) {
+			if (r > 0) {
+				sb.append("\n");
+			}
+			for (int c = 0; c < board.cols; c++) {
+				sb.append(Minesweeper.cellToStringMapper(board.get(r, c)));
+			}
+		}
+
+		return sb.toString();
+	}
+
+	@Test
+	public void glyphs() {
+		for (int value = Minesweeper.INT_BOMB; value <= 8; value++) {
+			assertEquals(Minesweeper.cellToStringMapper(value), "" + GridRenderer.glyph(value));
+		}
+	}
+
+	@Test
+	public void renderToAppendables() throws IOException {
+		GridRenderer renderer = new GridRenderer();
+
+		StringBuilder sb = new StringBuilder("x");
+		renderer.render(DATA.board, sb);
+		assertEquals("x" + EXPECTED, sb.toString());
+
+		StringWriter writer = new StringWriter();
+		renderer.render(DATA.board, writer);
+		assertEquals(EXPECTED, writer.toString());
+
+		StringBuffer buffer = new StringBuffer();
+		renderer.render(DATA.board, (Appendable) buffer);
+		assertEquals(EXPECTED, buffer.toString());
+
+		CharBuffer chars = CharBuffer.allocate(EXPECTED.length());
+		renderer.render(DATA.board, (Appendable) chars);
+		chars.flip();
+		assertEquals(EXPECTED, chars.toString());
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		renderer.render(DATA.board, bytes);
+		assertEquals(EXPECTED, new String(bytes.toByteArray(), StandardCharsets.US_ASCII));
+	}
+
+	@Test
+	public void rendererIsReusedForDifferentSizes() throws IOException {
+		GridRenderer renderer = new GridRenderer();
+		MinesweeperData small = Minesweeper.createMinesweeperData(3, 2, 1, 5L);
+
+		for (MinesweeperData data : new MinesweeperData[] {DATA, small, DATA}) {
+			StringWriter writer = new StringWriter();
+			renderer.render(data.board, writer);
+			assertEquals(expected(data.board), writer.toString());
+		}
+	}
+
+	@Test
+	public void stringGrid() {
+		assertEquals(EXPECTED, Minesweeper.getStringGrid(DATA));
+	}
+}
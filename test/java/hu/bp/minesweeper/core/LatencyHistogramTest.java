@@ -0,0 +1,88 @@
+package hu.bp.minesweeper.core;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class LatencyHistogramTest {
+
+	@Test
+	public void smallValuesAreExact() {
+		LatencyHistogram histogram = new LatencyHistogram();
+
+		for (int i = 1; i <= 10; i++) {
+			histogram.record(i);
+		}
+
+		assertEquals(10, histogram.getCount());
+		assertEquals(1, histogram.getMin());
+		assertEquals(10, histogram.getMax());
+		assertEquals(5.5, histogram.getMean(), 1e-9);
+		assertEquals(5, histogram.getValueAtPercentile(50));
+		assertEquals(9, histogram.getValueAtPercentile(90));
+		assertEquals(10, histogram.getValueAtPercentile(100));
+	}
+
+	@Test
+	public void bucketsCoverAllValuesInOrder() {
+		long previous = -1;
+
+		for (int bucket = 0; bucket < 64 + 57 * 32; bucket++) {
+			long highest = LatencyHistogram.highestValue(bucket);
+
+			assertTrue(highest > previous);
+			assertEquals(bucket, LatencyHistogram.bucket(previous + 1));
+			assertEquals(bucket, LatencyHistogram.bucket(highest));
+			previous = highest;
+		}
+
+		assertEquals(Long.MAX_VALUE, previous);
+	}
+
+	@Test
+	public void relativeErrorIsSmall() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		SplitRandom random = new SplitRandom(1);
+
+		for (int i = 0; i < 1000; i++) {
+			long value = random.nextLong() >>> (1 + random.nextInt(60));
+			histogram.reset();
+			histogram.record(value);
+			histogram.record(Long.MAX_VALUE);
+
+			long estimate = histogram.getValueAtPercentile(50);
+
+			assertTrue(estimate >= value);
+			assertTrue(estimate - value <= value / 32);
+		}
+	}
+
+	@Test
+	public void mergeAddsTheCounts() {
+		LatencyHistogram a = new LatencyHistogram();
+		LatencyHistogram b = new LatencyHistogram();
+
+		for (int i = 0; i < 99; i++) {
+			a.record(1000);
+		}
+		b.record(1000000);
+		b.record(-5);
+
+		a.merge(b);
+
+		assertEquals(101, a.getCount());
+		assertEquals(0, a.getMin());
+		assertEquals(1000000, a.getMax());
+		assertEquals(1000, a.getValueAtPercentile(99), 1000 / 32);
+		assertEquals(1000000, a.getValueAtPercentile(100));
+	}
+
+	@Test
+	public void emptyHistogram() {
+		LatencyHistogram histogram = new LatencyHistogram();
+
+		assertEquals(0, histogram.getMin());
+		assertEquals(0, histogram.getValueAtPercentile(99));
+		assertEquals(0, histogram.getMean(), 0);
+	}
+}
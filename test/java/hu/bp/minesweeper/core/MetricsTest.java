@@ -0,0 +1,106 @@
+package hu.bp.minesweeper.core;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+
+import static org.junit.Assert.*;
+
+public class MetricsTest {
+
+	@Before
+	public void setUp() {
+		Metrics.setEnabled(true);
+		Metrics.reset();
+	}
+
+	@After
+	public void tearDown() {
+		Metrics.setEnabled(false);
+		Metrics.reset();
+	}
+
+	@Test
+	public void disabledMetricsDoNotChange() {
+		Metrics.Counter counter = Metrics.counter("test.disabled.counter");
+		Metrics.Histogram timer = Metrics.timer("test.disabled.timer");
+
+		Metrics.setEnabled(false);
+
+		long start = Metrics.start();
+		counter.increment();
+		timer.record(5);
+
+		assertEquals(Metrics.NOT_STARTED, start);
+		assertEquals(Metrics.NOT_STARTED, timer.stop(start));
+		assertEquals(0, counter.get());
+		assertEquals(0, timer.getHistogram().getCount());
+		assertEquals(0, Metrics.allocatedBytes());
+	}
+
+	@Test
+	public void metricsAreRegisteredOnce() {
+		assertSame(Metrics.counter("test.once"), Metrics.counter("test.once"));
+		assertSame(Metrics.timer("test.once.timer"), Metrics.timer("test.once.timer"));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void nameHasOneType() {
+		Metrics.counter("test.type");
+		Metrics.gauge("test.type");
+	}
+
+	@Test
+	public void stopChainsPhases() {
+		Metrics.Histogram first = Metrics.timer("test.first");
+		Metrics.Histogram second = Metrics.timer("test.second");
+
+		long start = Metrics.start();
+		start = first.stop(start);
+		second.stop(start);
+
+		assertEquals(1, first.getHistogram().getCount());
+		assertEquals(1, second.getHistogram().getCount());
+	}
+
+	@Test
+	public void gameIsInstrumented() {
+		Metrics.Histogram generation = Metrics.timer("generation");
+		Metrics.Histogram reveal = Metrics.timer("reveal");
+
+		MinesweeperGame game = new MinesweeperGame(Minesweeper.createMinesweeperData(9, 9, 0, 1L).board);
+		game.reveal(0);
+
+		assertEquals(1, generation.getHistogram().getCount());
+		assertEquals(1, reveal.getHistogram().getCount());
+	}
+
+	@Test
+	public void dumps() throws IOException {
+		Metrics.counter("test.dump.counter").add(3);
+		Metrics.gauge("test.dump.gauge").set(7);
+		Metrics.histogram("test.dump.histogram").record(100);
+
+		StringBuilder csv = new StringBuilder();
+		StringBuilder json = new StringBuilder();
+		StringBuilder summary = new StringBuilder();
+		Metrics.writeCsv(csv, 1000);
+		Metrics.writeJson(json, 1000);
+		Metrics.writeSummary(summary);
+
+		assertTrue(csv.toString().contains("1000,test.dump.counter,counter,,3,,,,,\n"));
+		assertTrue(csv.toString().contains("1000,test.dump.histogram,histogram,1,,100,100,100,100,100\n"));
+		for (String line : csv.toString().split("\n")) {
+			assertEquals(Metrics.CSV_HEADER.split(",", -1).length, line.split(",", -1).length);
+		}
+
+		assertTrue(json.toString().startsWith("{\"time\":1000,\"metrics\":{"));
+		assertTrue(json.toString().contains("\"test.dump.gauge\":{\"type\":\"gauge\",\"value\":7}"));
+		assertTrue(json.toString().contains("\"test.dump.histogram\":{\"type\":\"histogram\",\"count\":1,\"mean\":100,"));
+		assertTrue(json.toString().endsWith("}}\n"));
+
+		assertTrue(summary.toString().contains("test.dump.histogram 100 p99 100 max 100\n"));
+	}
+}
@@ -0,0 +1,202 @@
+package hu.bp.minesweeper.core;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
+
+public class MineProbabilityTest {
+
+	/**
+	 * A game after some moves of the single cell bot, which are not bombs
+	 */
+	private static MinesweeperGame position(int rows, int cols, int bombs, long seed, int moves) {
+		MinesweeperGame game = new MinesweeperGame(Minesweeper.createMinesweeperData(rows, cols, bombs, seed).board);
+		SplitRandom random = new SplitRandom(seed);
+		Bot bot = Bots.singleCell();
+
+		for (int i = 0; i < moves && !game.isOver(); i++) {
+			int cell = bot.nextMove(game, random);
+
+			if (game.board.isBomb(cell)) {
+				game.toggleFlag(cell);
+			}
+			else {
+				game.reveal(cell);
+			}
+		}
+
+		return game;
+	}
+
+	/**
+	 * Probabilities by checking every placement of the bombs in the unknown cells
+	 */
+	private static double[] bruteForce(MinesweeperGame game) {
+		Board board = game.board;
+		Geometry geometry = Geometry.of(board.rows, board.cols);
+		List<Integer> unknown = new ArrayList<>();
+
+		for (int i = 0; i < board.bound; i++) {
+			if (game.getState(i) != FloodReveal.REVEALED) {
+				unknown.add(i);
+			}
+		}
+
+		double[] mines = new double[board.bound];
+		double[] solutions = new double[1];
+		boolean[] bomb = new boolean[board.bound];
+
+		place(game, geometry, unknown, 0, board.getNumberOfBombs(), bomb, mines, solutions);
+
+		for (int i = 0; i < mines.length; i++) {
+			mines[i] /= solutions[0];
+		}
+
+		return mines;
+	}
+
+	private static void place(MinesweeperGame game, Geometry geometry, List<Integer> unknown, int from, int left,
+			boolean[] bomb, double[] mines, double[] solutions) {
+		if (left == 0) {
+			for (int cell = 0; cell < game.board.bound; cell++) {
+				if (game.getState(cell) != FloodReveal.REVEALED) continue;
+
+				int count = 0;
+				for (int neighbour : geometry.neighbourList(cell)) {
+					if (bomb[neighbour]) count++;
+				}
+
+				if (count != game.board.get(cell)) return;
+			}
+
+			solutions[0]++;
+			for (int cell : unknown) {
+				if (bomb[cell]) mines[cell]++;
+			}
+
+			return;
+		}
+
+		for (int i = from; i <= unknown.size() - left; i++) {
+			bomb[unknown.get(i)] = true;
+			place(game, geometry, unknown, i + 1, left - 1, bomb, mines, solutions);
+			bomb[unknown.get(i)] = false;
+		}
+	}
+
+	@Test
+	public void sameAsBruteForce() {
+		MineProbability engine = new MineProbability();
+
+		for (long seed = 0; seed < 30; seed++) {
+			MinesweeperGame game = position(6, 6, 6, seed, 1 + (int) (seed % 4));
+			double[] expected = bruteForce(game);
+			MineProbability.Result result = engine.compute(game, new SplitRandom(seed));
+
+			assertTrue(result.exact);
+			for (int cell = 0; cell < expected.length; cell++) {
+				assertEquals("seed " + seed + ", cell " + cell, expected[cell], result.getProbability(cell), 1e-9);
+			}
+		}
+	}
+
+	@Test
+	public void probabilitiesSumToTheBombs() {
+		MinesweeperGame game = position(16, 30, 99, 3, 20);
+		MineProbability.Result result = new MineProbability().compute(game, new SplitRandom(1));
+		double sum = 0;
+
+		for (int cell = 0; cell < game.board.bound; cell++) {
+			double p = result.getProbability(cell);
+
+			assertTrue(p >= 0 && p <= 1 + 1e-9);
+			if (game.getState(cell) == FloodReveal.REVEALED) {
+				assertEquals(0, p, 0);
+			}
+			sum += p;
+		}
+
+		assertTrue(result.exact);
+		assertEquals(99, sum, 1e-6);
+	}
+
+	@Test
+	public void certainCellsAreFound() {
+		// 1x3, the bomb is at 2: revealing 0 opens 1, a one, so 2 is the bomb
+		MinesweeperGame game = new MinesweeperGame(Minesweeper.createMinesweeperData(1, 3, Arrays.asList(2)).board);
+		game.reveal(0);
+
+		MineProbability.Result result = new MineProbability().compute(game, new SplitRandom(1));
+
+		assertEquals(1, result.getProbability(2), 1e-12);
+		assertEquals(2, result.getSafestCell());
+		assertTrue(result.exact);
+	}
+
+	@Test
+	public void parallelGivesTheSame() {
+		MinesweeperGame game = position(16, 30, 99, 11, 30);
+		ForkJoinPool single = new ForkJoinPool(1);
+		ForkJoinPool pool = new ForkJoinPool(4);
+
+		try {
+			MineProbability.Result sequential = new MineProbability(single, MineProbability.DEFAULT_MAX_WORK,
+					MineProbability.DEFAULT_SAMPLES).compute(game, new SplitRandom(1));
+			MineProbability.Result parallel = new MineProbability(pool, MineProbability.DEFAULT_MAX_WORK,
+					MineProbability.DEFAULT_SAMPLES).compute(game, new SplitRandom(2));
+
+			for (int cell = 0; cell < game.board.bound; cell++) {
+				assertEquals(sequential.getProbability(cell), parallel.getProbability(cell), 1e-12);
+			}
+		}
+		finally {
+			single.shutdown();
+			pool.shutdown();
+		}
+	}
+
+	@Test
+	public void largeComponentsAreSampled() {
+		MinesweeperGame game = position(16, 30, 99, 3, 20);
+		MineProbability.Result exact = new MineProbability().compute(game, new SplitRandom(1));
+		MineProbability.Result sampled = new MineProbability(ForkJoinPool.commonPool(), 8, 20000)
+				.compute(game, new SplitRandom(1));
+
+		assertFalse(sampled.exact);
+
+		double error = 0;
+		int unknown = 0;
+
+		for (int cell = 0; cell < game.board.bound; cell++) {
+			double p = exact.getProbability(cell);
+
+			// certain cells stay certain, the others are estimates
+			if (p == 0 || p == 1) {
+				assertEquals("cell " + cell, p, sampled.getProbability(cell), 1e-9);
+			}
+
+			if (game.getState(cell) != FloodReveal.REVEALED) {
+				error += Math.abs(p - sampled.getProbability(cell));
+				unknown++;
+			}
+		}
+
+		assertTrue("mean error " + error / unknown, error / unknown < 0.02);
+	}
+
+	@Test
+	public void botWinsMoreThanSingleCell() {
+		AutoplaySimulation simulation = new AutoplaySimulation(1, 100);
+		BatchGenerator.BoardFactory beginner = (index, random) -> Minesweeper.createMinesweeperData(9, 9, 10, random);
+
+		double probability = simulation.run(5, 300, beginner, () -> new MineProbability().bot()).getWinRate();
+		double singleCell = simulation.run(5, 300, beginner, Bots::singleCell).getWinRate();
+
+		assertTrue(probability + " > " + singleCell, probability > singleCell);
+	}
+}
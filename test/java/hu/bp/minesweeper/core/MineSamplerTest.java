@@ -0,0 +1,71 @@
+package hu.bp.minesweeper.core;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class MineSamplerTest {
+
+	private void assertUniqueInBound(int[] randoms, int bound, int length) {
+		assertEquals(length, randoms.length);
+
+		Set<Integer> set = new HashSet<>();
+		for (int r : randoms) {
+			assertTrue("numbers should be between 0 and bound", r >= 0 && r < bound);
+			set.add(r);
+		}
+
+		assertEquals("numbers should unique", length, set.size());
+	}
+
+	@Test
+	public void floyd() {
+		SplitRandom random = new SplitRandom(3);
+
+		assertUniqueInBound(MineSampler.floyd(1000, 10, random), 1000, 10);
+		assertUniqueInBound(MineSampler.floyd(10, 10, random), 10, 10);
+		assertUniqueInBound(MineSampler.floyd(10, 0, random), 10, 0);
+	}
+
+	@Test
+	public void partialFisherYates() {
+		SplitRandom random = new SplitRandom(3);
+
+		assertUniqueInBound(MineSampler.partialFisherYates(100, 60, random), 100, 60);
+		assertUniqueInBound(MineSampler.partialFisherYates(10, 10, random), 10, 10);
+	}
+
+	@Test
+	public void sampleTruncatesLength() {
+		int[] randoms = MineSampler.sample(3, 5, new SplitRandom(3));
+		Arrays.sort(randoms);
+
+		assertArrayEquals(new int[]{0, 1, 2}, randoms);
+	}
+
+	@Test
+	public void sameSeedSameSample() {
+		assertArrayEquals(MineSampler.sample(480, 99, new SplitRandom(11)), MineSampler.sample(480, 99, new SplitRandom(11)));
+		assertArrayEquals(MineSampler.sample(480, 9, new SplitRandom(11)), MineSampler.sample(480, 9, new SplitRandom(11)));
+	}
+
+	@Test
+	public void floydIsUniform() {
+		SplitRandom random = new SplitRandom(5);
+		int[] counts = new int[10];
+
+		for (int i = 0; i < 10000; i++) {
+			for (int r : MineSampler.floyd(10, 3, random)) {
+				counts[r]++;
+			}
+		}
+
+		for (int count : counts) {
+			assertTrue("roughly uniform: " + count, count > 2700 && count < 3300);
+		}
+	}
+}
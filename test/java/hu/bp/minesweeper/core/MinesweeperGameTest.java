@@ -0,0 +1,143 @@
+package hu.bp.minesweeper.core;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class MinesweeperGameTest {
+
+	/**
+	 * "*1_"
+	 * "11_"
+	 * "___"
+	 */
+	private static MinesweeperGame game() {
+		return new MinesweeperGame(Minesweeper.createMinesweeperData(3, 3, Arrays.asList(0)).board);
+	}
+
+	@Test
+	public void winWhenAllSafeCellsAreRevealed() {
+		MinesweeperGame game = game();
+
+		assertEquals(8, game.getHiddenSafeCells());
+		assertEquals(1, game.reveal(1));
+		assertEquals(0, game.reveal(1));
+		assertEquals(7, game.getHiddenSafeCells());
+		assertEquals(MinesweeperGame.Status.PLAYING, game.getStatus());
+
+		assertEquals(7, game.reveal(8));
+		assertEquals(0, game.getHiddenSafeCells());
+		assertEquals(MinesweeperGame.Status.WON, game.getStatus());
+		assertEquals(-1, game.getExplodedCell());
+		assertEquals(0, game.reveal(0));
+	}
+
+	@Test
+	public void lostWhenBombIsRevealed() {
+		MinesweeperGame game = game();
+
+		assertEquals(1, game.reveal(0));
+		assertEquals(MinesweeperGame.Status.LOST, game.getStatus());
+		assertEquals(0, game.getExplodedCell());
+		assertEquals(0, game.reveal(8));
+		assertEquals(FloodReveal.HIDDEN, game.getState(8));
+
+		game.show(8);
+		assertEquals(FloodReveal.REVEALED, game.getState(8));
+		assertEquals(8, game.getHiddenSafeCells());
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void showOnlyAfterTheEnd() {
+		game().show(0);
+	}
+
+	@Test
+	public void flags() {
+		MinesweeperGame game = game();
+
+		assertTrue(game.toggleFlag(0));
+		assertTrue(game.toggleFlag(4));
+		assertEquals(2, game.getFlags());
+		assertEquals(-1, game.getRemainingBombs());
+		assertEquals(0, game.reveal(0));
+
+		assertTrue(game.toggleFlag(4));
+		assertEquals(1, game.getFlags());
+
+		game.reveal(1);
+		assertFalse(game.toggleFlag(1));
+		assertEquals(1, game.getFlags());
+	}
+
+	@Test
+	public void oneEventPerMove() {
+		MinesweeperGame game = game();
+		int[] events = new int[1];
+		boolean[] changed = new boolean[9];
+
+		game.addListener(g -> {
+			events[0]++;
+			for (int i = 0; i < g.getChangeCount(); i++) {
+				for (int cell = g.getChangeStart(i); cell < g.getChangeStart(i) + g.getChangeLength(i); cell++) {
+					assertFalse(changed[cell]);
+					changed[cell] = true;
+				}
+			}
+		});
+
+		game.toggleFlag(0);
+		assertEquals(1, events[0]);
+		assertTrue(changed[0]);
+
+		game.reveal(8);
+		assertEquals(2, events[0]);
+		for (int cell = 1; cell < 9; cell++) {
+			assertTrue(changed[cell]);
+		}
+
+		game.reveal(8);
+		assertEquals(2, events[0]);
+	}
+
+	@Test
+	public void lastMoveIsKept() {
+		MinesweeperGame game = game();
+
+		assertEquals(-1, game.getMoveCell());
+
+		game.toggleFlag(4);
+		assertEquals(4, game.getMoveCell());
+		assertTrue(game.isMoveFlag());
+
+		game.reveal(2);
+		assertEquals(2, game.getMoveCell());
+		assertFalse(game.isMoveFlag());
+	}
+
+	@Test
+	public void snapshotIsRestored() {
+		MinesweeperGame game = game();
+		game.toggleFlag(1);
+		game.reveal(2);
+
+		MinesweeperGame.Snapshot snapshot = game.snapshot();
+		game.reveal(0);
+		assertEquals(MinesweeperGame.Status.LOST, game.getStatus());
+
+		MinesweeperGame other = game();
+		other.restore(snapshot);
+		game.restore(snapshot);
+
+		for (MinesweeperGame restored : Arrays.asList(game, other)) {
+			assertEquals(MinesweeperGame.Status.PLAYING, restored.getStatus());
+			assertEquals(-1, restored.getExplodedCell());
+			assertEquals(1, restored.getFlags());
+			assertEquals(1, restored.getHiddenSafeCells());
+			assertEquals(FloodReveal.FLAGGED, restored.getState(1));
+			assertEquals(FloodReveal.HIDDEN, restored.getState(0));
+		}
+	}
+}
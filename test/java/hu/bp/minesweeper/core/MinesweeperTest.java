@@ -11,6 +11,7 @@ import java.util.stream.Collectors;
 import static junit.framework.TestCase.assertTrue;
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 
 public class MinesweeperTest {
 
@@ -38,6 +39,32 @@ public class MinesweeperTest {
 		randoms.forEach(r -> assertTrue("numbers should be between 0 and bound", r >= 0 && r < bound));
 	}
 
+	@Test
+	public void createMinesweeperDataSameSeedSameGrid() {
+		MinesweeperData data = Minesweeper.createMinesweeperData(16, 30, 99, 123L);
+
+		assertEquals(99, data.bombs.size());
+		assertEquals(Minesweeper.getStringGrid(data), Minesweeper.getStringGrid(Minesweeper.createMinesweeperData(16, 30, 99, 123L)));
+		assertEquals(
+				Minesweeper.getStringGrid(Minesweeper.createMinesweeperData(16, 30, 99, new SplitRandom(5).split(3))),
+				Minesweeper.getStringGrid(Minesweeper.createMinesweeperData(16, 30, 99, SplitRandom.splitSeed(5, 3))));
+	}
+
+	@Test
+	public void createMinesweeperDataWithSafeCell() {
+		for (long seed = 0; seed < 100; seed++) {
+			MinesweeperData data = Minesweeper.createMinesweeperData(3, 3, 8, seed, 4);
+
+			assertEquals(8, data.bombs.size());
+			assertFalse(data.board.isBomb(4));
+			assertEquals(4, data.safeCell);
+		}
+
+		MinesweeperData data = Minesweeper.createMinesweeperData(16, 30, 99, 123L, -1);
+		assertEquals(-1, data.safeCell);
+		assertEquals(Minesweeper.getStringGrid(data), Minesweeper.getStringGrid(Minesweeper.createMinesweeperData(16, 30, 99, 123L)));
+	}
+
 	@Test
 	public void testMinesweeper() throws IOException {
 		String fileName = "neighbours.txt";
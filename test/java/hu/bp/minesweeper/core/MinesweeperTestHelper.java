@@ -1,61 +1,36 @@
 package hu.bp.minesweeper.core;
 
-import java.io.BufferedReader;
-import java.io.FileReader;
 import java.io.IOException;
-import java.util.ArrayList;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
-
-import static org.junit.Assert.assertEquals;
+import java.util.stream.Stream;
 
 public class MinesweeperTestHelper implements Iterable<MinesweeperData> {
-	private List<MinesweeperData> testData = new ArrayList<>();
-
-	public MinesweeperTestHelper(String testFileName) throws IOException {
-		BufferedReader bfr = new BufferedReader(new FileReader("./neighbours.txt"));
-
-		StringBuilder sb = new StringBuilder();
-		String line = bfr.readLine();
-		int rows = 0;
-		int cols = 0;
-		int lineNumber = 0;
-
-		while (line != null) {
-			if (line.startsWith(";")) {
-				line = bfr.readLine();
-				continue;
-			}
+	private static final char BOMB = Minesweeper.STR_BOMB.charAt(0);
 
-			lineNumber++;
+	private final Path testFile;
 
-			if (line.length() != 0) {
-				sb.append(line);
-				cols = Math.max(cols, line.length());
-				rows++;
-			} else {
-				processTest(rows, cols, sb.toString(), lineNumber);
-
-				sb = new StringBuilder();
-				rows = 0;
-				cols = 0;
-			}
-
-			line = bfr.readLine();
-		}
+	/**
+	 * The grids are parsed lazily by NeighboursFileParser, while iterating
+	 * @param testFileName
+	 * @throws IOException
+	 */
+	public MinesweeperTestHelper(String testFileName) throws IOException {
+		this.testFile = Paths.get(".", testFileName);
 
-		if (sb.toString().length() != 0) {
-			processTest(rows, cols, sb.toString(), lineNumber);
+		if (!Files.isReadable(testFile)) {
+			throw new NoSuchFileException(testFile.toString());
 		}
 	}
 
-	private void processTest(int rows, int cols, String test, int lineNumber) {
-		testData.add(getMinesweeperDataFromString(rows, cols, test, lineNumber));
-	}
-
 	public static MinesweeperData getMinesweeperDataFromString(int rows, int cols, String s, int... lineNumber) {
 		List<Integer> bombs = getBombsFromString(s);
 
@@ -69,16 +44,28 @@ public class MinesweeperTestHelper implements Iterable<MinesweeperData> {
 		return new MinesweeperData(rows, cols, bombs, neighboursExpected, description);
 	}
 
-	//TODO: should use indexOf for less step
 	public static List<Integer> getBombsFromString(String grid) {
 		return IntStream.range(0, grid.length()).
-				filter(i -> Minesweeper.STR_BOMB.equals("" + grid.charAt(i))).boxed().
+				filter(i -> grid.charAt(i) == BOMB).boxed().
 				collect(Collectors.toList());
 	}
 
 	public static Map<Integer, Long> getNeighboursFromString(String grid) {
 		return IntStream.range(0, grid.length()).filter(i -> Character.isDigit(grid.charAt(i))).boxed().
-				collect(Collectors.toMap(Integer::new, i -> Long.parseLong("" + grid.charAt(i))));
+				collect(Collectors.toMap(i -> i, i -> (long) (grid.charAt(i) - '0')));
+	}
+
+	/**
+	 * The grids of the test file, parallel() splits the file at grid borders
+	 * @return
+	 */
+	public Stream<MinesweeperData> stream() {
+		try {
+			return NeighboursFileParser.stream(testFile, false);
+		}
+		catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
 	}
 
 	/**
@@ -88,6 +75,6 @@ public class MinesweeperTestHelper implements Iterable<MinesweeperData> {
 	 */
 	@Override
 	public Iterator<MinesweeperData> iterator() {
-		return testData.iterator();
+		return stream().iterator();
 	}
 }
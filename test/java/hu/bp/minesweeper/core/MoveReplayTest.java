@@ -0,0 +1,255 @@
+package hu.bp.minesweeper.core;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class MoveReplayTest {
+	private static final long SEED = 7;
+
+	/**
+	 * A recorded game of the single cell bot, with the states after every move
+	 */
+	private static class Recorded {
+		final ByteArrayOutputStream log = new ByteArrayOutputStream();
+		final List<byte[]> states = new ArrayList<>();
+		MinesweeperGame game;
+
+		Recorded(int rows, int cols, int bombs, int bufferSize) throws IOException {
+			MinesweeperData data = Minesweeper.createMinesweeperData(rows, cols, bombs, SEED);
+			SplitRandom random = new SplitRandom(SEED);
+			Bot bot = Bots.singleCell();
+
+			game = new MinesweeperGame(data.board);
+			game.addListener(new MoveLogWriter(Channels.newChannel(log), data, bufferSize));
+			game.addListener(g -> states.add(state(g)));
+			states.add(state(game));
+
+			while (!game.isOver()) {
+				game.reveal(bot.nextMove(game, random));
+			}
+		}
+
+		MoveReplay replay(int snapshotInterval) throws IOException {
+			return new MoveReplay(ByteBuffer.wrap(log.toByteArray()), snapshotInterval);
+		}
+	}
+
+	private static byte[] state(MinesweeperGame game) {
+		byte[] state = new byte[game.board.bound];
+
+		for (int i = 0; i < state.length; i++) {
+			state[i] = game.getState(i);
+		}
+
+		return state;
+	}
+
+	@Test
+	public void replayGivesTheSameGame() throws IOException {
+		Recorded recorded = new Recorded(16, 30, 60, 16);
+		MoveReplay replay = recorded.replay(MoveReplay.DEFAULT_SNAPSHOT_INTERVAL);
+
+		assertTrue(replay.hasEnd());
+		assertEquals(recorded.states.size() - 1, replay.getMoveCount());
+
+		MinesweeperGame game = replay.verify();
+
+		assertEquals(recorded.game.getStatus(), game.getStatus());
+		assertArrayEquals(state(recorded.game), state(game));
+	}
+
+	@Test
+	public void seekGivesTheStateAfterAnyMove() throws IOException {
+		Recorded recorded = new Recorded(16, 30, 60, 16);
+		MoveReplay replay = recorded.replay(3);
+		MinesweeperGame game = new MinesweeperGame(replay.getData().board);
+
+		for (int move = replay.getMoveCount(); move >= 0; move -= 2) {
+			replay.seek(game, move);
+			assertArrayEquals("move " + move, recorded.states.get(move), state(game));
+		}
+
+		for (int move = 0; move <= replay.getMoveCount(); move++) {
+			assertArrayEquals("move " + move, recorded.states.get(move), state(replay.seek(move)));
+		}
+	}
+
+	@Test
+	public void movesAreCompact() throws IOException {
+		Recorded recorded = new Recorded(16, 30, 60, MoveLogWriter.DEFAULT_BUFFER_SIZE);
+		MoveReplay replay = recorded.replay(MoveReplay.DEFAULT_SNAPSHOT_INTERVAL);
+
+		int header = MoveLogFormat.MAGIC.length + 1 + 1 + 1 + 1 + 1 + 8;
+		int end = 1 + 1 + 2 + 2 + 4;
+
+		assertTrue(recorded.log.size() - header - end <= 2 * replay.getMoveCount());
+	}
+
+	@Test
+	public void flagsAreReplayed() throws IOException {
+		MinesweeperData data = Minesweeper.createMinesweeperData(9, 9, 10, SEED);
+		ByteArrayOutputStream log = new ByteArrayOutputStream();
+		MinesweeperGame game = new MinesweeperGame(data.board);
+		game.addListener(new MoveLogWriter(Channels.newChannel(log), data));
+
+		int bomb = data.board.getBomb(0);
+		game.toggleFlag(80);
+		game.toggleFlag(bomb);
+		game.toggleFlag(80);
+		game.reveal(data.board.getBomb(1));
+
+		MoveReplay replay = new MoveReplay(ByteBuffer.wrap(log.toByteArray()));
+
+		assertEquals(4, replay.getMoveCount());
+		assertTrue(replay.isFlag(1));
+		assertEquals(bomb, replay.getMoveCell(1));
+		assertFalse(replay.isFlag(3));
+
+		assertEquals(MinesweeperGame.Status.LOST, replay.verify().getStatus());
+		assertEquals(1, replay.seek(3).getFlags());
+	}
+
+	@Test(expected = IOException.class)
+	public void verifyFindsADifferentState() throws IOException {
+		byte[] log = new Recorded(9, 9, 10, 16).log.toByteArray();
+
+		// the last byte of the CRC
+		log[log.length - 1] ^= 1;
+
+		new MoveReplay(ByteBuffer.wrap(log)).verify();
+	}
+
+	@Test
+	public void unfinishedGameCanBeReplayed() throws IOException {
+		MinesweeperData data = Minesweeper.createMinesweeperData(9, 9, 10, SEED);
+		ByteArrayOutputStream log = new ByteArrayOutputStream();
+		MinesweeperGame game = new MinesweeperGame(data.board);
+		MoveLogWriter writer = new MoveLogWriter(Channels.newChannel(log), data);
+		game.addListener(writer);
+
+		game.toggleFlag(5);
+		writer.close();
+
+		MoveReplay replay = new MoveReplay(ByteBuffer.wrap(log.toByteArray()));
+
+		assertFalse(replay.hasEnd());
+		assertEquals(FloodReveal.FLAGGED, replay.replay().getState(5));
+
+		try {
+			replay.verify();
+			fail();
+		}
+		catch (IOException e) {
+			// there is nothing to check
+		}
+	}
+
+	@Test(expected = IOException.class)
+	public void cutLogIsAnError() throws IOException {
+		byte[] log = new Recorded(9, 9, 10, 16).log.toByteArray();
+		ByteBuffer cut = ByteBuffer.wrap(log, 0, log.length - 2);
+
+		new MoveReplay(cut);
+	}
+
+	@Test(expected = IOException.class)
+	public void logOfAnotherBoardIsAnError() throws IOException {
+		byte[] log = new Recorded(16, 30, 60, 16).log.toByteArray();
+
+		// an other seed: the last byte of the header
+		log[MoveLogFormat.MAGIC.length + 1 + 1 + 1 + 1 + 1 + 7] ^= 1;
+
+		new MoveReplay(ByteBuffer.wrap(log)).verify();
+	}
+
+	@Test
+	public void invalidBoardSizeIsAnError() {
+		// 65536 x 65536 cells, rows * cols overflows
+		ByteBuffer buffer = ByteBuffer.allocate(MoveLogFormat.MAX_HEADER_LENGTH);
+		MoveLogFormat.writeHeader(buffer, 1 << 16, 1 << 16, 10, -1, SEED);
+		buffer.flip();
+
+		try {
+			new MoveReplay(buffer);
+			fail();
+		}
+		catch (IOException e) {
+			assertTrue(e.getMessage(), e.getMessage().startsWith("invalid board"));
+		}
+	}
+
+	@Test
+	public void safeCellIsLogged() throws IOException {
+		MinesweeperData data = Minesweeper.createMinesweeperData(9, 9, 70, SEED, 40);
+		MinesweeperGame game = new MinesweeperGame(data.board);
+		ByteArrayOutputStream log = new ByteArrayOutputStream();
+
+		game.addListener(new MoveLogWriter(Channels.newChannel(log), data));
+		game.reveal(40);
+		game.reveal(data.board.getBomb(0));
+
+		MoveReplay replay = new MoveReplay(ByteBuffer.wrap(log.toByteArray()));
+
+		assertEquals(40, replay.safeCell);
+		assertEquals(data.bombs, replay.getData().bombs);
+		assertEquals(MinesweeperGame.Status.LOST, replay.verify().getStatus());
+	}
+
+	@Test
+	public void version1LogIsRead() throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate(MoveLogFormat.MAX_HEADER_LENGTH);
+		buffer.put(MoveLogFormat.MAGIC);
+		MoveLogFormat.writeVarint(buffer, 1);
+		MoveLogFormat.writeVarint(buffer, 16);
+		MoveLogFormat.writeVarint(buffer, 30);
+		MoveLogFormat.writeVarint(buffer, 99);
+		buffer.putLong(SEED);
+		buffer.flip();
+
+		MoveReplay replay = new MoveReplay(buffer);
+
+		assertEquals(-1, replay.safeCell);
+		assertEquals(Minesweeper.createMinesweeperData(16, 30, 99, SEED).bombs, replay.getData().bombs);
+	}
+
+	@Test
+	public void fileIsNotOverwritten() throws IOException {
+		Path file = Files.createTempFile("minesweeper", ".msml");
+
+		try {
+			MoveLogWriter.create(file, Minesweeper.createMinesweeperData(9, 9, 10, SEED)).close();
+			fail();
+		}
+		catch (IOException e) {
+			// it exists
+		}
+		finally {
+			Files.delete(file);
+		}
+
+		MinesweeperData data = Minesweeper.createMinesweeperData(9, 9, 10, SEED);
+		MinesweeperGame game = new MinesweeperGame(data.board);
+
+		try (MoveLogWriter writer = MoveLogWriter.create(file, data)) {
+			game.addListener(writer);
+			game.reveal(data.board.getBomb(0));
+		}
+
+		try {
+			assertEquals(MinesweeperGame.Status.LOST, MoveReplay.read(file).verify().getStatus());
+		}
+		finally {
+			Files.delete(file);
+		}
+	}
+}
@@ -0,0 +1,184 @@
+package hu.bp.minesweeper.core;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Lazy, byte level parser of the neighbours.txt format:
+ * - one grid row per line, '*' is a bomb, a digit is the expected number, anything else is zero
+ * - grids are separated by empty lines
+ * - lines starting with ';' are comments
+ *
+ * The file is memory mapped and the grids are parsed one by one, straight from the bytes into the
+ * cells of a Board, so the cost is constant per cell. It is a Spliterator which splits at grid
+ * borders, so the grids can be validated in parallel.
+ */
+public class NeighboursFileParser implements Spliterator<MinesweeperData> {
+	private static final byte BOMB = (byte) Minesweeper.STR_BOMB.charAt(0);
+
+	private final ByteBuffer buffer;
+	private final int end;
+
+	private int position;
+	private int line;
+
+	/**
+	 * @param buffer the bytes are read with absolute gets, the buffer is not modified
+	 * @param from first byte, at the beginning of a line
+	 * @param end after the last byte
+	 * @param line line number of from (1 based)
+	 */
+	public NeighboursFileParser(ByteBuffer buffer, int from, int end, int line) {
+		this.buffer = buffer;
+		this.position = from;
+		this.end = end;
+		this.line = line;
+	}
+
+	public static NeighboursFileParser open(Path path) throws IOException {
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+
+			return new NeighboursFileParser(buffer, 0, buffer.limit(), 1);
+		}
+	}
+
+	public static Stream<MinesweeperData> stream(Path path, boolean parallel) throws IOException {
+		return StreamSupport.stream(open(path), parallel);
+	}
+
+	@Override
+	public boolean tryAdvance(Consumer<? super MinesweeperData> action) {
+		skipEmptyAndCommentLines();
+
+		if (position >= end) {
+			return false;
+		}
+
+		int firstLine = line;
+		int rows = 0;
+		int cols = 0;
+		int p = position;
+
+		while (p < end && !isEmptyLine(p)) {
+			int lineEnd = lineEnd(p);
+
+			if (buffer.get(p) != ';') {
+				cols = Math.max(cols, contentEnd(p, lineEnd) - p);
+				rows++;
+			}
+
+			p = next(lineEnd);
+		}
+
+		byte[] cells = new byte[rows * cols];
+		byte[] text = new byte[rows * cols];
+		int textLength = 0;
+		int row = 0;
+
+		while (position < p) {
+			int lineEnd = lineEnd(position);
+
+			if (buffer.get(position) != ';') {
+				int contentEnd = contentEnd(position, lineEnd);
+
+				for (int i = position, cell = row * cols; i < contentEnd; i++, cell++) {
+					byte b = buffer.get(i);
+					text[textLength++] = b;
+					cells[cell] = b == BOMB ? Minesweeper.INT_BOMB : b >= '0' && b <= '9' ? (byte) (b - '0') : 0;
+				}
+
+				row++;
+			}
+
+			position = next(lineEnd);
+			line++;
+		}
+
+		String description = "Line:" + firstLine + "," + new String(text, 0, textLength, StandardCharsets.ISO_8859_1);
+		action.accept(new MinesweeperData(new Board(rows, cols, cells), description));
+
+		return true;
+	}
+
+	/**
+	 * Splits at the first grid border after the middle of the remaining bytes
+	 */
+	@Override
+	public Spliterator<MinesweeperData> trySplit() {
+		int p = lineEnd(position + (end - position) / 2);
+
+		while (p < end && !isEmptyLine(next(p))) {
+			p = lineEnd(next(p));
+		}
+
+		int split = next(p);
+
+		if (split >= end) {
+			return null;
+		}
+
+		NeighboursFileParser prefix = new NeighboursFileParser(buffer, position, split, line);
+
+		for (int i = position; i < split; i++) {
+			if (buffer.get(i) == '\n') {
+				line++;
+			}
+		}
+
+		position = split;
+
+		return prefix;
+	}
+
+	/**
+	 * A rough estimation, it is only used for splitting
+	 */
+	@Override
+	public long estimateSize() {
+		return (end - position) / 64 + 1;
+	}
+
+	@Override
+	public int characteristics() {
+		return ORDERED | NONNULL | IMMUTABLE;
+	}
+
+	private void skipEmptyAndCommentLines() {
+		while (position < end && (isEmptyLine(position) || buffer.get(position) == ';')) {
+			position = next(lineEnd(position));
+			line++;
+		}
+	}
+
+	private boolean isEmptyLine(int p) {
+		return p >= end || buffer.get(p) == '\n' || (buffer.get(p) == '\r' && (p + 1 >= end || buffer.get(p + 1) == '\n'));
+	}
+
+	/**
+	 * Position of the '\n' of the line or end
+	 */
+	private int lineEnd(int p) {
+		while (p < end && buffer.get(p) != '\n') {
+			p++;
+		}
+
+		return p;
+	}
+
+	private int contentEnd(int lineStart, int lineEnd) {
+		return lineEnd > lineStart && buffer.get(lineEnd - 1) == '\r' ? lineEnd - 1 : lineEnd;
+	}
+
+	private int next(int lineEnd) {
+		return Math.min(end, lineEnd + 1);
+	}
+}
@@ -0,0 +1,80 @@
+package hu.bp.minesweeper.core;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
+
+import static org.junit.Assert.*;
+
+public class NeighboursFileParserTest {
+
+	private NeighboursFileParser parser(String text) {
+		ByteBuffer buffer = ByteBuffer.wrap(text.getBytes(StandardCharsets.ISO_8859_1));
+
+		return new NeighboursFileParser(buffer, 0, buffer.limit(), 1);
+	}
+
+	private List<MinesweeperData> parse(String text) {
+		return StreamSupport.stream(parser(text), false).collect(Collectors.toList());
+	}
+
+	@Test
+	public void parsesGridsCommentsAndCarriageReturns() {
+		List<MinesweeperData> grids = parse(";comment\n*1\r\n11\r\n\r\n\n*2*\n;inner comment\n121");
+
+		assertEquals(2, grids.size());
+		assertEquals("*1\n11", Minesweeper.getStringGrid(grids.get(0)));
+		assertEquals("Line:2,*111", grids.get(0).description);
+		assertEquals(2, grids.get(1).ROWS);
+		assertEquals(3, grids.get(1).COLS);
+		assertEquals("*2*\n121", Minesweeper.getStringGrid(grids.get(1)));
+		assertEquals("Line:6,*2*121", grids.get(1).description);
+	}
+
+	@Test
+	public void sameAsStringParsing() {
+		MinesweeperData expected = MinesweeperTestHelper.getMinesweeperDataFromString(3, 3, "*21" + "2*1" + "111");
+		MinesweeperData parsed = parse("*21\n2*1\n111\n").get(0);
+
+		assertEquals(expected.bombs, parsed.bombs);
+		assertEquals(expected.bombsNeighboursWithCounts, parsed.bombsNeighboursWithCounts);
+	}
+
+	@Test
+	public void splitsAtGridBorders() {
+		StringBuilder text = new StringBuilder();
+		for (int i = 0; i < 40; i++) {
+			text.append("*").append(i % 10).append("\n1_\n\n");
+		}
+
+		NeighboursFileParser suffix = parser(text.toString());
+		Spliterator<MinesweeperData> prefix = suffix.trySplit();
+
+		assertNotNull(prefix);
+		List<MinesweeperData> first = StreamSupport.stream(prefix, false).collect(Collectors.toList());
+		List<MinesweeperData> second = StreamSupport.stream(suffix, false).collect(Collectors.toList());
+
+		assertEquals(40, first.size() + second.size());
+		assertTrue(first.size() > 10 && second.size() > 10);
+		assertEquals("Line:" + (first.size() * 3 + 1) + ",*" + first.size() % 10 + "1_", second.get(0).description);
+	}
+
+	@Test
+	public void parallelValidationOfTestFile() throws IOException {
+		long validated = NeighboursFileParser.stream(Paths.get(".", "neighbours.txt"), true).
+				filter(test -> {
+					MinesweeperData data = Minesweeper.createMinesweeperData(test.ROWS, test.COLS, test.bombs);
+					return data.bombsNeighboursWithCounts.equals(test.bombsNeighboursWithCounts);
+				}).
+				count();
+
+		assertEquals(new MinesweeperTestHelper("neighbours.txt").stream().count(), validated);
+	}
+}
@@ -0,0 +1,102 @@
+package hu.bp.minesweeper.core;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class NoGuessGeneratorTest {
+
+	@Test
+	public void solvableBoard() {
+		NoGuessGenerator.Result result;
+
+		try (NoGuessGenerator generator = new NoGuessGenerator(4, 10000)) {
+			result = generator.generate(16, 16, 40, 8 * 16 + 8, 1);
+		}
+
+		assertTrue(result.solvable);
+		assertEquals(0, result.hiddenSafeCells);
+		assertEquals(8 * 16 + 8, result.firstClick);
+		assertEquals(40, result.data.bombs.size());
+		assertTrue(NoGuessSolver.isSolvable(result.data.board, result.firstClick));
+		assertTrue(result.candidates >= 1);
+		assertEquals(result.candidates, result.candidateTime.getCount());
+	}
+
+	@Test
+	public void boardIsReproducibleFromItsSeed() {
+		try (NoGuessGenerator generator = new NoGuessGenerator(2, 10000)) {
+			NoGuessGenerator.Result result = generator.generate(9, 9, 10, 40, 7);
+			MinesweeperData data = Minesweeper.createMinesweeperData(9, 9, 10, result.data.seed, result.data.safeCell);
+
+			assertEquals(40, result.data.safeCell);
+			assertEquals(result.data.bombs, data.bombs);
+		}
+	}
+
+	@Test
+	public void oneThreadDependsOnlyOnTheSeed() {
+		try (NoGuessGenerator generator = new NoGuessGenerator(1, 10000)) {
+			NoGuessGenerator.Result first = generator.generate(16, 16, 40, 0, 3);
+			NoGuessGenerator.Result second = generator.generate(16, 16, 40, 0, 3);
+
+			assertEquals(first.index, second.index);
+			assertEquals(first.data.seed, second.data.seed);
+			assertEquals(first.index + 1, first.candidates);
+		}
+	}
+
+	@Test
+	public void bestCandidateWhenTheBudgetRunsOut() {
+		// every cell is a bomb or next to many of them, nothing can be solved
+		NoGuessGenerator.Result result;
+
+		try (NoGuessGenerator generator = new NoGuessGenerator(2, 20)) {
+			result = generator.generate(16, 30, 200, 0, 1);
+		}
+
+		assertFalse(result.solvable);
+		assertTrue(result.hiddenSafeCells > 0);
+		assertEquals(200, result.data.bombs.size());
+		assertTrue(result.candidates >= 1);
+		assertTrue(result.nanos < 2_000_000_000L);
+	}
+
+	@Test
+	public void zeroBudgetChecksOneCandidate() {
+		try (NoGuessGenerator generator = new NoGuessGenerator(1, 0)) {
+			NoGuessGenerator.Result result = generator.generate(16, 30, 99, 0, 1);
+
+			assertEquals(1, result.candidates);
+			assertEquals(0, result.index);
+		}
+	}
+
+	@Test
+	public void firstClickIsNeverABomb() {
+		// 8 safe cells of 80, without the first click in the sampling only 1 of 10 boards would be good
+		try (NoGuessGenerator generator = new NoGuessGenerator(1, 0)) {
+			for (long seed = 0; seed < 50; seed++) {
+				NoGuessGenerator.Result result = generator.generate(8, 10, 72, 44, seed);
+
+				assertFalse(result.data.board.isBomb(44));
+				assertEquals(72, result.data.bombs.size());
+			}
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void firstClickOutOfTheBoard() {
+		try (NoGuessGenerator generator = new NoGuessGenerator(1, 10)) {
+			generator.generate(9, 9, 10, 81, 1);
+		}
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void closedGenerator() {
+		NoGuessGenerator generator = new NoGuessGenerator(1, 10);
+		generator.close();
+
+		generator.generate(9, 9, 10, 0, 1);
+	}
+}
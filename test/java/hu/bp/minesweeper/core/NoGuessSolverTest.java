@@ -0,0 +1,129 @@
+package hu.bp.minesweeper.core;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class NoGuessSolverTest {
+
+	@Test
+	public void singleCellRules() {
+		// 1x3, the bomb is at 2: 0 opens 1, a one, so 2 is a mine
+		Board board = Minesweeper.createMinesweeperData(1, 3, Arrays.asList(2)).board;
+		NoGuessSolver solver = new NoGuessSolver(1, 3);
+
+		assertEquals(0, solver.solve(board, 0));
+		assertEquals(FloodReveal.FLAGGED, solver.getState(2));
+		assertEquals(1, solver.getFoundMines());
+		assertEquals(2, solver.getRevealedCells());
+	}
+
+	@Test
+	public void pairRule() {
+		// bombs at (0, 1) and (0, 3), the second and third rows are opened by the first click:
+		// 1 1 2 1 1 under the hidden first row, no single number gives anything.
+		// The first one is inside the second one, so (0, 2) is safe, then the 2 needs (0, 1) and (0, 3)
+		Board board = Minesweeper.createMinesweeperData(3, 5, Arrays.asList(1, 3)).board;
+		NoGuessSolver solver = new NoGuessSolver(3, 5);
+
+		assertEquals(0, solver.solve(board, 10));
+		assertEquals(FloodReveal.FLAGGED, solver.getState(1));
+		assertEquals(FloodReveal.FLAGGED, solver.getState(3));
+	}
+
+	@Test
+	public void guessIsNeeded() {
+		// 2x2, the bomb is at 3: the 1 at 0 does not tell which of 1, 2 and 3 it is
+		Board board = Minesweeper.createMinesweeperData(2, 2, Arrays.asList(3)).board;
+
+		assertEquals(2, new NoGuessSolver(2, 2).solve(board, 0));
+		assertFalse(NoGuessSolver.isSolvable(board, 0));
+	}
+
+	@Test
+	public void bombCountIsNotUsed() {
+		// 1x4, the bomb is at 1: 3 opens 2, a one, so 1 is a mine, but only the number of bombs says 0 is safe
+		Board board = Minesweeper.createMinesweeperData(1, 4, Arrays.asList(1)).board;
+
+		assertEquals(1, new NoGuessSolver(1, 4).solve(board, 3));
+	}
+
+	@Test
+	public void firstClickOnBomb() {
+		Board board = Minesweeper.createMinesweeperData(2, 2, Arrays.asList(3)).board;
+
+		assertEquals(3, new NoGuessSolver(2, 2).solve(board, 3));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void otherSize() {
+		new NoGuessSolver(3, 3).solve(Minesweeper.createMinesweeperData(2, 2, Arrays.asList(3)).board, 0);
+	}
+
+	@Test
+	public void foundCellsAreRightAndTheSolverIsReusable() {
+		NoGuessSolver solver = new NoGuessSolver(16, 30);
+		int solvable = 0;
+
+		for (long seed = 0; seed < 300; seed++) {
+			Board board = Minesweeper.createMinesweeperData(16, 30, 99, seed).board;
+			int firstClick = firstZero(board);
+
+			if (firstClick < 0) continue;
+
+			int hidden = solver.solve(board, firstClick);
+			int revealed = 0;
+
+			for (int cell = 0; cell < board.bound; cell++) {
+				byte state = solver.getState(cell);
+
+				assertEquals(state == FloodReveal.FLAGGED, state != FloodReveal.HIDDEN && board.isBomb(cell));
+				if (state == FloodReveal.REVEALED) revealed++;
+			}
+
+			assertEquals(revealed, solver.getRevealedCells());
+			assertEquals(board.bound - 99 - revealed, hidden);
+
+			if (hidden == 0) {
+				solvable++;
+				assertEquals(99, solver.getFoundMines());
+			}
+		}
+
+		// about 7% of the expert boards can be solved from a zero with the local rules
+		assertTrue(solvable + " solvable", solvable > 10);
+	}
+
+	@Test
+	public void sameAsAGameWithTheSameReveals() {
+		Board board = Minesweeper.createMinesweeperData(16, 16, 40, 5).board;
+		int firstClick = firstZero(board);
+		NoGuessSolver solver = new NoGuessSolver(16, 16);
+		solver.solve(board, firstClick);
+
+		MinesweeperGame game = new MinesweeperGame(board);
+		game.reveal(firstClick);
+
+		for (int cell = 0; cell < board.bound; cell++) {
+			if (solver.getState(cell) == FloodReveal.REVEALED) {
+				game.reveal(cell);
+			}
+		}
+
+		for (int cell = 0; cell < board.bound; cell++) {
+			assertEquals(solver.getState(cell) == FloodReveal.REVEALED, game.getState(cell) == FloodReveal.REVEALED);
+		}
+	}
+
+	private static int firstZero(Board board) {
+		for (int cell = 0; cell < board.bound; cell++) {
+			if (board.get(cell) == 0) {
+				return cell;
+			}
+		}
+
+		return -1;
+	}
+}
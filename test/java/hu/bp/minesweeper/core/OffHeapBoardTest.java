@@ -0,0 +1,100 @@
+package hu.bp.minesweeper.core;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.Assert.*;
+
+public class OffHeapBoardTest {
+
+	private static long[] bombs(Board board) {
+		long[] bombs = new long[board.getNumberOfBombs()];
+		for (int i = 0; i < bombs.length; i++) {
+			bombs[i] = board.getBomb(i);
+		}
+		return bombs;
+	}
+
+	@Test
+	public void countsLikeBoard() {
+		// 64 byte segments, the rows cross the segment borders
+		Board expected = Minesweeper.createMinesweeperData(23, 37, 150, 3L).board;
+		OffHeapBoard board = OffHeapBoard.allocate(23, 37, 6);
+		board.setBombs(bombs(expected));
+
+		assertEquals(150, board.getNumberOfBombs());
+		assertEquals(Minesweeper.getStringGrid(new MinesweeperData(expected)),
+				Minesweeper.getStringGrid(new MinesweeperData(board.toBoard())));
+	}
+
+	@Test
+	public void generateExactNumberOfBombs() {
+		OffHeapBoard board = OffHeapBoard.allocate(100, 301, 10);
+		board.generate(7000, new SplitRandom(9));
+
+		Board heap = board.toBoard();
+		assertEquals(7000, heap.getNumberOfBombs());
+		assertEquals(Minesweeper.getStringGrid(new MinesweeperData(heap)),
+				Minesweeper.getStringGrid(new MinesweeperData(BitsetNeighbourCounter.createBoard(100, 301, heap.bombsView()))));
+
+		OffHeapBoard same = OffHeapBoard.allocate(100, 301);
+		same.generate(7000, new SplitRandom(9));
+		assertEquals(Minesweeper.getStringGrid(new MinesweeperData(heap)),
+				Minesweeper.getStringGrid(new MinesweeperData(same.toBoard())));
+	}
+
+	@Test
+	public void revealLikeFloodReveal() {
+		OffHeapBoard board = OffHeapBoard.allocate(60, 70, 8);
+		board.generate(300, new SplitRandom(4));
+		FloodReveal expected = new FloodReveal(board.toBoard());
+
+		for (int cell = 0; cell < board.bound; cell += 97) {
+			assertEquals(expected.reveal(cell), board.reveal(cell));
+		}
+		for (int cell = 0; cell < board.bound; cell++) {
+			assertEquals(expected.getState(cell), board.getState(cell));
+		}
+	}
+
+	@Test
+	public void flagsAreNotRevealed() {
+		OffHeapBoard board = OffHeapBoard.allocate(1, 5);
+		board.setBombs(new long[] {4});
+
+		assertEquals(FloodReveal.FLAGGED, board.toggleFlag(1));
+		assertEquals(1, board.reveal(0));
+		assertEquals(0, board.reveal(1));
+		assertEquals(FloodReveal.HIDDEN, board.toggleFlag(1));
+		assertEquals(3, board.reveal(1));
+		assertEquals(FloodReveal.HIDDEN, board.getState(4));
+		assertEquals(Minesweeper.INT_BOMB, board.get(0, 4));
+	}
+
+	@Test
+	public void mappedFile() throws IOException {
+		Path file = Files.createTempFile("offheap", ".cells");
+
+		try (OffHeapBoard board = OffHeapBoard.map(file, 40, 50, 9)) {
+			board.generate(200, new SplitRandom(1));
+			board.reveal(0);
+
+			OffHeapBoard direct = OffHeapBoard.allocate(40, 50);
+			direct.generate(200, new SplitRandom(1));
+			direct.reveal(0);
+
+			assertEquals(Minesweeper.getStringGrid(new MinesweeperData(direct.toBoard())),
+					Minesweeper.getStringGrid(new MinesweeperData(board.toBoard())));
+			assertEquals(2000, Files.size(file));
+			for (int cell = 0; cell < 2000; cell++) {
+				assertEquals(direct.getState(cell), board.getState(cell));
+			}
+		}
+		finally {
+			Files.deleteIfExists(file);
+		}
+	}
+}
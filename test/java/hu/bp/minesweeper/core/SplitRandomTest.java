@@ -0,0 +1,56 @@
+package hu.bp.minesweeper.core;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class SplitRandomTest {
+
+	@Test
+	public void sameSeedSameNumbers() {
+		SplitRandom a = new SplitRandom(42);
+		SplitRandom b = new SplitRandom(42);
+
+		for (int i = 0; i < 100; i++) {
+			assertEquals(a.nextLong(), b.nextLong());
+		}
+	}
+
+	@Test
+	public void splitDependsOnlyOnSeedAndIndex() {
+		SplitRandom parent = new SplitRandom(7);
+		long expected = parent.split(5).nextLong();
+
+		for (int i = 0; i < 10; i++) {
+			parent.nextLong();
+		}
+
+		assertEquals(expected, parent.split(5).nextLong());
+		assertEquals(expected, new SplitRandom(SplitRandom.splitSeed(7, 5)).nextLong());
+		assertNotEquals(expected, parent.split(6).nextLong());
+	}
+
+	@Test
+	public void nextIntInBound() {
+		SplitRandom random = new SplitRandom(1);
+		int[] counts = new int[7];
+
+		for (int i = 0; i < 7000; i++) {
+			counts[random.nextInt(7)]++;
+		}
+
+		for (int count : counts) {
+			assertTrue("roughly uniform: " + count, count > 800 && count < 1200);
+		}
+
+		for (int i = 0; i < 100; i++) {
+			int r = random.nextInt(16);
+			assertTrue(r >= 0 && r < 16);
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void nextIntZeroBound() {
+		new SplitRandom(1).nextInt(0);
+	}
+}
@@ -0,0 +1,82 @@
+package hu.bp.minesweeper.graph;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class RevealActionTest {
+	private static class RecordingTarget implements RevealAction.Target {
+		final List<Integer> cells = new ArrayList<>();
+		int frames;
+
+		@Override
+		public void showCell(int linearCoord) {
+			cells.add(linearCoord);
+		}
+
+		@Override
+		public void cellsShown() {
+			frames++;
+		}
+	}
+
+	@Test
+	public void waveOrder() {
+		int[] ringStarts = new int[5];
+		int[] order = RevealAction.waveOrder(3, 4, 5, ringStarts);
+
+		assertArrayEquals(new int[] {0, 1, 9, 12, 12}, ringStarts);
+		assertEquals(5, order[0]);
+
+		boolean[] seen = new boolean[12];
+		for (int i = 0; i < order.length; i++) {
+			assertFalse(seen[order[i]]);
+			seen[order[i]] = true;
+
+			int ring = i < 1 ? 0 : i < 9 ? 1 : 2;
+			assertEquals(ring, Math.max(Math.abs(order[i] / 4 - 1), Math.abs(order[i] % 4 - 1)));
+		}
+	}
+
+	@Test
+	public void linearWithinBudget() {
+		RecordingTarget target = new RecordingTarget();
+		RevealAction action = RevealAction.linear(target, 1000, Long.MAX_VALUE / 2);
+
+		assertTrue(action.act(0.016f));
+		assertEquals(1000, target.cells.size());
+		assertEquals(999, (int) target.cells.get(999));
+		assertEquals(1, target.frames);
+	}
+
+	@Test
+	public void zeroBudgetSpreadsOverFrames() {
+		RecordingTarget target = new RecordingTarget();
+		RevealAction action = RevealAction.linear(target, 1000, 0);
+
+		int frames = 0;
+		while (!action.act(0.016f)) {
+			frames++;
+		}
+
+		assertEquals(1000, target.cells.size());
+		assertTrue(frames >= 1000 / 64 - 1);
+		assertEquals(target.frames, frames + 1);
+	}
+
+	@Test
+	public void waveShowsRingsPerSecond() {
+		RecordingTarget target = new RecordingTarget();
+		RevealAction action = RevealAction.wave(target, 9, 9, 40, 1, Long.MAX_VALUE / 2);
+
+		assertFalse(action.act(0));
+		assertEquals(1, target.cells.size());
+		assertFalse(action.act(1));
+		assertEquals(9, target.cells.size());
+		assertTrue(action.act(10));
+		assertEquals(81, target.cells.size());
+	}
+}